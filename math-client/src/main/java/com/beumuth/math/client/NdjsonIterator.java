@@ -0,0 +1,79 @@
+package com.beumuth.math.client;
+
+import feign.Response;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over a newline-delimited JSON response one line at a time, so the whole response never has to be held in
+ * memory. Must be closed if it is not iterated to the end.
+ */
+public class NdjsonIterator<T> implements Iterator<T>, Closeable {
+    private final BufferedReader reader;
+    private final Class<T> type;
+    private String nextLine;
+    private boolean closed;
+
+    public NdjsonIterator(Response response, Class<T> type) {
+        this.type = type;
+        try {
+            this.reader = new BufferedReader(
+                new InputStreamReader(response.body().asInputStream(), StandardCharsets.UTF_8)
+            );
+        } catch(IOException e) {
+            response.close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(nextLine != null) {
+            return true;
+        }
+        if(closed) {
+            return false;
+        }
+        try {
+            do {
+                nextLine = reader.readLine();
+            } while(nextLine != null && nextLine.isEmpty());
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if(nextLine == null) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if(! hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = null;
+        return Clients.GSON.fromJson(line, type);
+    }
+
+    @Override
+    public void close() {
+        if(! closed) {
+            closed = true;
+            try {
+                reader.close();
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
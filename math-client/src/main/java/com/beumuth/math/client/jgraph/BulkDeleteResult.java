@@ -0,0 +1,17 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResult {
+    private long numElementsDeleted;
+    /**
+     * The number of Elements that were part of a cycle, and so had to be rewired to themselves before deletion.
+     */
+    private long numElementsRewired;
+    private long numChunksExecuted;
+    private long millisecondsElapsed;
+}
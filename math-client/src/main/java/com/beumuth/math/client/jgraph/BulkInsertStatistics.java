@@ -0,0 +1,18 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInsertStatistics {
+    private long numCalls;
+    private long numElementsInserted;
+    private long numChunksExecuted;
+    private long millisecondsElapsed;
+
+    public double getElementsPerSecond() {
+        return millisecondsElapsed == 0 ? 0 : numElementsInserted * 1000.0 / millisecondsElapsed;
+    }
+}
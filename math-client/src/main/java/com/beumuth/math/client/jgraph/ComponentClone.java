@@ -0,0 +1,30 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A copy of a component. The clones were given a contiguous block of ids in the order of the originals, so the clone of
+ * sourceIds[i] has the id firstId + i.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComponentClone {
+    private long firstId;
+    /**
+     * The ids of the cloned Elements, ascending
+     */
+    private List<Long> sourceIds;
+
+    /**
+     * @return The id of the clone of the Element with the given id, or 0 if it was not cloned.
+     */
+    public long getCloneId(long sourceId) {
+        int i = Collections.binarySearch(sourceIds, sourceId);
+        return i < 0 ? 0 : firstId + i;
+    }
+}
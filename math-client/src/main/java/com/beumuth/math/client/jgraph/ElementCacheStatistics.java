@@ -0,0 +1,32 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ElementCacheStatistics {
+    /**
+     * 0 when the cache is disabled.
+     */
+    private int capacity;
+    private int size;
+    private long numHits;
+    /**
+     * Lookups answered by an id cached as not existing.
+     */
+    private long numNegativeHits;
+    private long numMisses;
+    private long numEvictions;
+    /**
+     * Entries evicted on leaving the admission window because they were accessed less often than the entry they
+     * would have replaced.
+     */
+    private long numRejections;
+
+    public double getHitRate() {
+        long numLookups = numHits + numNegativeHits + numMisses;
+        return numLookups == 0 ? 0 : (double) (numHits + numNegativeHits) / numLookups;
+    }
+}
@@ -1,8 +1,11 @@
 package com.beumuth.math.client.jgraph;
 
 import com.beumuth.math.MathClient;
+import com.beumuth.math.client.NdjsonIterator;
+import com.beumuth.math.client.Page;
 import com.beumuth.math.client.settheory.orderedset.OrderedSet;
 import feign.Param;
+import feign.Response;
 import feign.RequestLine;
 
 import java.util.List;
@@ -57,6 +60,15 @@ public interface ElementClient extends MathClient {
     @RequestLine("GET api/jgraph/elements/connected/{a}/{b}")
     boolean areElementsConnected(@Param("a") long a, @Param("b") long b);
 
+    /**
+     * For each pair, are its Elements connected? Pairs with an Element that does not exist are not connected.
+     */
+    @RequestLine("POST api/jgraph/elements/connected")
+    List<Boolean> areElementsConnected(List<ElementPair> pairs);
+
+    @RequestLine("GET api/jgraph/elements/path/{a}/{b}")
+    OrderedSet<Long> getShortestPath(@Param("a") long a, @Param("b") long b);
+
     @RequestLine("GET api/jgraph/elements/with/{a}/or/{b}/count")
     int numElementsWithAOrB(@Param("a") long a, @Param("b") long b);
 
@@ -81,6 +93,16 @@ public interface ElementClient extends MathClient {
     @RequestLine("GET api/jgraph/elements/ids/all")
     OrderedSet<Long> getAllIds();
 
+    @RequestLine("GET api/jgraph/elements/ids/export")
+    Response exportAllIds();
+
+    /**
+     * Iterate over the ids of every Element in ascending order as they are streamed from the server.
+     */
+    default NdjsonIterator<Long> iterateAllIds() {
+        return new NdjsonIterator<>(exportAllIds(), Long.class);
+    }
+
     @RequestLine("GET api/jgraph/elements/ids?ids={ids}")
     List<Long> getIds(@Param("ids") OrderedSet<Long> ids);
 
@@ -111,6 +133,16 @@ public interface ElementClient extends MathClient {
     @RequestLine("GET api/jgraph/elements")
     OrderedSet<Element> getAllElements();
 
+    @RequestLine("GET api/jgraph/elements/export")
+    Response exportAllElements();
+
+    /**
+     * Iterate over every Element in ascending order of id as they are streamed from the server.
+     */
+    default NdjsonIterator<Element> iterateAllElements() {
+        return new NdjsonIterator<>(exportAllElements(), Element.class);
+    }
+
     @RequestLine("GET api/jgraph/elements?ids={ids}")
     List<Element> getElements(@Param("ids") OrderedSet<Long> ids);
 
@@ -138,18 +170,85 @@ public interface ElementClient extends MathClient {
     @RequestLine("GET api/jgraph/elements/endpoints/of?ids={ids}")
     List<OrderedSet<Element>> getEndpointsOfForEach(@Param("ids") OrderedSet<Long> ids);
 
+    /*
+     * Keyset-paginated lists. Pass a null cursor for the first page, then each page's nextCursor until it is null.
+     */
+
+    @RequestLine("GET api/jgraph/elements/ids/all/page?cursor={cursor}&limit={limit}")
+    Page<Long> getAllIdsPage(@Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/ids/with/{a}/or/{b}/page?cursor={cursor}&limit={limit}")
+    Page<Long> getIdsWithAOrBPage(@Param("a") long a, @Param("b") long b, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/ids/with/{a}/and/{b}/page?cursor={cursor}&limit={limit}")
+    Page<Long> getIdsWithAAndBPage(@Param("a") long a, @Param("b") long b, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/nodes/ids/page?cursor={cursor}&limit={limit}")
+    Page<Long> getIdsNodesPage(@Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{idFrom}/pendants/from/ids/page?cursor={cursor}&limit={limit}")
+    Page<Long> getIdsPendantsFromPage(@Param("idFrom") long idFrom, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{idTo}/pendants/to/ids/page?cursor={cursor}&limit={limit}")
+    Page<Long> getIdsPendantsToPage(@Param("idTo") long idTo, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{idOn}/loops/on/ids/page?cursor={cursor}&limit={limit}")
+    Page<Long> getIdsLoopsOnPage(@Param("idOn") long idOn, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{id}/endpoints/of/ids/page?cursor={cursor}&limit={limit}")
+    Page<Long> getIdsEndpointsOfPage(@Param("id") long id, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/page?cursor={cursor}&limit={limit}")
+    Page<Element> getAllElementsPage(@Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/with/{a}/or/{b}/page?cursor={cursor}&limit={limit}")
+    Page<Element> getElementsWithAOrBPage(@Param("a") long a, @Param("b") long b, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/with/{a}/and/{b}/page?cursor={cursor}&limit={limit}")
+    Page<Element> getElementsWithAAndBPage(@Param("a") long a, @Param("b") long b, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/nodes/page?cursor={cursor}&limit={limit}")
+    Page<Element> getNodesPage(@Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{idFrom}/pendants/from/page?cursor={cursor}&limit={limit}")
+    Page<Element> getPendantsFromPage(@Param("idFrom") long idFrom, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{idTo}/pendants/to/page?cursor={cursor}&limit={limit}")
+    Page<Element> getPendantsToPage(@Param("idTo") long idTo, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{idOn}/loops/on/page?cursor={cursor}&limit={limit}")
+    Page<Element> getLoopsOnPage(@Param("idOn") long idOn, @Param("cursor") String cursor, @Param("limit") int limit);
+
+    @RequestLine("GET api/jgraph/elements/element/{id}/endpoints/of/page?cursor={cursor}&limit={limit}")
+    Page<Element> getEndpointsOfPage(@Param("id") long id, @Param("cursor") String cursor, @Param("limit") int limit);
+
     @RequestLine("POST api/jgraph/elements/element")
     long createElement(CreateElementRequest request);
 
     @RequestLine("POST api/jgraph/elements")
     OrderedSet<Long> createElements(List<CreateElementRequest> requests);
 
+    @RequestLine("POST api/jgraph/elements/snapshot")
+    void writeSnapshot();
+
+    @RequestLine("GET api/jgraph/elements/bulkInsert/statistics")
+    BulkInsertStatistics getBulkInsertStatistics();
+
+    @RequestLine("GET api/jgraph/elements/locks/statistics")
+    ElementLockStatistics getLockStatistics();
+
+    @RequestLine("GET api/jgraph/elements/cache/statistics")
+    ElementCacheStatistics getCacheStatistics();
+
     @RequestLine("POST api/jgraph/elements/nodes/node")
     long createNode();
 
     @RequestLine("POST api/jgraph/elements/nodes")
     OrderedSet<Long> createNodes(int howMany);
 
+    @RequestLine("GET api/jgraph/elements/element/{id}/dependents/closure/ids")
+    OrderedSet<Long> getDependencyClosure(@Param("id") long id);
+
     @RequestLine("POST api/jgraph/elements/element/{idFrom}/pendant/from")
     long createPendantFrom(@Param("idFrom") long from);
 
@@ -168,15 +267,31 @@ public interface ElementClient extends MathClient {
     @RequestLine("POST api/jgraph/elements/element/{idOn}/loops")
     OrderedSet<Long> createLoopsOn(int howMany, @Param("idOn") long idOn);
 
+    /**
+     * Copy the component of the Element with the given id, returning which clone has which original.
+     */
+    @RequestLine("POST api/jgraph/elements/element/{id}/component/clone")
+    ComponentClone cloneComponent(@Param("id") long id);
+
     @RequestLine("PUT api/jgraph/elements/element/{id}")
     void updateElement(@Param("id") long id, UpdateElementRequest request);
 
     @RequestLine("PUT api/jgraph/elements?ids={ids}")
     void updateElements(List<UpdateElementRequest> requests, @Param("ids") OrderedSet<Long> ids);
 
+    /**
+     * Retarget every a and/or b equal to request.from to request.to in one transaction. The Element from itself is
+     * never rewired.
+     */
+    @RequestLine("POST api/jgraph/elements/rewire")
+    RewireResult rewire(RewireRequest request);
+
     @RequestLine("DELETE api/jgraph/elements/element/{id}")
     void deleteElement(@Param("id") long id);
 
+    @RequestLine("DELETE api/jgraph/elements/element/{id}/dependents")
+    BulkDeleteResult deleteElementWithDependents(@Param("id") long id);
+
     @RequestLine("DELETE api/jgraph/elements?ids={ids}")
     void deleteElements(@Param("ids") Set<Long> ids);
 }
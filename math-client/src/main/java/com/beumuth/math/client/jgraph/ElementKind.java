@@ -0,0 +1,59 @@
+package com.beumuth.math.client.jgraph;
+
+/**
+ * What an Element is, determined entirely by its id, a, and b.
+ */
+public enum ElementKind {
+    /**
+     * a = id and b = id
+     */
+    NODE(0),
+    /**
+     * a != id and b = id
+     */
+    PENDANT_FROM(1),
+    /**
+     * a = id and b != id
+     */
+    PENDANT_TO(2),
+    /**
+     * a = b and a != id
+     */
+    LOOP(3),
+    /**
+     * a, b, and id are all different
+     */
+    EDGE(4);
+
+    private final int code;
+
+    ElementKind(int code) {
+        this.code = code;
+    }
+
+    /**
+     * @return The value stored in JGraphElement.kind
+     */
+    public int getCode() {
+        return code;
+    }
+
+    public static ElementKind of(long id, long a, long b) {
+        if(a == id) {
+            return b == id ? NODE : PENDANT_TO;
+        }
+        if(b == id) {
+            return PENDANT_FROM;
+        }
+        return a == b ? LOOP : EDGE;
+    }
+
+    public static ElementKind fromCode(int code) {
+        for(ElementKind kind : values()) {
+            if(kind.code == code) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("No ElementKind with code [" + code + "]");
+    }
+}
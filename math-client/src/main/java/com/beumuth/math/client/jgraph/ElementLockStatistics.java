@@ -0,0 +1,22 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ElementLockStatistics {
+    private int numStripes;
+    private long numAcquisitions;
+    /**
+     * Acquisitions that found at least one of their stripes held by another writer.
+     */
+    private long numContendedAcquisitions;
+    private long microsecondsWaited;
+    private long maxMicrosecondsWaited;
+
+    public double getAverageMicrosecondsWaited() {
+        return numAcquisitions == 0 ? 0 : (double) microsecondsWaited / numAcquisitions;
+    }
+}
@@ -0,0 +1,18 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ElementPair {
+    private long x;
+    private long y;
+
+    @Override
+    public String toString() {
+        return "(" + x + "," + y + ")";
+    }
+}
@@ -0,0 +1,29 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+import java.util.Set;
+
+/**
+ * Retarget every Element that has from as its a and/or b to have to instead.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RewireRequest {
+    private long from;
+    private long to;
+    /**
+     * Whether a = from is retargeted
+     */
+    private boolean rewireA;
+    /**
+     * Whether b = from is retargeted
+     */
+    private boolean rewireB;
+    /**
+     * Only Elements of these kinds, as they are before the rewire, are retargeted. Null or empty means all kinds.
+     */
+    private Set<ElementKind> kinds;
+}
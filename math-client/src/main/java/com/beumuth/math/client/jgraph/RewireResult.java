@@ -0,0 +1,13 @@
+package com.beumuth.math.client.jgraph;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RewireResult {
+    private long numElementsRewired;
+    private long numAsRewired;
+    private long numBsRewired;
+}
@@ -0,0 +1,24 @@
+package com.beumuth.math.client.jgraph.analytics;
+
+import com.beumuth.math.MathClient;
+import feign.Param;
+import feign.RequestLine;
+
+public interface AnalyticsClient extends MathClient {
+    @RequestLine("GET api/jgraph/analytics/degrees")
+    DegreeDistribution getDegreeDistribution();
+
+    @RequestLine(
+        "GET api/jgraph/analytics/pageRank?dampingFactor={dampingFactor}&maxIterations={maxIterations}" +
+            "&tolerance={tolerance}&limit={limit}"
+    )
+    PageRank getPageRank(
+        @Param("dampingFactor") double dampingFactor,
+        @Param("maxIterations") int maxIterations,
+        @Param("tolerance") double tolerance,
+        @Param("limit") int limit
+    );
+
+    @RequestLine("GET api/jgraph/analytics/triangles")
+    TriangleCount countTriangles();
+}
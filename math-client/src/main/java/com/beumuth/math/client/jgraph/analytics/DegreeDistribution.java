@@ -0,0 +1,23 @@
+package com.beumuth.math.client.jgraph.analytics;
+
+import lombok.*;
+
+import java.util.Map;
+
+/**
+ * Degrees in the directed graph with an edge a -> id and id -> b for each Element, and in the simple undirected graph
+ * underneath it. Each histogram maps a degree to the number of Elements with that degree, ascending by degree.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DegreeDistribution {
+    private long numElements;
+    private long numEdges;
+    private double meanDegree;
+    private int maxDegree;
+    private Map<Integer, Long> inDegreeHistogram;
+    private Map<Integer, Long> outDegreeHistogram;
+    private Map<Integer, Long> degreeHistogram;
+}
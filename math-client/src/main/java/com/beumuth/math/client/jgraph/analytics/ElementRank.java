@@ -0,0 +1,18 @@
+package com.beumuth.math.client.jgraph.analytics;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ElementRank {
+    private long id;
+    private double rank;
+
+    @Override
+    public String toString() {
+        return id + ":" + rank;
+    }
+}
@@ -0,0 +1,23 @@
+package com.beumuth.math.client.jgraph.analytics;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * PageRank over the directed graph with an edge a -> id and id -> b for each Element. The ranks of all Elements sum
+ * to 1.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageRank {
+    private double dampingFactor;
+    private int numIterations;
+    private boolean converged;
+    /**
+     * The highest ranked Elements, highest first
+     */
+    private List<ElementRank> topElements;
+}
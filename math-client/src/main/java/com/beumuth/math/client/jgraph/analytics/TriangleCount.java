@@ -0,0 +1,23 @@
+package com.beumuth.math.client.jgraph.analytics;
+
+import lombok.*;
+
+/**
+ * Triangles in the simple undirected graph underneath the directed graph with an edge a -> id and id -> b for each
+ * Element.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TriangleCount {
+    private long numTriangles;
+    /**
+     * The number of paths of two edges; that is, of pairs of neighbors of the same Element
+     */
+    private long numConnectedTriples;
+    /**
+     * 3 * numTriangles / numConnectedTriples, or 0 if there are no connected triples
+     */
+    private double globalClusteringCoefficient;
+}
@@ -0,0 +1,25 @@
+package com.beumuth.math.client.jgraph.component;
+
+import com.beumuth.math.MathClient;
+import com.beumuth.math.client.NdjsonIterator;
+import feign.RequestLine;
+import feign.Response;
+
+public interface ComponentClient extends MathClient {
+    /**
+     * Compute every component of the j-graph at once.
+     */
+    @RequestLine("GET api/jgraph/components/summary")
+    ComponentsSummary getComponentsSummary();
+
+    @RequestLine("GET api/jgraph/components/labels")
+    Response getComponentLabels();
+
+    /**
+     * Iterate over every Element, in ascending order of id, with the component it is in, as they are streamed from
+     * the server.
+     */
+    default NdjsonIterator<ComponentLabel> iterateComponentLabels() {
+        return new NdjsonIterator<>(getComponentLabels(), ComponentLabel.class);
+    }
+}
@@ -0,0 +1,21 @@
+package com.beumuth.math.client.jgraph.component;
+
+import lombok.*;
+
+/**
+ * An Element and the component it is in, identified by the smallest id in the component.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ComponentLabel {
+    private long id;
+    private long componentId;
+
+    @Override
+    public String toString() {
+        return id + "@" + componentId;
+    }
+}
@@ -0,0 +1,18 @@
+package com.beumuth.math.client.jgraph.component;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComponentsSummary {
+    private long numElements;
+    private long numComponents;
+    /**
+     * Component size -> the number of components of that size, ascending by size
+     */
+    private Map<Integer, Long> sizeHistogram;
+}
@@ -0,0 +1,33 @@
+package com.beumuth.math.client.jgraph.traversal;
+
+import com.beumuth.math.MathClient;
+import com.beumuth.math.client.NdjsonIterator;
+import com.beumuth.math.client.settheory.orderedset.OrderedSet;
+import feign.Param;
+import feign.RequestLine;
+import feign.Response;
+
+public interface TraversalClient extends MathClient {
+    @RequestLine(
+        "GET api/jgraph/traversal?startIds={startIds}&maxDepth={maxDepth}&direction={direction}&limit={limit}"
+    )
+    Response traverse(
+        @Param("startIds") OrderedSet<Long> startIds,
+        @Param("maxDepth") int maxDepth,
+        @Param("direction") TraversalDirection direction,
+        @Param("limit") int limit
+    );
+
+    /**
+     * Iterate breadth-first over the Elements within maxDepth hops of the start Elements, as they are streamed from
+     * the server. Each Element is visited once, at its smallest depth.
+     */
+    default NdjsonIterator<TraversedElement> iterateTraversal(
+        OrderedSet<Long> startIds,
+        int maxDepth,
+        TraversalDirection direction,
+        int limit
+    ) {
+        return new NdjsonIterator<>(traverse(startIds, maxDepth, direction, limit), TraversedElement.class);
+    }
+}
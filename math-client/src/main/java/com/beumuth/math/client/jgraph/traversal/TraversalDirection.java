@@ -0,0 +1,23 @@
+package com.beumuth.math.client.jgraph.traversal;
+
+/**
+ * Which neighbors of an Element a traversal moves to.
+ */
+public enum TraversalDirection {
+    /**
+     * The Element's a
+     */
+    A,
+    /**
+     * The Element's b
+     */
+    B,
+    /**
+     * The other Elements that have the Element as their a or b
+     */
+    ENDPOINTS,
+    /**
+     * All of the above
+     */
+    ALL
+}
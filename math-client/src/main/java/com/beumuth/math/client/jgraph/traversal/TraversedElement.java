@@ -0,0 +1,23 @@
+package com.beumuth.math.client.jgraph.traversal;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class TraversedElement {
+    private long id;
+    private long a;
+    private long b;
+    /**
+     * The number of hops from the nearest start Element; start Elements have a depth of 0.
+     */
+    private int depth;
+
+    @Override
+    public String toString() {
+        return "[" + id + "," + a + "," + b + "]@" + depth;
+    }
+}
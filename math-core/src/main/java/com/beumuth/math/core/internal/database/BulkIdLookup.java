@@ -0,0 +1,117 @@
+package com.beumuth.math.core.internal.database;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Joins a list of ids against the database without inlining them into the SQL. The ids are loaded into the session's
+ * IdLookup temporary table with batched, parameterized inserts, so the queries that join against it have a fixed shape
+ * that MySQL can cache, no matter how many ids there are.
+ *
+ * IdLookup has the columns:
+ *  position - the index of the id in the given collection. ORDER BY it to preserve the input order.
+ *  idLookup - the id
+ *
+ * LEFT JOIN from IdLookup to keep a row (with null columns) for each id that matches nothing.
+ *
+ * Loading IdLookup costs a transaction and a few statements before the query even runs, so callers look up lists
+ * shorter than minSize (see isWorthwhile) with a plain IN (:ids) query instead.
+ */
+@Service
+public class BulkIdLookup {
+    public static final String TABLE = "IdLookup";
+
+    private static final ThreadLocal<Boolean> IN_USE = ThreadLocal.withInitial(() -> false);
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Value("${database.bulkIdLookup.chunkSize:5000}")
+    private int chunkSize;
+
+    @Value("${database.bulkIdLookup.minSize:32}")
+    private int minSize;
+
+    /**
+     * @return Whether a list of numIds ids is long enough to be worth loading into IdLookup rather than inlining as
+     * IN (:ids).
+     */
+    public boolean isWorthwhile(int numIds) {
+        return numIds >= minSize;
+    }
+
+    /**
+     * Load the ids into IdLookup and run the query. The query must use DatabaseService's templates, which inside this
+     * call are bound to the connection that owns the temporary table. Calls may not be nested.
+     */
+    public <T> T query(Collection<Long> ids, Supplier<T> query) {
+        return query(ids.stream().mapToLong(Long::longValue).toArray(), query);
+    }
+
+    /**
+     * See {@link #query(Collection, Supplier)}
+     */
+    public <T> T query(long[] ids, Supplier<T> query) {
+        if(IN_USE.get()) {
+            throw new IllegalStateException("BulkIdLookup queries cannot be nested");
+        }
+        IN_USE.set(true);
+        try {
+            return databaseService
+                .getTransactionTemplate()
+                .execute(status -> {
+                    load(ids);
+                    return query.get();
+                });
+        } finally {
+            IN_USE.set(false);
+        }
+    }
+
+    private void load(long[] ids) {
+        //The default temporary engine (InnoDB) rather than MEMORY, which is capped at max_heap_table_size
+        databaseService
+            .getJdbcTemplate()
+            .update(
+                "CREATE TEMPORARY TABLE IF NOT EXISTS " + TABLE + " (" +
+                    "position INT NOT NULL, " +
+                    "idLookup BIGINT, " +
+                    "PRIMARY KEY (position), " +
+                    "INDEX (idLookup)" +
+                ")"
+            );
+        //Not TRUNCATE, which commits implicitly and so would end a transaction the caller may have open
+        databaseService
+            .getJdbcTemplate()
+            .update("DELETE FROM " + TABLE);
+
+        for(int from = 0; from < ids.length; from += chunkSize) {
+            int offset = from;
+            int size = Math.min(chunkSize, ids.length - from);
+            databaseService
+                .getJdbcTemplate()
+                .batchUpdate(
+                    "INSERT INTO " + TABLE + " (position, idLookup) VALUES (?, ?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setInt(1, offset + i);
+                            ps.setLong(2, ids[offset + i]);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    }
+                );
+        }
+    }
+}
@@ -9,7 +9,9 @@ import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
@@ -26,22 +28,44 @@ public class DatabaseService {
     private MathDataSource mathDataSource;
 
     private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate streamingJdbcTemplate;
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private TransactionTemplate transactionTemplate;
 
     @PostConstruct
     public void initialize() {
         jdbcTemplate = new JdbcTemplate(mathDataSource);
+        streamingJdbcTemplate = new JdbcTemplate(mathDataSource);
+        //Tells MySQL Connector/J to stream rows one at a time over a forward-only cursor instead of buffering them all
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
         namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(mathDataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(mathDataSource));
     }
 
     public JdbcTemplate getJdbcTemplate() {
         return jdbcTemplate;
     }
 
+    /**
+     * Get a JdbcTemplate whose queries stream their results, for reading more rows than should be held in memory. The
+     * connection is busy until every row has been read, so no other statement may be run from a RowCallbackHandler.
+     */
+    public JdbcTemplate getStreamingJdbcTemplate() {
+        return streamingJdbcTemplate;
+    }
+
     public NamedParameterJdbcTemplate getNamedParameterJdbcTemplate() {
         return namedParameterJdbcTemplate;
     }
 
+    /**
+     * Get a TransactionTemplate for the math database. Every JdbcTemplate call made inside the callback runs on the
+     * same connection, which is also what session-scoped state such as temporary tables requires.
+     */
+    public TransactionTemplate getTransactionTemplate() {
+        return transactionTemplate;
+    }
+
     /**
      * Get a JdbcTemplate that isn't connected to a particular database
      * @return
@@ -34,7 +34,7 @@ public class MathDataSource extends BasicDataSource {
             "jdbc:mysql://" + databaseConfiguration.host + ":" + databaseConfiguration.port + "/" +
             databaseService.databaseConfigurationAndApplicationModeToDatabaseName(
                 databaseConfiguration, applicationMode
-            ) + "?allowPublicKeyRetrieval=true&useSSL=false"
+            ) + "?allowPublicKeyRetrieval=true&useSSL=false&rewriteBatchedStatements=true"
         );
         setUsername(databaseConfiguration.username);
         setPassword(databaseConfiguration.password);
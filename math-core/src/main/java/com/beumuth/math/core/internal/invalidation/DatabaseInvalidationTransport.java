@@ -0,0 +1,191 @@
+package com.beumuth.math.core.internal.invalidation;
+
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes events as rows of the InvalidationEvent table and polls it for the rows of other nodes, from a single
+ * daemon thread. Polling starts from the newest row at the time of the first poll.
+ *
+ * Revisions are AUTO_INCREMENT values, which concurrent publishers may commit out of order, so a poll that finds a gap
+ * in the revisions stops short of it until the missing rows commit, or until gapTimeoutMillis pass (a rolled back
+ * insert leaves a gap that never fills). Delivery is at least once: if the consumer fails, the same rows are read
+ * again on the next poll. Rows older than retentionSeconds are pruned.
+ */
+public class DatabaseInvalidationTransport implements InvalidationTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseInvalidationTransport.class);
+    private static final int MAX_ROWS_PER_POLL = 1000;
+    private static final int POLLS_PER_PRUNE = 1000;
+    private static final long NOT_POLLED = -1;
+    private static final long FAILURE_LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final DatabaseService databaseService;
+    private final long pollIntervalMillis;
+    private final long gapTimeoutMillis;
+    private final long retentionSeconds;
+
+    private String idNode;
+    private Consumer<List<InvalidationEvent>> consumer;
+    private ScheduledExecutorService poller;
+
+    //Only touched by the poller thread
+    private long lastRevision = NOT_POLLED;
+    private long gapRevision;
+    private long gapSinceNanos;
+    private int numPollsSincePrune;
+    private int numFailedPolls;
+    private long failureLoggedAtNanos;
+
+    public DatabaseInvalidationTransport(
+        DatabaseService databaseService,
+        long pollIntervalMillis,
+        long gapTimeoutMillis,
+        long retentionSeconds
+    ) {
+        this.databaseService = databaseService;
+        this.pollIntervalMillis = Math.max(pollIntervalMillis, 1);
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    @Override
+    public void start(String idNode, Consumer<List<InvalidationEvent>> consumer) {
+        this.idNode = idNode;
+        this.consumer = consumer;
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(List<InvalidationEvent> events) {
+        databaseService
+            .getJdbcTemplate()
+            .batchUpdate(
+                "INSERT INTO InvalidationEvent (idNode, entity, idFrom, idTo) VALUES (?, ?, ?, ?)",
+                events
+                    .stream()
+                    .map(event -> new Object[] {
+                        idNode,
+                        event.getEntity().getCode(),
+                        event.getIdFrom(),
+                        event.getIdTo()
+                    })
+                    .collect(Collectors.toList())
+            );
+    }
+
+    @Override
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            if(lastRevision == NOT_POLLED) {
+                lastRevision = databaseService
+                    .getJdbcTemplate()
+                    .queryForObject("SELECT COALESCE(MAX(revision), 0) FROM InvalidationEvent", Long.class);
+            }
+            List<InvalidationEvent> events = Lists.newArrayList();
+            long[] revisionRead = {lastRevision};
+            boolean[] stopped = {false};
+            databaseService
+                .getJdbcTemplate()
+                .query(
+                    "SELECT revision, idNode, entity, idFrom, idTo " +
+                    "FROM InvalidationEvent " +
+                    "WHERE revision > ? " +
+                    "ORDER BY revision " +
+                    "LIMIT " + MAX_ROWS_PER_POLL,
+                    (RowCallbackHandler) rs -> {
+                        long revision = rs.getLong("revision");
+                        if(stopped[0] || (revision != revisionRead[0] + 1 && ! hasGapTimedOut(revisionRead[0] + 1))) {
+                            stopped[0] = true;
+                            return;
+                        }
+                        revisionRead[0] = revision;
+                        InvalidatedEntity entity = entityOf(rs.getInt("entity"));
+                        if(entity != null && ! idNode.equals(rs.getString("idNode"))) {
+                            events.add(new InvalidationEvent(entity, rs.getLong("idFrom"), rs.getLong("idTo")));
+                        }
+                    },
+                    lastRevision
+                );
+            if(! events.isEmpty()) {
+                consumer.accept(events);
+            }
+            lastRevision = revisionRead[0];
+            if(++numPollsSincePrune >= POLLS_PER_PRUNE) {
+                numPollsSincePrune = 0;
+                prune();
+            }
+            if(numFailedPolls > 0) {
+                LOGGER.info("Polled InvalidationEvent again after [" + numFailedPolls + "] failed polls");
+                numFailedPolls = 0;
+            }
+        } catch(RuntimeException e) {
+            //Rather than letting the exception cancel the schedule, retry on the next poll
+            onPollFailed(e);
+        }
+    }
+
+    /**
+     * Log the first of a run of failed polls, then at most one every FAILURE_LOG_INTERVAL_NANOS, since a database that
+     * is down would otherwise log on every poll.
+     */
+    private void onPollFailed(RuntimeException e) {
+        long now = System.nanoTime();
+        if(numFailedPolls++ == 0 || now - failureLoggedAtNanos >= FAILURE_LOG_INTERVAL_NANOS) {
+            failureLoggedAtNanos = now;
+            LOGGER.error(
+                "Could not poll InvalidationEvent [" + numFailedPolls + "] times in a row; caches and indexes are not " +
+                "receiving the writes of other nodes",
+                e
+            );
+        }
+    }
+
+    private boolean hasGapTimedOut(long missingRevision) {
+        long now = System.nanoTime();
+        if(gapRevision != missingRevision) {
+            gapRevision = missingRevision;
+            gapSinceNanos = now;
+        }
+        return now - gapSinceNanos >= TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+    }
+
+    private void prune() {
+        databaseService
+            .getJdbcTemplate()
+            .update(
+                "DELETE FROM InvalidationEvent WHERE datetimeCreated < TIMESTAMPADD(SECOND, -?, NOW())",
+                retentionSeconds
+            );
+    }
+
+    /**
+     * @return null for an entity this node does not know, such as one added by a newer version of a peer.
+     */
+    private static InvalidatedEntity entityOf(int code) {
+        return Arrays
+            .stream(InvalidatedEntity.values())
+            .filter(entity -> entity.getCode() == code)
+            .findFirst()
+            .orElse(null);
+    }
+}
@@ -0,0 +1,37 @@
+package com.beumuth.math.core.internal.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events synchronously, on the publishing thread, to every other started transport in the same JVM. Stands in
+ * for the database transport in tests, where several nodes can run side by side without a change log.
+ */
+public class InProcessInvalidationTransport implements InvalidationTransport {
+    private static final List<InProcessInvalidationTransport> STARTED = new CopyOnWriteArrayList<>();
+
+    private String idNode;
+    private Consumer<List<InvalidationEvent>> consumer;
+
+    @Override
+    public void start(String idNode, Consumer<List<InvalidationEvent>> consumer) {
+        this.idNode = idNode;
+        this.consumer = consumer;
+        STARTED.add(this);
+    }
+
+    @Override
+    public void publish(List<InvalidationEvent> events) {
+        for(InProcessInvalidationTransport transport : STARTED) {
+            if(! transport.idNode.equals(idNode)) {
+                transport.consumer.accept(events);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        STARTED.remove(this);
+    }
+}
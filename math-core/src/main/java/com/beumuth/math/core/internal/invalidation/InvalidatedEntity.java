@@ -0,0 +1,32 @@
+package com.beumuth.math.core.internal.invalidation;
+
+/**
+ * The kinds of rows whose changes are broadcast on the InvalidationBus.
+ */
+public enum InvalidatedEntity {
+    JGRAPH_ELEMENT(0),
+    SET(1),
+    ORDERED_PAIR(2);
+
+    private final int code;
+
+    InvalidatedEntity(int code) {
+        this.code = code;
+    }
+
+    /**
+     * @return The value stored in InvalidationEvent.entity
+     */
+    public int getCode() {
+        return code;
+    }
+
+    public static InvalidatedEntity fromCode(int code) {
+        for(InvalidatedEntity entity : values()) {
+            if(entity.code == code) {
+                return entity;
+            }
+        }
+        throw new IllegalArgumentException("No InvalidatedEntity with code [" + code + "]");
+    }
+}
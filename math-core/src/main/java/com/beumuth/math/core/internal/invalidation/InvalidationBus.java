@@ -0,0 +1,139 @@
+package com.beumuth.math.core.internal.invalidation;
+
+import com.beumuth.math.core.internal.database.DatabaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps what math-core nodes hold in memory coherent when several of them share a database. Services publish the ids
+ * they have written once the write commits, and subscribe to drop or re-read whatever they hold for the ids their peers
+ * have written. Events published by this node are not delivered back to it.
+ *
+ * Publishing happens after the write commits, so a node that dies in between leaves its peers stale for those ids; the
+ * caches that subscribe are bounded or rebuilt on restart, which limits the damage. A publish that fails is logged
+ * rather than thrown, since the write it follows has already committed.
+ *
+ * The transport defaults to NONE, for a single node; set invalidation.transport to DATABASE when several nodes share a
+ * database and any of them keeps Elements or sets in memory. Services that keep them call warnIfNotShared at startup,
+ * so that a node left on NONE says so.
+ */
+@Service
+public class InvalidationBus {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBus.class);
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Value("${invalidation.transport:NONE}")
+    private InvalidationTransportType transportType;
+
+    @Value("${invalidation.pollIntervalMillis:250}")
+    private long pollIntervalMillis;
+
+    /**
+     * How long a poll waits for a gap in the InvalidationEvent revisions to fill before skipping it.
+     */
+    @Value("${invalidation.gapTimeoutMillis:5000}")
+    private long gapTimeoutMillis;
+
+    @Value("${invalidation.retentionSeconds:3600}")
+    private long retentionSeconds;
+
+    private final String idNode = UUID.randomUUID().toString();
+
+    private final Map<InvalidatedEntity, List<Consumer<InvalidationEvent>>> subscribers =
+        new EnumMap<>(InvalidatedEntity.class);
+
+    private InvalidationTransport transport;
+
+    @PostConstruct
+    public void initialize() {
+        for(InvalidatedEntity entity : InvalidatedEntity.values()) {
+            subscribers.put(entity, new CopyOnWriteArrayList<>());
+        }
+        if(transportType == InvalidationTransportType.DATABASE) {
+            transport = new DatabaseInvalidationTransport(
+                databaseService,
+                pollIntervalMillis,
+                gapTimeoutMillis,
+                retentionSeconds
+            );
+        } else if(transportType == InvalidationTransportType.IN_PROCESS) {
+            transport = new InProcessInvalidationTransport();
+        }
+        if(transport != null) {
+            transport.start(idNode, this::deliver);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(transport != null) {
+            transport.stop();
+        }
+    }
+
+    public String getIdNode() {
+        return idNode;
+    }
+
+    /**
+     * Log a warning, when there is no transport, that what the caller keeps in memory does not see the writes of other
+     * nodes sharing the database.
+     * @param held What the caller keeps in memory, such as "The Element index"
+     */
+    public void warnIfNotShared(String held) {
+        if(transport == null) {
+            LOGGER.warn(
+                held + " is enabled while invalidation.transport is " + transportType + ", so it goes stale if other " +
+                "nodes write to the same database; set invalidation.transport to DATABASE if they do"
+            );
+        }
+    }
+
+    /**
+     * Tell the other nodes that the rows of the entity with the given ids have been created, changed, or deleted.
+     */
+    public void publish(InvalidatedEntity entity, long... ids) {
+        if(transport == null || ids.length == 0) {
+            return;
+        }
+        try {
+            transport.publish(InvalidationEvent.ofIds(entity, ids));
+        } catch(RuntimeException e) {
+            //The write has committed; failing its caller now would only hide that from them
+            LOGGER.error("Could not publish the invalidation of [" + ids.length + "] " + entity + " ids", e);
+        }
+    }
+
+    /**
+     * @param subscriber Called with each event about the entity published by another node, on the transport's thread.
+     */
+    public void subscribe(InvalidatedEntity entity, Consumer<InvalidationEvent> subscriber) {
+        subscribers.get(entity).add(subscriber);
+    }
+
+    public void unsubscribe(InvalidatedEntity entity, Consumer<InvalidationEvent> subscriber) {
+        subscribers.get(entity).remove(subscriber);
+    }
+
+    private void deliver(List<InvalidationEvent> events) {
+        for(InvalidationEvent event : events) {
+            for(Consumer<InvalidationEvent> subscriber : subscribers.get(event.getEntity())) {
+                subscriber.accept(event);
+            }
+        }
+    }
+}
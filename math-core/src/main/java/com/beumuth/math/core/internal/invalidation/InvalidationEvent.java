@@ -0,0 +1,81 @@
+package com.beumuth.math.core.internal.invalidation;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * That the rows of an entity with ids from idFrom to idTo (inclusive) may have changed. Writes tend to touch runs of
+ * consecutive ids (ids are handed out in blocks), so a whole batch usually fits in a few events.
+ */
+public final class InvalidationEvent {
+    private final InvalidatedEntity entity;
+    private final long idFrom;
+    private final long idTo;
+
+    public InvalidationEvent(InvalidatedEntity entity, long idFrom, long idTo) {
+        if(idFrom > idTo) {
+            throw new IllegalArgumentException("idFrom [" + idFrom + "] must not be greater than idTo [" + idTo + "]");
+        }
+        this.entity = entity;
+        this.idFrom = idFrom;
+        this.idTo = idTo;
+    }
+
+    /**
+     * @return The fewest events that cover exactly the given ids, in ascending order.
+     */
+    public static List<InvalidationEvent> ofIds(InvalidatedEntity entity, long... ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        List<InvalidationEvent> events = Lists.newArrayList();
+        int start = 0;
+        for(int i = 1; i <= sorted.length; ++i) {
+            if(i == sorted.length || sorted[i] > sorted[i - 1] + 1) {
+                events.add(new InvalidationEvent(entity, sorted[start], sorted[i - 1]));
+                start = i;
+            }
+        }
+        return events;
+    }
+
+    public InvalidatedEntity getEntity() {
+        return entity;
+    }
+
+    public long getIdFrom() {
+        return idFrom;
+    }
+
+    public long getIdTo() {
+        return idTo;
+    }
+
+    public boolean contains(long id) {
+        return id >= idFrom && id <= idTo;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(this == other) {
+            return true;
+        }
+        if(! (other instanceof InvalidationEvent)) {
+            return false;
+        }
+        InvalidationEvent event = (InvalidationEvent) other;
+        return entity == event.entity && idFrom == event.idFrom && idTo == event.idTo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entity, idFrom, idTo);
+    }
+
+    @Override
+    public String toString() {
+        return entity + "[" + idFrom + ", " + idTo + "]";
+    }
+}
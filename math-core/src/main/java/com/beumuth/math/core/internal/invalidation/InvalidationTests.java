@@ -0,0 +1,121 @@
+package com.beumuth.math.core.internal.invalidation;
+
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs with the DATABASE transport, which the bus does not start by default.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = "invalidation.transport=DATABASE")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InvalidationTests {
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private DatabaseService databaseService;
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    private final List<InvalidationTransport> transportsStarted = Lists.newArrayList();
+
+    @After
+    public void cleanupTest() {
+        transportsStarted.forEach(InvalidationTransport::stop);
+        transportsStarted.clear();
+        elementService.reset();
+    }
+
+    @Test
+    public void ofIdsTest_shouldMergeConsecutiveIds() {
+        assertEquals(
+            Lists.newArrayList(
+                new InvalidationEvent(InvalidatedEntity.SET, 1, 3),
+                new InvalidationEvent(InvalidatedEntity.SET, 5, 5),
+                new InvalidationEvent(InvalidatedEntity.SET, 7, 8)
+            ),
+            InvalidationEvent.ofIds(InvalidatedEntity.SET, 8, 2, 5, 1, 7, 3, 2)
+        );
+    }
+
+    @Test
+    public void ofIdsTest_none_shouldBeEmpty() {
+        assertTrue(InvalidationEvent.ofIds(InvalidatedEntity.SET).isEmpty());
+    }
+
+    @Test
+    public void inProcessTransportTest_shouldDeliverToOtherNodesOnly() {
+        List<InvalidationEvent> receivedByA = new CopyOnWriteArrayList<>();
+        List<InvalidationEvent> receivedByB = new CopyOnWriteArrayList<>();
+        InvalidationTransport transportA = start(new InProcessInvalidationTransport(), "a", receivedByA);
+        start(new InProcessInvalidationTransport(), "b", receivedByB);
+
+        List<InvalidationEvent> events = InvalidationEvent.ofIds(InvalidatedEntity.ORDERED_PAIR, 4, 5);
+        transportA.publish(events);
+        assertTrue(receivedByA.isEmpty());
+        assertEquals(events, receivedByB);
+    }
+
+    @Test
+    public void databaseTransportTest_elementWritten_peerShouldBeInvalidated() throws InterruptedException {
+        List<InvalidationEvent> received = new CopyOnWriteArrayList<>();
+        start(new DatabaseInvalidationTransport(databaseService, 10, 1000, 3600), "peer", received);
+        //Let the peer read the current revision before anything is published
+        Thread.sleep(200);
+
+        long idNode = elementService.createNode();
+        long deadline = System.currentTimeMillis() + 5000;
+        while(received.stream().noneMatch(event -> event.contains(idNode)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(
+            received
+                .stream()
+                .anyMatch(event -> event.getEntity() == InvalidatedEntity.JGRAPH_ELEMENT && event.contains(idNode))
+        );
+    }
+
+    @Test
+    public void publishTest_shouldNotBeDeliveredBackToItsNode() throws InterruptedException {
+        List<InvalidationEvent> received = new CopyOnWriteArrayList<>();
+        Consumer<InvalidationEvent> subscriber = received::add;
+        invalidationBus.subscribe(InvalidatedEntity.SET, subscriber);
+        try {
+            invalidationBus.publish(InvalidatedEntity.SET, 1);
+            Thread.sleep(500);
+            assertEquals(Collections.emptyList(), received);
+        } finally {
+            invalidationBus.unsubscribe(InvalidatedEntity.SET, subscriber);
+        }
+    }
+
+    private InvalidationTransport start(
+        InvalidationTransport transport,
+        String idNode,
+        List<InvalidationEvent> received
+    ) {
+        transport.start(idNode, received::addAll);
+        transportsStarted.add(transport);
+        return transport;
+    }
+}
@@ -0,0 +1,19 @@
+package com.beumuth.math.core.internal.invalidation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries InvalidationEvents between math-core nodes. A node never receives the events it published itself.
+ */
+public interface InvalidationTransport {
+    /**
+     * Begin delivering the events published by other nodes to the consumer, in the order they were published.
+     * @param idNode Identifies this node to its peers.
+     */
+    void start(String idNode, Consumer<List<InvalidationEvent>> consumer);
+
+    void publish(List<InvalidationEvent> events);
+
+    void stop();
+}
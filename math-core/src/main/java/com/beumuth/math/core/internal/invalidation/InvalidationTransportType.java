@@ -0,0 +1,16 @@
+package com.beumuth.math.core.internal.invalidation;
+
+public enum InvalidationTransportType {
+    /**
+     * The InvalidationEvent table, polled. See DatabaseInvalidationTransport.
+     */
+    DATABASE,
+    /**
+     * Other nodes in the same JVM. See InProcessInvalidationTransport.
+     */
+    IN_PROCESS,
+    /**
+     * Nothing is published or received; for a single node.
+     */
+    NONE
+}
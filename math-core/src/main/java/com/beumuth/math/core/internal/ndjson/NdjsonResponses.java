@@ -0,0 +1,40 @@
+package com.beumuth.math.core.internal.ndjson;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Builds responses that stream newline-delimited JSON, one value per line, as the body is written.
+ */
+public class NdjsonResponses {
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    public static ResponseEntity<StreamingResponseBody> stream(Consumer<Writer> body) {
+        return ResponseEntity
+            .ok()
+            .contentType(NDJSON)
+            .body(outputStream -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                body.accept(writer);
+                writer.flush();
+            });
+    }
+
+    public static void writeLine(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.beumuth.math.core.internal.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset pagination positions as opaque, URL-safe cursors, so clients don't depend on how pages are keyed.
+ */
+public class Cursors {
+    private static final String PREFIX = "after:";
+
+    public static String encode(long afterId) {
+        return Base64
+            .getUrlEncoder()
+            .withoutPadding()
+            .encodeToString((PREFIX + afterId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The id that the page after the cursor starts after, 0 for the first page (an empty or null cursor), or
+     * null if the cursor is not valid.
+     */
+    public static Long decode(String cursor) {
+        if(cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if(! decoded.startsWith(PREFIX)) {
+                return null;
+            }
+            long afterId = Long.parseLong(decoded.substring(PREFIX.length()));
+            return afterId >= 0 ? afterId : null;
+        } catch(IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
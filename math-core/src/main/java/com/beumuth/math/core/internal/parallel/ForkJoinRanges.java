@@ -0,0 +1,105 @@
+package com.beumuth.math.core.internal.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Runs a function over the indexes [0, n) on a ForkJoinPool, splitting the range in halves down to GRAIN indexes.
+ */
+public class ForkJoinRanges {
+    private static final int GRAIN = 4096;
+
+    public static void forEach(ForkJoinPool pool, int n, IntConsumer action) {
+        pool.invoke(new ForEach(0, n, action));
+    }
+
+    public static long sumLongs(ForkJoinPool pool, int n, IntToLongFunction function) {
+        return pool.invoke(new LongSum(0, n, function));
+    }
+
+    public static double sumDoubles(ForkJoinPool pool, int n, IntToDoubleFunction function) {
+        return pool.invoke(new DoubleSum(0, n, function));
+    }
+
+    private static class ForEach extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        private ForEach(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= GRAIN) {
+                for(int i = from; i < to; ++i) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEach(from, middle, action), new ForEach(middle, to, action));
+        }
+    }
+
+    private static class LongSum extends RecursiveTask<Long> {
+        private final int from;
+        private final int to;
+        private final IntToLongFunction function;
+
+        private LongSum(int from, int to, IntToLongFunction function) {
+            this.from = from;
+            this.to = to;
+            this.function = function;
+        }
+
+        @Override
+        protected Long compute() {
+            if(to - from <= GRAIN) {
+                long sum = 0;
+                for(int i = from; i < to; ++i) {
+                    sum += function.applyAsLong(i);
+                }
+                return sum;
+            }
+            int middle = (from + to) >>> 1;
+            LongSum right = new LongSum(middle, to, function);
+            right.fork();
+            return new LongSum(from, middle, function).compute() + right.join();
+        }
+    }
+
+    private static class DoubleSum extends RecursiveTask<Double> {
+        private final int from;
+        private final int to;
+        private final IntToDoubleFunction function;
+
+        private DoubleSum(int from, int to, IntToDoubleFunction function) {
+            this.from = from;
+            this.to = to;
+            this.function = function;
+        }
+
+        @Override
+        protected Double compute() {
+            if(to - from <= GRAIN) {
+                double sum = 0;
+                for(int i = from; i < to; ++i) {
+                    sum += function.applyAsDouble(i);
+                }
+                return sum;
+            }
+            int middle = (from + to) >>> 1;
+            DoubleSum right = new DoubleSum(middle, to, function);
+            right.fork();
+            return new DoubleSum(from, middle, function).compute() + right.join();
+        }
+    }
+}
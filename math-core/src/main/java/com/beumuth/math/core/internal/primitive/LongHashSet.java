@@ -0,0 +1,178 @@
+package com.beumuth.math.core.internal.primitive;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * An open-addressing (linear probing) set of longs that avoids boxing. Zero is reserved as the empty-slot marker, so
+ * it cannot be added; that suits Element ids, which are always positive.
+ * Not thread-safe.
+ */
+public class LongHashSet {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(Primitives.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public static LongHashSet of(long... keys) {
+        LongHashSet set = new LongHashSet(keys.length);
+        for(long key : keys) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        if(key == 0) {
+            return false;
+        }
+        int slot = Primitives.hash(key) & mask;
+        long current;
+        while((current = keys[slot]) != 0) {
+            if(current == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the key was not already present
+     */
+    public boolean add(long key) {
+        Primitives.checkKey(key);
+        int slot = Primitives.hash(key) & mask;
+        long current;
+        while((current = keys[slot]) != 0) {
+            if(current == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if(++size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    public void addAll(long[] keys) {
+        for(long key : keys) {
+            add(key);
+        }
+    }
+
+    /**
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        if(key == 0) {
+            return false;
+        }
+        int slot = Primitives.hash(key) & mask;
+        long current;
+        while((current = keys[slot]) != 0) {
+            if(current == key) {
+                --size;
+                shiftKeys(slot);
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    public void forEach(LongConsumer consumer) {
+        for(long key : keys) {
+            if(key != 0) {
+                consumer.accept(key);
+            }
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        for(long key : keys) {
+            if(key != 0) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    public long[] toSortedArray() {
+        long[] result = toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Backward-shift deletion: moves later entries of the probe sequence into the freed slot so that no tombstones
+     * are needed.
+     */
+    private void shiftKeys(int slot) {
+        int last;
+        long current;
+        while(true) {
+            last = slot;
+            slot = (slot + 1) & mask;
+            while(true) {
+                if((current = keys[slot]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int ideal = Primitives.hash(current) & mask;
+                if(last <= slot ? last >= ideal || ideal > slot : last >= ideal && ideal > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[last] = current;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        allocate(newCapacity);
+        for(long key : oldKeys) {
+            if(key != 0) {
+                int slot = Primitives.hash(key) & mask;
+                while(keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) Math.ceil(capacity * LOAD_FACTOR));
+    }
+}
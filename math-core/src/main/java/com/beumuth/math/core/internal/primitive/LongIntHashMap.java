@@ -0,0 +1,161 @@
+package com.beumuth.math.core.internal.primitive;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing (linear probing) map from long keys to int values that avoids boxing. Zero is reserved as the
+ * empty-slot marker and cannot be used as a key.
+ * Not thread-safe.
+ */
+public class LongIntHashMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(Primitives.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the value mapped to the key, or missingValue if there is none.
+     */
+    public int get(long key, int missingValue) {
+        int slot = indexOf(key);
+        return slot < 0 ? missingValue : values[slot];
+    }
+
+    /**
+     * @return the previous value mapped to the key, or missingValue if there was none.
+     */
+    public int put(long key, int value, int missingValue) {
+        Primitives.checkKey(key);
+        int slot = Primitives.hash(key) & mask;
+        long current;
+        while((current = keys[slot]) != 0) {
+            if(current == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return missingValue;
+    }
+
+    /**
+     * @return the value that was mapped to the key, or missingValue if there was none.
+     */
+    public int remove(long key, int missingValue) {
+        int slot = indexOf(key);
+        if(slot < 0) {
+            return missingValue;
+        }
+        int previous = values[slot];
+        --size;
+        shiftKeys(slot);
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    public void forEach(LongIntConsumer consumer) {
+        for(int slot = 0; slot < keys.length; ++slot) {
+            if(keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        if(key == 0) {
+            return -1;
+        }
+        int slot = Primitives.hash(key) & mask;
+        long current;
+        while((current = keys[slot]) != 0) {
+            if(current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftKeys(int slot) {
+        int last;
+        long current;
+        while(true) {
+            last = slot;
+            slot = (slot + 1) & mask;
+            while(true) {
+                if((current = keys[slot]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int ideal = Primitives.hash(current) & mask;
+                if(last <= slot ? last >= ideal || ideal > slot : last >= ideal && ideal > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[slot];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for(int i = 0; i < oldKeys.length; ++i) {
+            if(oldKeys[i] != 0) {
+                int slot = Primitives.hash(oldKeys[i]) & mask;
+                while(keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) Math.ceil(capacity * LOAD_FACTOR));
+    }
+
+    @FunctionalInterface
+    public interface LongIntConsumer {
+        void accept(long key, int value);
+    }
+}
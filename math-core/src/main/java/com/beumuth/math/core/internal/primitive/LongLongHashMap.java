@@ -0,0 +1,125 @@
+package com.beumuth.math.core.internal.primitive;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing (linear probing) map from long keys to long values that avoids boxing. Zero is reserved as the
+ * empty-slot marker and cannot be used as a key.
+ * Not thread-safe.
+ */
+public class LongLongHashMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(Primitives.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the value mapped to the key, or missingValue if there is none.
+     */
+    public long get(long key, long missingValue) {
+        int slot = indexOf(key);
+        return slot < 0 ? missingValue : values[slot];
+    }
+
+    /**
+     * @return the previous value mapped to the key, or missingValue if there was none.
+     */
+    public long put(long key, long value, long missingValue) {
+        Primitives.checkKey(key);
+        int slot = Primitives.hash(key) & mask;
+        long current;
+        while((current = keys[slot]) != 0) {
+            if(current == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return missingValue;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    public void forEach(LongLongConsumer consumer) {
+        for(int slot = 0; slot < keys.length; ++slot) {
+            if(keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        if(key == 0) {
+            return -1;
+        }
+        int slot = Primitives.hash(key) & mask;
+        long current;
+        while((current = keys[slot]) != 0) {
+            if(current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        for(int i = 0; i < oldKeys.length; ++i) {
+            if(oldKeys[i] != 0) {
+                int slot = Primitives.hash(oldKeys[i]) & mask;
+                while(keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) Math.ceil(capacity * LOAD_FACTOR));
+    }
+
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,207 @@
+package com.beumuth.math.core.internal.primitive;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * A set of longs kept in ascending order, in blocks of at most BLOCK_SIZE sorted longs that are themselves in order.
+ * An add or remove moves at most one block's worth of longs (plus the block table when a block splits or empties),
+ * and the keys after a given key are read without touching the rest of the set, which is what keyset pagination
+ * needs. Keys added in ascending order, such as AUTO_INCREMENT ids, fill blocks completely.
+ * Not thread-safe.
+ */
+public class LongSortedSet {
+    private static final int BLOCK_SIZE = 512;
+    private static final int INITIAL_BLOCK_CAPACITY = 4;
+
+    private long[][] blocks = new long[1][];
+    private int[] blockSizes = new int[1];
+    private int numBlocks;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        if(numBlocks == 0) {
+            return false;
+        }
+        int block = blockOf(key);
+        return Arrays.binarySearch(blocks[block], 0, blockSizes[block], key) >= 0;
+    }
+
+    /**
+     * @return true if the key was not already present
+     */
+    public boolean add(long key) {
+        if(numBlocks == 0) {
+            insertBlock(0, new long[INITIAL_BLOCK_CAPACITY]);
+        }
+        int block = blockOf(key);
+        int position = Arrays.binarySearch(blocks[block], 0, blockSizes[block], key);
+        if(position >= 0) {
+            return false;
+        }
+        position = -(position + 1);
+        if(blockSizes[block] == BLOCK_SIZE) {
+            if(position == BLOCK_SIZE && block == numBlocks - 1) {
+                //Appending past the end; start a new block rather than leave two half full
+                insertBlock(++block, new long[INITIAL_BLOCK_CAPACITY]);
+                position = 0;
+            } else {
+                split(block);
+                if(position > BLOCK_SIZE / 2) {
+                    ++block;
+                    position -= BLOCK_SIZE / 2;
+                }
+            }
+        }
+        long[] keys = blocks[block];
+        if(blockSizes[block] == keys.length) {
+            keys = blocks[block] = Arrays.copyOf(keys, Math.min(keys.length * 2, BLOCK_SIZE));
+        }
+        System.arraycopy(keys, position, keys, position + 1, blockSizes[block] - position);
+        keys[position] = key;
+        ++blockSizes[block];
+        ++size;
+        return true;
+    }
+
+    /**
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        if(numBlocks == 0) {
+            return false;
+        }
+        int block = blockOf(key);
+        long[] keys = blocks[block];
+        int position = Arrays.binarySearch(keys, 0, blockSizes[block], key);
+        if(position < 0) {
+            return false;
+        }
+        System.arraycopy(keys, position + 1, keys, position, blockSizes[block] - position - 1);
+        --size;
+        if(--blockSizes[block] == 0) {
+            removeBlock(block);
+        }
+        return true;
+    }
+
+    public void clear() {
+        blocks = new long[1][];
+        blockSizes = new int[1];
+        numBlocks = 0;
+        size = 0;
+    }
+
+    /**
+     * Pass every key to the consumer in ascending order.
+     */
+    public void forEach(LongConsumer consumer) {
+        for(int block = 0; block < numBlocks; ++block) {
+            long[] keys = blocks[block];
+            for(int i = 0; i < blockSizes[block]; ++i) {
+                consumer.accept(keys[i]);
+            }
+        }
+    }
+
+    /**
+     * Pass the keys greater than afterKey to the visitor in ascending order, until it returns false.
+     */
+    public void forEachAfter(long afterKey, LongPredicate visitor) {
+        if(numBlocks == 0) {
+            return;
+        }
+        int block = blockOf(afterKey);
+        int position = Arrays.binarySearch(blocks[block], 0, blockSizes[block], afterKey);
+        position = position >= 0 ? position + 1 : -(position + 1);
+        for(; block < numBlocks; ++block, position = 0) {
+            long[] keys = blocks[block];
+            for(; position < blockSizes[block]; ++position) {
+                if(! visitor.test(keys[position])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Up to limit of the keys greater than afterKey, in ascending order.
+     */
+    public long[] after(long afterKey, int limit) {
+        LongArrayList result = new LongArrayList(Math.min(limit, size));
+        if(limit > 0) {
+            forEachAfter(afterKey, key -> {
+                result.add(key);
+                return result.size() < limit;
+            });
+        }
+        return result.toArray();
+    }
+
+    /**
+     * @return Every key, in ascending order.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        for(int block = 0; block < numBlocks; ++block) {
+            System.arraycopy(blocks[block], 0, result, i, blockSizes[block]);
+            i += blockSizes[block];
+        }
+        return result;
+    }
+
+    /**
+     * @return The last block whose first key is not greater than the key, or the first block if there is none.
+     */
+    private int blockOf(long key) {
+        int low = 1;
+        int high = numBlocks - 1;
+        int result = 0;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            if(blocks[middle][0] <= key) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    private void split(int block) {
+        long[] upper = new long[BLOCK_SIZE];
+        System.arraycopy(blocks[block], BLOCK_SIZE / 2, upper, 0, BLOCK_SIZE / 2);
+        blockSizes[block] = BLOCK_SIZE / 2;
+        insertBlock(block + 1, upper);
+        blockSizes[block + 1] = BLOCK_SIZE / 2;
+    }
+
+    private void insertBlock(int block, long[] keys) {
+        if(numBlocks == blocks.length) {
+            blocks = Arrays.copyOf(blocks, numBlocks * 2);
+            blockSizes = Arrays.copyOf(blockSizes, numBlocks * 2);
+        }
+        System.arraycopy(blocks, block, blocks, block + 1, numBlocks - block);
+        System.arraycopy(blockSizes, block, blockSizes, block + 1, numBlocks - block);
+        blocks[block] = keys;
+        blockSizes[block] = 0;
+        ++numBlocks;
+    }
+
+    private void removeBlock(int block) {
+        System.arraycopy(blocks, block + 1, blocks, block, numBlocks - block - 1);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block, numBlocks - block - 1);
+        blocks[--numBlocks] = null;
+    }
+}
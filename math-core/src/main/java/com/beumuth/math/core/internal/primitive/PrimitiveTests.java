@@ -0,0 +1,195 @@
+package com.beumuth.math.core.internal.primitive;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveTests {
+    private static final int NUM_OPERATIONS = 200000;
+
+    @Test
+    public void longHashSetTest_randomOperations_shouldMatchHashSet() {
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = Sets.newHashSet();
+        for(int i = 0; i < NUM_OPERATIONS; ++i) {
+            //A small key range keeps the table crowded, so removals shift long probe sequences
+            long key = 1 + random.nextInt(2000);
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for(long key = 1; key <= 2000; ++key) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        assertArrayEquals(
+            expected.stream().mapToLong(Long::longValue).sorted().toArray(),
+            set.toSortedArray()
+        );
+    }
+
+    @Test
+    public void longIntHashMapTest_randomOperations_shouldMatchHashMap() {
+        Random random = new Random(2);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = Maps.newHashMap();
+        for(int i = 0; i < NUM_OPERATIONS; ++i) {
+            long key = 1 + random.nextInt(2000);
+            if(random.nextInt(3) == 0) {
+                assertEquals((int) expected.getOrDefault(key, -1), map.remove(key, -1));
+                expected.remove(key);
+            } else {
+                int value = random.nextInt(1000);
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? -1 : previous, map.put(key, value, -1));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for(long key = 1; key <= 2000; ++key) {
+            assertEquals((int) expected.getOrDefault(key, -1), map.get(key, -1));
+        }
+        Map<Long, Integer> iterated = Maps.newHashMap();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void longObjectHashMapTest_randomOperations_shouldMatchHashMap() {
+        Random random = new Random(3);
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        Map<Long, String> expected = Maps.newHashMap();
+        for(int i = 0; i < NUM_OPERATIONS; ++i) {
+            long key = 1 + random.nextInt(2000);
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = Integer.toString(random.nextInt(1000));
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for(long key = 1; key <= 2000; ++key) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        Map<Long, String> iterated = Maps.newHashMap();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void longSortedSetTest_randomOperations_shouldMatchTreeSet() {
+        Random random = new Random(4);
+        LongSortedSet set = new LongSortedSet();
+        TreeSet<Long> expected = new TreeSet<>();
+        for(int i = 0; i < NUM_OPERATIONS; ++i) {
+            //Enough keys to fill and split many blocks, then drain some of them again
+            long key = 1 + random.nextInt(5000);
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            assertEquals(expected.size(), set.size());
+            if(i % 1000 == 0) {
+                long afterKey = random.nextInt(5001);
+                int limit = random.nextInt(1200);
+                assertArrayEquals(
+                    expected.tailSet(afterKey, false).stream().mapToLong(Long::longValue).limit(limit).toArray(),
+                    set.after(afterKey, limit)
+                );
+            }
+        }
+        for(long key = 1; key <= 5000; ++key) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), set.toArray());
+    }
+
+    @Test
+    public void longSortedSetTest_ascendingAdds_shouldPageThroughAll() {
+        LongSortedSet set = new LongSortedSet();
+        for(long key = 1; key <= 2000; ++key) {
+            assertTrue(set.add(key));
+        }
+        long afterKey = 0;
+        long[] page;
+        int numPages = 0;
+        while((page = set.after(afterKey, 300)).length > 0) {
+            assertEquals(afterKey + 1, page[0]);
+            afterKey = page[page.length - 1];
+            ++numPages;
+        }
+        assertEquals(2000, afterKey);
+        assertEquals(7, numPages);
+        assertEquals(0, set.after(5, 0).length);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.after(0, 10).length);
+    }
+
+    @Test
+    public void removeTest_clusterWrappingPastEndOfTable_shouldKeepOtherKeysReachable() {
+        LongHashSet set = new LongHashSet(2);
+        int tableSize = Primitives.tableSizeFor(2, 0.6f);
+        //Stay below the resize threshold so the table, and thus the collisions, are kept
+        int numKeys = (int) Math.ceil(tableSize * 0.6f) - 1;
+        //Keys that all hash to the last slot probe around to the start of the table
+        long[] keys = keysHashingTo(tableSize - 1, numKeys, tableSize);
+        for(int i = 0; i < numKeys; ++i) {
+            set.add(keys[i]);
+        }
+        assertTrue(set.remove(keys[0]));
+        for(int i = 1; i < numKeys; ++i) {
+            assertTrue(set.contains(keys[i]));
+        }
+        assertFalse(set.contains(keys[0]));
+        assertEquals(numKeys - 1, set.size());
+    }
+
+    @Test
+    public void putTest_zeroKey_shouldBeRejected() {
+        try {
+            new LongIntHashMap().put(0, 1, -1);
+            fail();
+        } catch(IllegalArgumentException e) {
+            //expected
+        }
+        assertFalse(new LongHashSet().contains(0));
+        assertFalse(new LongHashSet().remove(0));
+    }
+
+    @Test
+    public void clearTest_shouldEmptyAndStayUsable() {
+        LongIntHashMap map = new LongIntHashMap();
+        for(long key = 1; key <= 100; ++key) {
+            map.put(key, (int) key, -1);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(50, -1));
+        map.put(50, 7, -1);
+        assertEquals(7, map.get(50, -1));
+        assertEquals(1, map.size());
+    }
+
+    private static long[] keysHashingTo(int slot, int number, int tableSize) {
+        long[] keys = new long[number];
+        int found = 0;
+        for(long key = 1; found < number; ++key) {
+            if((Primitives.hash(key) & (tableSize - 1)) == slot) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,36 @@
+package com.beumuth.math.core.internal.primitive;
+
+/**
+ * Shared helpers for the open-addressing primitive collections in this package.
+ */
+class Primitives {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private Primitives() {
+    }
+
+    /**
+     * Fibonacci hashing of a long key, folded to an int. Callers mask the result to the table size.
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return the smallest power of two that can hold expectedSize entries under the given load factor.
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / loadFactor) + 1;
+        if(needed >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    static void checkKey(long key) {
+        if(key == 0) {
+            throw new IllegalArgumentException("0 is reserved as the empty key and cannot be stored");
+        }
+    }
+}
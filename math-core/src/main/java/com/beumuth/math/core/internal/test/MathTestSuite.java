@@ -2,7 +2,22 @@ package com.beumuth.math.core.internal.test;
 
 import com.beumuth.math.core.internal.application.ApplicationTests;
 import com.beumuth.math.core.internal.environment.EnvironmentTests;
+import com.beumuth.math.core.internal.invalidation.InvalidationTests;
+import com.beumuth.math.core.internal.primitive.PrimitiveTests;
+import com.beumuth.math.core.jgraph.analytics.AnalyticsTests;
+import com.beumuth.math.core.jgraph.component.CappedComponentTests;
+import com.beumuth.math.core.jgraph.component.ComponentTests;
+import com.beumuth.math.core.jgraph.component.ConnectivityIndexTests;
+import com.beumuth.math.core.jgraph.component.ParallelComponentTests;
+import com.beumuth.math.core.jgraph.element.ElementBulkDeleterTests;
+import com.beumuth.math.core.jgraph.element.ElementBulkInserterTests;
+import com.beumuth.math.core.jgraph.element.ElementCacheTests;
+import com.beumuth.math.core.jgraph.element.ElementIdAllocatorTests;
+import com.beumuth.math.core.jgraph.element.ElementSnapshotTests;
 import com.beumuth.math.core.jgraph.element.ElementTests;
+import com.beumuth.math.core.jgraph.element.ElementWriteCoalescerTests;
+import com.beumuth.math.core.jgraph.element.IndexedElementTests;
+import com.beumuth.math.core.jgraph.traversal.TraversalTests;
 import com.beumuth.math.core.settheory.object.ObjectTests;
 import com.beumuth.math.core.settheory.orderedpair.OrderedPairTests;
 import com.beumuth.math.core.settheory.set.SetTests;
@@ -15,12 +30,27 @@ import java.util.Optional;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+    AnalyticsTests.class,
     ApplicationTests.class,
+    CappedComponentTests.class,
+    ComponentTests.class,
+    ConnectivityIndexTests.class,
     EnvironmentTests.class,
+    ElementBulkDeleterTests.class,
+    ElementBulkInserterTests.class,
+    ElementCacheTests.class,
+    ElementIdAllocatorTests.class,
+    ElementSnapshotTests.class,
     ElementTests.class,
+    ElementWriteCoalescerTests.class,
+    IndexedElementTests.class,
+    InvalidationTests.class,
     ObjectTests.class,
     OrderedPairTests.class,
-    SetTests.class
+    ParallelComponentTests.class,
+    PrimitiveTests.class,
+    SetTests.class,
+    TraversalTests.class
 })
 public class MathTestSuite {
     public static Optional<Class> getTestClassByName(String name) {
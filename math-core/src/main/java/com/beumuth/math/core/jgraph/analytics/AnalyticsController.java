@@ -0,0 +1,66 @@
+package com.beumuth.math.core.jgraph.analytics;
+
+import com.beumuth.math.client.jgraph.analytics.DegreeDistribution;
+import com.beumuth.math.client.jgraph.analytics.PageRank;
+import com.beumuth.math.client.jgraph.analytics.TriangleCount;
+import com.github.instantpudd.validator.ClientErrorException;
+import com.github.instantpudd.validator.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import static com.github.instantpudd.validator.ClientErrorStatusCode.BAD_REQUEST;
+
+@Controller
+@RequestMapping("/api/jgraph")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @RequestMapping(method=RequestMethod.GET, value="/analytics/degrees")
+    @ResponseBody
+    public DegreeDistribution getDegreeDistribution() {
+        return analyticsService.getDegreeDistribution();
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/analytics/pageRank")
+    @ResponseBody
+    public PageRank getPageRank(
+        @RequestParam(value="dampingFactor", required=false, defaultValue="0.85") double dampingFactor,
+        @RequestParam(value="maxIterations", required=false, defaultValue="100") int maxIterations,
+        @RequestParam(value="tolerance", required=false, defaultValue="1e-9") double tolerance,
+        @RequestParam(value="limit", required=false, defaultValue="100") int limit
+    ) throws ClientErrorException {
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifFalse(dampingFactor >= 0 && dampingFactor < 1)
+            .withErrorMessage("dampingFactor [" + dampingFactor + "] must be at least 0 and less than 1")
+            .execute();
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifTrue(maxIterations < 1)
+            .withErrorMessage("maxIterations [" + maxIterations + "] must be at least 1")
+            .execute();
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifFalse(tolerance > 0)
+            .withErrorMessage("tolerance [" + tolerance + "] must be positive")
+            .execute();
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifTrue(limit < 0)
+            .withErrorMessage("limit [" + limit + "] cannot be negative")
+            .execute();
+        return analyticsService.getPageRank(dampingFactor, maxIterations, tolerance, limit);
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/analytics/triangles")
+    @ResponseBody
+    public TriangleCount countTriangles() {
+        return analyticsService.countTriangles();
+    }
+}
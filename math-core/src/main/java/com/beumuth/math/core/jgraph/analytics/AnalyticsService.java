@@ -0,0 +1,83 @@
+package com.beumuth.math.core.jgraph.analytics;
+
+import com.beumuth.math.client.jgraph.analytics.DegreeDistribution;
+import com.beumuth.math.client.jgraph.analytics.PageRank;
+import com.beumuth.math.client.jgraph.analytics.TriangleCount;
+import com.beumuth.math.core.jgraph.element.ElementColumns;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Whole-graph analytics. Each job reads every Element once, releasing its connection as soon as the read is done,
+ * builds a CsrGraph from it, and runs on a dedicated ForkJoinPool, so that analytics neither hold MySQL connections
+ * nor compete with request threads beyond that pool.
+ */
+@Service
+public class AnalyticsService {
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+
+    /**
+     * The number of threads that analytics jobs share. 0 is one per available processor.
+     */
+    @Value("${jgraph.analytics.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * The number of jobs that may run at once, each with its own CsrGraph in memory. Further jobs wait for one to
+     * finish.
+     */
+    @Value("${jgraph.analytics.maxConcurrentJobs:2}")
+    private int maxConcurrentJobs;
+
+    private ForkJoinPool pool;
+
+    private Semaphore jobPermits;
+
+    @PostConstruct
+    public void initialize() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        jobPermits = new Semaphore(Math.max(maxConcurrentJobs, 1), true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    public DegreeDistribution getDegreeDistribution() {
+        return run(graph -> CsrAlgorithms.degreeDistribution(graph, pool));
+    }
+
+    /**
+     * @param tolerance Stop once the ranks change by less than this in total over an iteration.
+     * @param limit The number of highest ranked Elements to return.
+     */
+    public PageRank getPageRank(double dampingFactor, int maxIterations, double tolerance, int limit) {
+        return run(graph -> CsrAlgorithms.pageRank(graph, pool, dampingFactor, maxIterations, tolerance, limit));
+    }
+
+    public TriangleCount countTriangles() {
+        return run(graph -> CsrAlgorithms.countTriangles(graph, pool));
+    }
+
+    private <T> T run(Function<CsrGraph, T> job) {
+        jobPermits.acquireUninterruptibly();
+        try {
+            ElementColumns elements = elementService.getAllElementColumns();
+            return job.apply(CsrGraph.of(elements.getIds(), elements.getAs(), elements.getBs(), pool));
+        } finally {
+            jobPermits.release();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.beumuth.math.core.jgraph.analytics;
+
+import com.beumuth.math.client.jgraph.analytics.AnalyticsClient;
+import com.beumuth.math.client.jgraph.analytics.DegreeDistribution;
+import com.beumuth.math.client.jgraph.analytics.ElementRank;
+import com.beumuth.math.client.jgraph.analytics.PageRank;
+import com.beumuth.math.client.jgraph.analytics.TriangleCount;
+import com.beumuth.math.core.internal.client.ClientService;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.google.common.collect.ImmutableMap;
+import feign.FeignException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.annotation.PostConstruct;
+
+import static com.beumuth.math.core.external.feign.FeignAssertions.assertExceptionLike;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AnalyticsTests {
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private ClientService clientService;
+
+    private static AnalyticsClient analyticsClient;
+
+    @PostConstruct
+    public void postConstruct() {
+        analyticsClient = clientService.getClient(AnalyticsClient.class);
+    }
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void getDegreeDistributionTest_edge_shouldCountEachEndpoint() {
+        long idA = elementService.createNode();
+        long idB = elementService.createNode();
+        elementService.createElement(idA, idB);
+        DegreeDistribution distribution = analyticsClient.getDegreeDistribution();
+        assertEquals(3, distribution.getNumElements());
+        assertEquals(2, distribution.getNumEdges());
+        assertEquals(2, distribution.getMaxDegree());
+        assertEquals(ImmutableMap.of(0, 1L, 1, 2L), distribution.getInDegreeHistogram());
+        assertEquals(ImmutableMap.of(0, 1L, 1, 2L), distribution.getOutDegreeHistogram());
+        assertEquals(ImmutableMap.of(1, 2L, 2, 1L), distribution.getDegreeHistogram());
+    }
+
+    @Test
+    public void countTrianglesTest_triangle_shouldCountOne() {
+        //idA -> idEdge -> idB, and idB is also a pendant from idA: the three form a triangle
+        long idA = elementService.createNode();
+        long idB = elementService.createPendantFrom(idA);
+        elementService.createElement(idA, idB);
+        TriangleCount count = analyticsClient.countTriangles();
+        assertEquals(1, count.getNumTriangles());
+        assertEquals(3, count.getNumConnectedTriples());
+        assertEquals(1.0, count.getGlobalClusteringCoefficient(), 1e-9);
+    }
+
+    @Test
+    public void getPageRankTest_ranksShouldSumToOneAndFavorTheSink() {
+        long idSink = elementService.createNode();
+        elementService.createPendantsTo(idSink, 5);
+        PageRank pageRank = analyticsClient.getPageRank(0.85, 100, 1e-12, 100);
+        assertTrue(pageRank.isConverged());
+        assertEquals(6, pageRank.getTopElements().size());
+        assertEquals(idSink, pageRank.getTopElements().get(0).getId());
+        assertEquals(
+            1.0,
+            pageRank.getTopElements().stream().mapToDouble(ElementRank::getRank).sum(),
+            1e-9
+        );
+    }
+
+    @Test
+    public void getPageRankTest_dampingFactorOne_shouldReturn400() {
+        try {
+            analyticsClient.getPageRank(1, 100, 1e-9, 10);
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 400, "dampingFactor");
+        }
+    }
+}
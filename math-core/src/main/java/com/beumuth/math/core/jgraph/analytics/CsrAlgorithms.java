@@ -0,0 +1,179 @@
+package com.beumuth.math.core.jgraph.analytics;
+
+import com.beumuth.math.client.jgraph.analytics.DegreeDistribution;
+import com.beumuth.math.client.jgraph.analytics.ElementRank;
+import com.beumuth.math.client.jgraph.analytics.PageRank;
+import com.beumuth.math.client.jgraph.analytics.TriangleCount;
+import com.beumuth.math.core.internal.parallel.ForkJoinRanges;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The analytics run over a CsrGraph, each parallelized over its vertices on the given pool.
+ */
+class CsrAlgorithms {
+    static DegreeDistribution degreeDistribution(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.numVertices();
+        long sumOfDegrees = ForkJoinRanges.sumLongs(pool, n, v -> graph.degree(v));
+        return new DegreeDistribution(
+            n,
+            graph.numEdges(),
+            n == 0 ? 0 : (double) sumOfDegrees / n,
+            IntStream.range(0, n).map(graph::degree).max().orElse(0),
+            histogram(n, graph::inDegree),
+            histogram(n, graph::outDegree),
+            histogram(n, graph::degree)
+        );
+    }
+
+    /**
+     * Pull-based power iteration. The rank of vertices with no out-edges is spread evenly over every vertex.
+     * @param tolerance Stop once the ranks change by less than this in total (L1) over an iteration.
+     * @param limit The number of highest ranked Elements to return.
+     */
+    static PageRank pageRank(
+        CsrGraph graph,
+        ForkJoinPool pool,
+        double dampingFactor,
+        int maxIterations,
+        double tolerance,
+        int limit
+    ) {
+        int n = graph.numVertices();
+        if(n == 0) {
+            return new PageRank(dampingFactor, 0, true, Collections.emptyList());
+        }
+        double[] ranks = new double[n];
+        double[] nextRanks = new double[n];
+        double[] contributions = new double[n];
+        Arrays.fill(ranks, 1.0 / n);
+        int numIterations = 0;
+        boolean converged = false;
+        while(numIterations < maxIterations && ! converged) {
+            double[] currentRanks = ranks;
+            ForkJoinRanges.forEach(pool, n, u -> {
+                int outDegree = graph.outDegree(u);
+                contributions[u] = outDegree == 0 ? 0 : currentRanks[u] / outDegree;
+            });
+            double danglingRank = ForkJoinRanges.sumDoubles(pool, n, u ->
+                graph.outDegree(u) == 0 ? currentRanks[u] : 0
+            );
+            double base = (1 - dampingFactor) / n + dampingFactor * danglingRank / n;
+            double[] next = nextRanks;
+            ForkJoinRanges.forEach(pool, n, v -> {
+                double sum = 0;
+                for(int j = graph.inOffsets[v]; j < graph.inOffsets[v + 1]; ++j) {
+                    sum += contributions[graph.inSources[j]];
+                }
+                next[v] = base + dampingFactor * sum;
+            });
+            double change = ForkJoinRanges.sumDoubles(pool, n, v -> Math.abs(next[v] - currentRanks[v]));
+            nextRanks = ranks;
+            ranks = next;
+            ++numIterations;
+            converged = change < tolerance;
+        }
+        double[] finalRanks = ranks;
+        List<ElementRank> topElements = IntStream
+            .range(0, n)
+            .boxed()
+            .sorted(Comparator.comparingDouble((Integer v) -> -finalRanks[v]).thenComparingInt(v -> v))
+            .limit(limit)
+            .map(v -> new ElementRank(graph.ids[v], finalRanks[v]))
+            .collect(Collectors.toList());
+        return new PageRank(dampingFactor, numIterations, converged, topElements);
+    }
+
+    /**
+     * Each undirected edge is oriented from the endpoint of lower degree (ties broken by position) to the other, so
+     * every triangle is found exactly once, from its lowest vertex, by intersecting the oriented neighbor lists of
+     * the two ends of each of that vertex's oriented edges.
+     */
+    static TriangleCount countTriangles(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.numVertices();
+        int[] forwardOffsets = new int[n + 1];
+        int[] forwardCounts = new int[n];
+        ForkJoinRanges.forEach(pool, n, u -> {
+            int count = 0;
+            for(int j = graph.neighborOffsets[u]; j < graph.neighborOffsets[u + 1]; ++j) {
+                if(precedes(graph, u, graph.neighbors[j])) {
+                    ++count;
+                }
+            }
+            forwardCounts[u] = count;
+        });
+        for(int u = 0; u < n; ++u) {
+            forwardOffsets[u + 1] = forwardOffsets[u] + forwardCounts[u];
+        }
+        //Filtering keeps each list sorted by position
+        int[] forward = new int[forwardOffsets[n]];
+        ForkJoinRanges.forEach(pool, n, u -> {
+            int next = forwardOffsets[u];
+            for(int j = graph.neighborOffsets[u]; j < graph.neighborOffsets[u + 1]; ++j) {
+                if(precedes(graph, u, graph.neighbors[j])) {
+                    forward[next++] = graph.neighbors[j];
+                }
+            }
+        });
+
+        long numTriangles = ForkJoinRanges.sumLongs(pool, n, u -> {
+            long count = 0;
+            for(int j = forwardOffsets[u]; j < forwardOffsets[u + 1]; ++j) {
+                int v = forward[j];
+                count += intersectionSize(
+                    forward, forwardOffsets[u], forwardOffsets[u + 1],
+                    forward, forwardOffsets[v], forwardOffsets[v + 1]
+                );
+            }
+            return count;
+        });
+        long numConnectedTriples = ForkJoinRanges.sumLongs(pool, n, v -> {
+            long degree = graph.degree(v);
+            return degree * (degree - 1) / 2;
+        });
+        return new TriangleCount(
+            numTriangles,
+            numConnectedTriples,
+            numConnectedTriples == 0 ? 0 : 3.0 * numTriangles / numConnectedTriples
+        );
+    }
+
+    private static boolean precedes(CsrGraph graph, int u, int v) {
+        int degreeU = graph.degree(u);
+        int degreeV = graph.degree(v);
+        return degreeU < degreeV || (degreeU == degreeV && u < v);
+    }
+
+    private static long intersectionSize(int[] x, int xFrom, int xTo, int[] y, int yFrom, int yTo) {
+        long size = 0;
+        while(xFrom < xTo && yFrom < yTo) {
+            if(x[xFrom] < y[yFrom]) {
+                ++xFrom;
+            } else if(x[xFrom] > y[yFrom]) {
+                ++yFrom;
+            } else {
+                ++size;
+                ++xFrom;
+                ++yFrom;
+            }
+        }
+        return size;
+    }
+
+    private static Map<Integer, Long> histogram(int n, IntUnaryOperator degree) {
+        Map<Integer, Long> histogram = new TreeMap<>();
+        for(int v = 0; v < n; ++v) {
+            histogram.merge(degree.applyAsInt(v), 1L, Long::sum);
+        }
+        return histogram;
+    }
+}
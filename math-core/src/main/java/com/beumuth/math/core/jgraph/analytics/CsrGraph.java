@@ -0,0 +1,153 @@
+package com.beumuth.math.core.jgraph.analytics;
+
+import com.beumuth.math.core.internal.parallel.ForkJoinRanges;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable compressed sparse row snapshot of the j-graph, read as the directed graph whose vertices are the
+ * Elements and whose edges are a -> id and id -> b for every Element (self-references are not edges). Vertices are
+ * numbered by their position in the ascending id array.
+ *
+ * Three adjacencies are kept: the out-edges and in-edges of the directed graph, and the distinct neighbors of each
+ * vertex in the simple undirected graph underneath it, sorted by position.
+ */
+class CsrGraph {
+    private static final int NOT_FOUND = -1;
+
+    final long[] ids;
+    final int[] outOffsets;
+    final int[] outTargets;
+    final int[] inOffsets;
+    final int[] inSources;
+    final int[] neighborOffsets;
+    final int[] neighbors;
+
+    private CsrGraph(
+        long[] ids,
+        int[] outOffsets,
+        int[] outTargets,
+        int[] inOffsets,
+        int[] inSources,
+        int[] neighborOffsets,
+        int[] neighbors
+    ) {
+        this.ids = ids;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.neighborOffsets = neighborOffsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * @param ids Ascending
+     */
+    static CsrGraph of(long[] ids, long[] as, long[] bs, ForkJoinPool pool) {
+        int n = ids.length;
+        int[] positionsA = new int[n];
+        int[] positionsB = new int[n];
+        ForkJoinRanges.forEach(pool, n, i -> {
+            positionsA[i] = positionOf(ids, as[i]);
+            positionsB[i] = positionOf(ids, bs[i]);
+        });
+
+        //Each Element contributes at most the edges a -> id and id -> b
+        int[] sources = new int[2 * n];
+        int[] targets = new int[2 * n];
+        int numEdges = 0;
+        for(int i = 0; i < n; ++i) {
+            if(positionsA[i] != NOT_FOUND && positionsA[i] != i) {
+                sources[numEdges] = positionsA[i];
+                targets[numEdges++] = i;
+            }
+            if(positionsB[i] != NOT_FOUND && positionsB[i] != i) {
+                sources[numEdges] = i;
+                targets[numEdges++] = positionsB[i];
+            }
+        }
+
+        int[] outOffsets = new int[n + 1];
+        int[] outTargets = new int[numEdges];
+        group(sources, targets, numEdges, outOffsets, outTargets);
+        int[] inOffsets = new int[n + 1];
+        int[] inSources = new int[numEdges];
+        group(targets, sources, numEdges, inOffsets, inSources);
+
+        //Undirected neighbors: each vertex's out-targets and in-sources, sorted, without repeats
+        int[] neighborCounts = new int[n];
+        int[] candidates = new int[2 * numEdges];
+        int[] candidateOffsets = new int[n + 1];
+        for(int v = 0; v < n; ++v) {
+            candidateOffsets[v + 1] = candidateOffsets[v] + (outOffsets[v + 1] - outOffsets[v]) +
+                (inOffsets[v + 1] - inOffsets[v]);
+        }
+        ForkJoinRanges.forEach(pool, n, v -> {
+            int from = candidateOffsets[v];
+            int outDegree = outOffsets[v + 1] - outOffsets[v];
+            System.arraycopy(outTargets, outOffsets[v], candidates, from, outDegree);
+            System.arraycopy(inSources, inOffsets[v], candidates, from + outDegree, inOffsets[v + 1] - inOffsets[v]);
+            Arrays.sort(candidates, from, candidateOffsets[v + 1]);
+            int count = 0;
+            for(int j = from; j < candidateOffsets[v + 1]; ++j) {
+                if(j == from || candidates[j] != candidates[j - 1]) {
+                    candidates[from + count++] = candidates[j];
+                }
+            }
+            neighborCounts[v] = count;
+        });
+        int[] neighborOffsets = new int[n + 1];
+        for(int v = 0; v < n; ++v) {
+            neighborOffsets[v + 1] = neighborOffsets[v] + neighborCounts[v];
+        }
+        int[] neighbors = new int[neighborOffsets[n]];
+        ForkJoinRanges.forEach(pool, n, v ->
+            System.arraycopy(candidates, candidateOffsets[v], neighbors, neighborOffsets[v], neighborCounts[v])
+        );
+
+        return new CsrGraph(ids, outOffsets, outTargets, inOffsets, inSources, neighborOffsets, neighbors);
+    }
+
+    int numVertices() {
+        return ids.length;
+    }
+
+    int numEdges() {
+        return outTargets.length;
+    }
+
+    int outDegree(int v) {
+        return outOffsets[v + 1] - outOffsets[v];
+    }
+
+    int inDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    int degree(int v) {
+        return neighborOffsets[v + 1] - neighborOffsets[v];
+    }
+
+    private static int positionOf(long[] ids, long id) {
+        int position = Arrays.binarySearch(ids, id);
+        return position >= 0 ? position : NOT_FOUND;
+    }
+
+    /**
+     * Counting sort of the edges (keys[i], values[i]) by key into offsets and values
+     */
+    private static void group(int[] keys, int[] values, int numEdges, int[] offsets, int[] grouped) {
+        for(int i = 0; i < numEdges; ++i) {
+            ++offsets[keys[i] + 1];
+        }
+        for(int v = 0; v + 1 < offsets.length; ++v) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for(int i = 0; i < numEdges; ++i) {
+            grouped[next[keys[i]]++] = values[i];
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.core.internal.primitive.LongArrayList;
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+import com.beumuth.math.core.internal.primitive.LongLongHashMap;
+import com.beumuth.math.core.jgraph.element.ElementService;
+
+/**
+ * Breadth-first search from two Elements at once, over the undirected graph in which each Element neighbors its a, its
+ * b, and the Elements that have it as their a or b. The smaller frontier is expanded a whole level at a time with
+ * batched lookups, and the search stops at the end of the first level on which the two searches meet, so the cost
+ * depends on the distance between the Elements rather than the size of their component.
+ */
+class BidirectionalSearch {
+    private static final long NONE = 0;
+    private static final int UNVISITED = -1;
+
+    private final ElementService elementService;
+    private final Side fromX;
+    private final Side fromY;
+
+    BidirectionalSearch(ElementService elementService, long x, long y) {
+        this.elementService = elementService;
+        this.fromX = new Side(x);
+        this.fromY = new Side(y);
+    }
+
+    /**
+     * @return The ids of the Elements on a shortest path from x to y, including both, or null if x and y are not
+     * connected or either does not exist.
+     */
+    long[] findShortestPath() {
+        if(! fromX.start(elementService) || ! fromY.start(elementService)) {
+            return null;
+        }
+        if(fromX.origin == fromY.origin) {
+            return new long[] {fromX.origin};
+        }
+        while(! fromX.frontierIds.isEmpty() && ! fromY.frontierIds.isEmpty()) {
+            boolean expandX = fromX.frontierIds.size() <= fromY.frontierIds.size();
+            long meeting = expandX ? expand(fromX, fromY) : expand(fromY, fromX);
+            if(meeting != NONE) {
+                return pathThrough(meeting);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Advance one side by a level.
+     * @return The Element on the shortest path through which the two sides meet, or NONE if they have not met.
+     */
+    private long expand(Side side, Side other) {
+        Level next = new Level(side, other);
+        LongLongHashMap parentsOfEndpoints = new LongLongHashMap();
+        for(int i = 0; i < side.frontierIds.size(); ++i) {
+            long id = side.frontierIds.get(i);
+            for(long endpoint : new long[] {side.frontierAs.get(i), side.frontierBs.get(i)}) {
+                if(side.depths.get(endpoint, UNVISITED) == UNVISITED) {
+                    if(other.depths.get(endpoint, UNVISITED) != UNVISITED) {
+                        //The endpoint's a and b are not needed once the sides have met
+                        next.visit(endpoint, id);
+                    } else if(! parentsOfEndpoints.containsKey(endpoint)) {
+                        parentsOfEndpoints.put(endpoint, id, NONE);
+                    }
+                }
+            }
+        }
+        if(! parentsOfEndpoints.isEmpty()) {
+            LongArrayList endpoints = new LongArrayList(parentsOfEndpoints.size());
+            parentsOfEndpoints.forEach((endpoint, parent) -> endpoints.add(endpoint));
+            elementService.forEachElementIn(endpoints.toArray(), (id, a, b) ->
+                next.visit(id, a, b, parentsOfEndpoints.get(id, NONE))
+            );
+        }
+        int depth = side.depth;
+        elementService.forEachElementWithAOrBIn(side.frontierIds.toArray(), (id, a, b) ->
+            next.visit(id, a, b, side.depths.get(a, UNVISITED) == depth ? a : b)
+        );
+        side.advance(next);
+        return next.meeting;
+    }
+
+    private long[] pathThrough(long meeting) {
+        LongArrayList toX = fromX.pathToOrigin(meeting);
+        LongArrayList toY = fromY.pathToOrigin(meeting);
+        long[] path = new long[toX.size() + toY.size() - 1];
+        for(int i = 0; i < toX.size(); ++i) {
+            path[toX.size() - 1 - i] = toX.get(i);
+        }
+        for(int i = 1; i < toY.size(); ++i) {
+            path[toX.size() - 1 + i] = toY.get(i);
+        }
+        return path;
+    }
+
+    /**
+     * The search from one of the two Elements
+     */
+    private static class Side {
+        private final long origin;
+        private final LongLongHashMap parents = new LongLongHashMap();
+        private final LongIntHashMap depths = new LongIntHashMap();
+        private int depth;
+        private LongArrayList frontierIds = new LongArrayList();
+        private LongArrayList frontierAs = new LongArrayList();
+        private LongArrayList frontierBs = new LongArrayList();
+
+        private Side(long origin) {
+            this.origin = origin;
+        }
+
+        /**
+         * @return Whether the origin exists
+         */
+        private boolean start(ElementService elementService) {
+            elementService.forEachElementIn(new long[] {origin}, (id, a, b) -> {
+                frontierIds.add(id);
+                frontierAs.add(a);
+                frontierBs.add(b);
+            });
+            parents.put(origin, origin, NONE);
+            depths.put(origin, 0, UNVISITED);
+            return ! frontierIds.isEmpty();
+        }
+
+        private void advance(Level next) {
+            ++depth;
+            frontierIds = next.ids;
+            frontierAs = next.as;
+            frontierBs = next.bs;
+        }
+
+        private LongArrayList pathToOrigin(long id) {
+            LongArrayList path = new LongArrayList();
+            path.add(id);
+            while(id != origin) {
+                id = parents.get(id, NONE);
+                path.add(id);
+            }
+            return path;
+        }
+    }
+
+    /**
+     * The Elements one side reaches in the level being expanded, and the best place it met the other side
+     */
+    private static class Level {
+        private final Side side;
+        private final Side other;
+        private final LongArrayList ids = new LongArrayList();
+        private final LongArrayList as = new LongArrayList();
+        private final LongArrayList bs = new LongArrayList();
+        private long meeting = NONE;
+        private int meetingDistance = Integer.MAX_VALUE;
+
+        private Level(Side side, Side other) {
+            this.side = side;
+            this.other = other;
+        }
+
+        private void visit(long id, long a, long b, long parent) {
+            if(visit(id, parent)) {
+                ids.add(id);
+                as.add(a);
+                bs.add(b);
+            }
+        }
+
+        /**
+         * @return Whether the Element was reached for the first time
+         */
+        private boolean visit(long id, long parent) {
+            if(side.depths.get(id, UNVISITED) != UNVISITED) {
+                return false;
+            }
+            side.parents.put(id, parent, NONE);
+            side.depths.put(id, side.depth + 1, UNVISITED);
+            int otherDepth = other.depths.get(id, UNVISITED);
+            if(otherDepth != UNVISITED && side.depth + 1 + otherDepth < meetingDistance) {
+                meeting = id;
+                meetingDistance = side.depth + 1 + otherDepth;
+            }
+            return true;
+        }
+    }
+}
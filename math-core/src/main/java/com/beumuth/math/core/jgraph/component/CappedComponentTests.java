@@ -0,0 +1,135 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs with LEVEL_SYNCHRONOUS traversals capped at 3 hops and 6 Elements, and checks that components within the caps
+ * match the recursive query, which has no caps, while those beyond them fail through every overload.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+    "jgraph.component.maxDepth=" + CappedComponentTests.MAX_DEPTH,
+    "jgraph.component.maxSize=" + CappedComponentTests.MAX_SIZE
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class CappedComponentTests {
+    static final int MAX_DEPTH = 3;
+    static final int MAX_SIZE = 6;
+
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private ComponentService componentService;
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void getComponentTest_exactlyMaxDepth_shouldMatchRecursiveQuery() {
+        //From either end, the far end is 3 hops away: node, edge, node, pendant
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        elementService.createElement(idNode1, idNode2);
+        long idPendant = elementService.createPendantFrom(idNode2);
+        assertMatchesRecursiveQuery(idNode1);
+        assertMatchesRecursiveQuery(idPendant);
+    }
+
+    @Test
+    public void getComponentTest_exactlyMaxSize_shouldMatchRecursiveQuery() {
+        long idNode = elementService.createNode();
+        for(int i = 1; i < MAX_SIZE; ++i) {
+            elementService.createPendantFrom(idNode);
+        }
+        assertMatchesRecursiveQuery(idNode);
+    }
+
+    @Test
+    public void getComponentTest_deeperThanMaxDepth_shouldFail() {
+        //Node, edge, node, edge, node is 4 hops end to end, but only 5 Elements
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idNode3 = elementService.createNode();
+        elementService.createElement(idNode1, idNode2);
+        elementService.createElement(idNode2, idNode3);
+        assertEveryOverloadFails(idNode1, "more than [" + MAX_DEPTH + "] hops deep");
+        //From the middle, everything is within 2 hops
+        assertMatchesRecursiveQuery(idNode2);
+    }
+
+    @Test
+    public void getComponentTest_largerThanMaxSize_shouldFail() {
+        long idNode = elementService.createNode();
+        for(int i = 0; i < MAX_SIZE; ++i) {
+            elementService.createPendantFrom(idNode);
+        }
+        assertEveryOverloadFails(idNode, "more than [" + MAX_SIZE + "] Elements");
+        //The recursive query is not capped
+        assertEquals(
+            MAX_SIZE + 1,
+            componentService.getComponentIds(idNode, ComponentTraversal.RECURSIVE_QUERY).size()
+        );
+    }
+
+    private void assertMatchesRecursiveQuery(long id) {
+        assertEquals(
+            componentService.getComponentIds(id, ComponentTraversal.RECURSIVE_QUERY),
+            componentService.getComponentIds(id, ComponentTraversal.LEVEL_SYNCHRONOUS)
+        );
+        List<List<Long>> expected = Lists.newArrayList();
+        componentService
+            .getComponent(id, ComponentTraversal.RECURSIVE_QUERY)
+            .forEach(element -> expected.add(Lists.newArrayList(element.getId(), element.getA(), element.getB())));
+        List<List<Long>> actual = Lists.newArrayList();
+        componentService
+            .getComponent(id, ComponentTraversal.LEVEL_SYNCHRONOUS)
+            .forEach(element -> actual.add(Lists.newArrayList(element.getId(), element.getA(), element.getB())));
+        assertEquals(expected, actual);
+        assertEquals(
+            componentService.getComponentsIds(Sets.newHashSet(id), ComponentTraversal.RECURSIVE_QUERY),
+            componentService.getComponentsIds(Sets.newHashSet(id), ComponentTraversal.LEVEL_SYNCHRONOUS)
+        );
+        assertEquals(
+            componentService.getComponents(Sets.newHashSet(id), ComponentTraversal.RECURSIVE_QUERY),
+            componentService.getComponents(Sets.newHashSet(id), ComponentTraversal.LEVEL_SYNCHRONOUS)
+        );
+    }
+
+    private void assertEveryOverloadFails(long id, String message) {
+        ComponentTraversal traversal = ComponentTraversal.LEVEL_SYNCHRONOUS;
+        List<Consumer<Long>> overloads = Lists.newArrayList(
+            idStart -> componentService.getComponentIds(idStart, traversal),
+            idStart -> componentService.getComponent(idStart, traversal),
+            idStart -> componentService.getComponentsIds(Sets.newHashSet(idStart), traversal),
+            idStart -> componentService.getComponents(Sets.newHashSet(idStart), traversal)
+        );
+        for(Consumer<Long> overload : overloads) {
+            try {
+                overload.accept(id);
+                fail();
+            } catch(IllegalStateException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(message));
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.client.jgraph.component.ComponentsSummary;
+import com.beumuth.math.core.internal.ndjson.NdjsonResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Controller
+@RequestMapping("/api/jgraph")
+public class ComponentController {
+
+    @Autowired
+    private ComponentService componentService;
+
+    @RequestMapping(method=RequestMethod.GET, value="/components/summary")
+    @ResponseBody
+    public ComponentsSummary getComponentsSummary() {
+        return componentService
+            .labelAllComponents()
+            .summarize();
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/components/labels")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> getComponentLabels() {
+        ComponentLabels labels = componentService.labelAllComponents();
+        return NdjsonResponses.stream(writer -> {
+            for(int i = 0; i < labels.size(); ++i) {
+                NdjsonResponses.writeLine(
+                    writer,
+                    "{\"id\":" + labels.getIds()[i] + ",\"componentId\":" + labels.getComponentIds()[i] + "}"
+                );
+            }
+        });
+    }
+}
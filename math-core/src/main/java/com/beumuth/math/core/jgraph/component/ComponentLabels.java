@@ -0,0 +1,43 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.client.jgraph.component.ComponentsSummary;
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Every Element of the j-graph, in ascending order of id, with the component it is in. A component is identified by
+ * the smallest id in it.
+ */
+public class ComponentLabels {
+    private final long[] ids;
+    private final long[] componentIds;
+
+    public ComponentLabels(long[] ids, long[] componentIds) {
+        this.ids = ids;
+        this.componentIds = componentIds;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long[] getIds() {
+        return ids;
+    }
+
+    public long[] getComponentIds() {
+        return componentIds;
+    }
+
+    public ComponentsSummary summarize() {
+        LongIntHashMap sizes = new LongIntHashMap();
+        for(long componentId : componentIds) {
+            sizes.put(componentId, sizes.get(componentId, 0) + 1, 0);
+        }
+        Map<Integer, Long> sizeHistogram = new TreeMap<>();
+        sizes.forEach((componentId, size) -> sizeHistogram.merge(size, 1L, Long::sum));
+        return new ComponentsSummary(ids.length, sizes.size(), sizeHistogram);
+    }
+}
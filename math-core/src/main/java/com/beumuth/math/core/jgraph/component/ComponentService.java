@@ -1,31 +1,245 @@
 package com.beumuth.math.core.jgraph.component;
 
+import com.beumuth.math.client.jgraph.BulkDeleteResult;
+import com.beumuth.math.client.jgraph.ComponentClone;
 import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.ElementPair;
+import com.beumuth.math.client.jgraph.traversal.TraversalDirection;
 import com.beumuth.math.client.settheory.orderedset.OrderedSet;
 import com.beumuth.math.client.settheory.orderedset.OrderedSets;
 import com.beumuth.math.core.internal.database.DatabaseService;
+import com.beumuth.math.core.internal.invalidation.InvalidationBus;
+import com.beumuth.math.core.internal.primitive.LongArrayList;
+import com.beumuth.math.core.internal.primitive.LongHashSet;
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+import com.beumuth.math.core.jgraph.element.ElementBulkDeleter;
+import com.beumuth.math.core.jgraph.element.ElementColumns;
 import com.beumuth.math.core.jgraph.element.ElementService;
+import com.beumuth.math.core.jgraph.element.ElementSnapshotService;
+import com.beumuth.math.core.jgraph.traversal.TraversalService;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class ComponentService {
+    private static final int NO_COMPONENT = 0;
+
     @Autowired
     private DatabaseService databaseService;
 
     @Autowired
     private ElementService elementService;
 
+    @Autowired
+    private ElementSnapshotService snapshotService;
+
+    @Autowired
+    private TraversalService traversalService;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * When enabled, connectivity is answered from an in-memory union-find index that the ElementService maintains on
+     * every write, rather than from a recursive query.
+     */
+    @Value("${jgraph.connectivityIndex.enabled:false}")
+    private boolean connectivityIndexEnabled;
+
+    /**
+     * The number of component traversals that getComponents and getComponentsIds may run at once. 1 runs them on the
+     * calling thread.
+     */
+    @Value("${jgraph.component.parallelism:1}")
+    private int componentParallelism;
+
+    /**
+     * How components are found when the caller doesn't say. See ComponentTraversal.
+     */
+    @Value("${jgraph.component.traversal:RECURSIVE_QUERY}")
+    private ComponentTraversal defaultTraversal;
+
+    /**
+     * The most hops from the starting Element that a LEVEL_SYNCHRONOUS traversal may go before failing. 0 is unlimited.
+     */
+    @Value("${jgraph.component.maxDepth:0}")
+    private int maxDepth;
+
+    /**
+     * The most Elements that a LEVEL_SYNCHRONOUS traversal may visit before failing. 0 is unlimited.
+     */
+    @Value("${jgraph.component.maxSize:0}")
+    private int maxSize;
+
+    /**
+     * The number of threads that label all components at once. 0 is one per available processor.
+     */
+    @Value("${jgraph.component.labelingParallelism:0}")
+    private int labelingParallelism;
+
+    private ConnectivityIndex connectivityIndex;
+
+    private ExecutorService componentExecutor;
+
+    private ForkJoinPool labelingPool;
+
+    @PostConstruct
+    public void initialize() {
+        if(connectivityIndexEnabled) {
+            connectivityIndex = new ConnectivityIndex();
+            loadConnectivityIndex();
+            invalidationBus.warnIfNotShared("The connectivity index");
+        }
+        componentParallelism = Math.max(componentParallelism, 1);
+        maxDepth = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE - 1;
+        maxSize = maxSize > 0 ? maxSize : Integer.MAX_VALUE - 1;
+        if(componentParallelism > 1) {
+            componentExecutor = Executors.newFixedThreadPool(componentParallelism);
+        }
+        labelingPool = new ForkJoinPool(
+            labelingParallelism > 0 ? labelingParallelism : Runtime.getRuntime().availableProcessors()
+        );
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(componentExecutor != null) {
+            componentExecutor.shutdownNow();
+        }
+        labelingPool.shutdownNow();
+    }
+
+    /**
+     * @return The ConnectivityIndex, or null if it is not enabled.
+     */
+    public ConnectivityIndex getConnectivityIndex() {
+        return connectivityIndex;
+    }
+
+    /**
+     * Are Elements (identified by) x and y are connected?
+     * In the case that either x or y do not exist, returns false.
+     */
+    public boolean areElementsConnected(long x, long y) {
+        if(connectivityIndex != null) {
+            return connectivityIndex.areConnected(x, y);
+        }
+        return new BidirectionalSearch(elementService, x, y).findShortestPath() != null;
+    }
+
+    /**
+     * For each pair, are its Elements connected? Each component that any of the pairs touches is resolved once and
+     * shared by every pair that touches it.
+     * In the case that either Element of a pair does not exist, that pair is not connected.
+     */
+    public List<Boolean> areElementsConnected(List<ElementPair> pairs) {
+        if(connectivityIndex != null) {
+            return pairs
+                .stream()
+                .map(pair -> connectivityIndex.areConnected(pair.getX(), pair.getY()))
+                .collect(Collectors.toList());
+        }
+        LongIntHashMap componentsById = new LongIntHashMap();
+        int numComponents = 0;
+        for(ElementPair pair : pairs) {
+            for(long id : new long[] {pair.getX(), pair.getY()}) {
+                if(id > 0 && ! componentsById.containsKey(id)) {
+                    OrderedSet<Long> componentIds = getComponentIds(id);
+                    if(componentIds.isEmpty()) {
+                        componentsById.put(id, NO_COMPONENT, NO_COMPONENT);
+                    } else {
+                        ++numComponents;
+                        for(long idInComponent : componentIds) {
+                            componentsById.put(idInComponent, numComponents, NO_COMPONENT);
+                        }
+                    }
+                }
+            }
+        }
+        return pairs
+            .stream()
+            .map(pair -> {
+                int componentX = componentsById.get(pair.getX(), NO_COMPONENT);
+                return componentX != NO_COMPONENT && componentX == componentsById.get(pair.getY(), NO_COMPONENT);
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the ids of the Elements on a shortest path between x and y, where each Element neighbors its a, its b, and
+     * the Elements that have it as their a or b. The path starts with x and ends with y.
+     * In the case that x and y are not connected, or either does not exist, returns an empty OrderedSet.
+     */
+    public OrderedSet<Long> getShortestPath(long x, long y) {
+        if(connectivityIndex != null && ! connectivityIndex.areConnected(x, y)) {
+            return OrderedSets.empty();
+        }
+        long[] path = new BidirectionalSearch(elementService, x, y).findShortestPath();
+        return path == null ?
+            OrderedSets.empty() :
+            OrderedSets.with(
+                Arrays
+                    .stream(path)
+                    .boxed()
+                    .collect(Collectors.toList())
+            );
+    }
+
     /**
      * Get the component of the Element with the given id; that is, the set ids of Elements connected to it.
      * @param id
      */
     public OrderedSet<Long> getComponentIds(long id) {
+        if(connectivityIndex != null) {
+            return OrderedSets.with(
+                Arrays
+                    .stream(connectivityIndex.getComponentIds(id))
+                    .boxed()
+                    .collect(Collectors.toList())
+            );
+        }
+        return getComponentIds(id, defaultTraversal);
+    }
+
+    /**
+     * Get the component of the Element with the given id, found with the given traversal.
+     * @param id
+     */
+    public OrderedSet<Long> getComponentIds(long id, ComponentTraversal traversal) {
+        if(traversal == ComponentTraversal.LEVEL_SYNCHRONOUS) {
+            ElementColumns component = traverseLevelSynchronously(id);
+            return OrderedSets.with(
+                Arrays
+                    .stream(component.getIds())
+                    .boxed()
+                    .collect(Collectors.toList())
+            );
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -54,6 +268,23 @@ public class ComponentService {
      * @param id
      */
     public OrderedSet<Element> getComponent(long id) {
+        return getComponent(id, defaultTraversal);
+    }
+
+    /**
+     * Get the component of the Element with the given id, found with the given traversal.
+     * @param id
+     */
+    public OrderedSet<Element> getComponent(long id, ComponentTraversal traversal) {
+        if(traversal == ComponentTraversal.LEVEL_SYNCHRONOUS) {
+            ElementColumns component = traverseLevelSynchronously(id);
+            return OrderedSets.with(
+                IntStream
+                    .range(0, component.size())
+                    .mapToObj(i -> new Element(component.getIds()[i], component.getAs()[i], component.getBs()[i]))
+                    .collect(Collectors.toList())
+            );
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -81,20 +312,68 @@ public class ComponentService {
      * Get the Set of components (ids only) for the Elements with given ids (no duplicates returned).
      */
     public Set<Set<Long>> getComponentsIds(Set<Long> ids) {
-        return ids
-            .stream()
-            .map(this::getComponentIds)
-            .collect(Collectors.toSet());
+        return traverseEachComponentOnce(ids, this::getComponentIds, Long::longValue);
+    }
+
+    /**
+     * Get the Set of components (ids only) for the Elements with given ids, found with the given traversal.
+     */
+    public Set<Set<Long>> getComponentsIds(Set<Long> ids, ComponentTraversal traversal) {
+        return traverseEachComponentOnce(ids, id -> getComponentIds(id, traversal), Long::longValue);
     }
 
     /**
      * Get the Set of components for the Elements with given ids (no duplicates returned).
      */
     public Set<Set<Element>> getComponents(Set<Long> ids) {
-        return ids
-            .stream()
-            .map(this::getComponent)
-            .collect(Collectors.toSet());
+        return traverseEachComponentOnce(ids, this::getComponent, Element::getId);
+    }
+
+    /**
+     * Get the Set of components for the Elements with given ids, found with the given traversal.
+     */
+    public Set<Set<Element>> getComponents(Set<Long> ids, ComponentTraversal traversal) {
+        return traverseEachComponentOnce(ids, id -> getComponent(id, traversal), Element::getId);
+    }
+
+    /**
+     * Find every component of the j-graph at once: all Elements are loaded into primitive arrays and labeled in
+     * parallel. See ParallelComponentLabeling.
+     */
+    public ComponentLabels labelAllComponents() {
+        ElementColumns elements = elementService.getAllElementColumns();
+        return new ComponentLabels(
+            elements.getIds(),
+            new ParallelComponentLabeling(elements.getIds(), elements.getAs(), elements.getBs()).label(labelingPool)
+        );
+    }
+
+    /**
+     * Copy the component of the Element with the given id. Every a and b is remapped to the copy of the Element it
+     * referenced, by its position in the component, so the copy is inserted with one bulk insert under a contiguous
+     * block of ids.
+     * @return The clone, or null if the Element does not exist.
+     */
+    public ComponentClone cloneComponent(long id) {
+        OrderedSet<Element> component = getComponent(id);
+        if(component.isEmpty()) {
+            return null;
+        }
+        long[] sourceIds = component.stream().mapToLong(Element::getId).toArray();
+        Arrays.sort(sourceIds);
+        long[] as = new long[sourceIds.length];
+        long[] bs = new long[sourceIds.length];
+        for(Element element : component) {
+            int i = Arrays.binarySearch(sourceIds, element.getId());
+            //-j is the jth Element of the createElements call
+            as[i] = -1 * Arrays.binarySearch(sourceIds, element.getA());
+            bs[i] = -1 * Arrays.binarySearch(sourceIds, element.getB());
+        }
+        OrderedSet<Long> cloneIds = elementService.createElements(as, bs);
+        return new ComponentClone(
+            cloneIds.get(0),
+            Arrays.stream(sourceIds).boxed().collect(Collectors.toList())
+        );
     }
 
     /**
@@ -102,7 +381,15 @@ public class ComponentService {
      * @param id
      */
     public void deleteComponent(long id) {
-        elementService.deleteElements(getComponentIds(id));
+        deleteComponent(id, new ElementBulkDeleter.Listener() {});
+    }
+
+    /**
+     * Delete the component of the Element with the given id in bounded chunks, leaves first.
+     * @param listener Notified after each chunk commits.
+     */
+    public BulkDeleteResult deleteComponent(long id, ElementBulkDeleter.Listener listener) {
+        return deleteElementsInChunks(getComponent(id), listener);
     }
 
     /**
@@ -110,11 +397,157 @@ public class ComponentService {
      * @param ids
      */
     public void deleteComponents(Set<Long> ids) {
-        elementService.deleteElements(
-            getComponentsIds(ids)
+        deleteComponents(ids, new ElementBulkDeleter.Listener() {});
+    }
+
+    /**
+     * Delete the components of the Elements with the given ids in bounded chunks, leaves first.
+     * @param listener Notified after each chunk commits.
+     */
+    public BulkDeleteResult deleteComponents(Set<Long> ids, ElementBulkDeleter.Listener listener) {
+        return deleteElementsInChunks(
+            getComponents(ids)
                 .stream()
                 .flatMap(Set::stream)
-                .collect(Collectors.toSet())
+                .collect(Collectors.toList()),
+            listener
+        );
+    }
+
+    private BulkDeleteResult deleteElementsInChunks(Collection<Element> elements, ElementBulkDeleter.Listener listener) {
+        return elementService.deleteElementsInChunks(
+            elements.stream().mapToLong(Element::getId).toArray(),
+            elements.stream().mapToLong(Element::getA).toArray(),
+            elements.stream().mapToLong(Element::getB).toArray(),
+            listener
+        );
+    }
+
+    /**
+     * Traverse the component of each id, skipping ids that are in a component that has already been traversed. Up to
+     * componentParallelism traversals run at once; traversals in the same wave may still find the same component, which
+     * is then only returned once. An id that doesn't exist contributes an empty component.
+     */
+    private <T> Set<Set<T>> traverseEachComponentOnce(
+        Collection<Long> ids,
+        LongFunction<OrderedSet<T>> traversal,
+        ToLongFunction<T> toId
+    ) {
+        Set<Set<T>> components = Sets.newHashSet();
+        LongHashSet idsCovered = new LongHashSet();
+        Iterator<Long> idsRemaining = ids.iterator();
+        List<Long> wave = Lists.newArrayList();
+        while(idsRemaining.hasNext()) {
+            wave.clear();
+            while(idsRemaining.hasNext() && wave.size() < componentParallelism) {
+                long id = idsRemaining.next();
+                if(! idsCovered.contains(id)) {
+                    wave.add(id);
+                }
+            }
+            for(OrderedSet<T> component : traverseAll(wave, traversal)) {
+                if(components.add(component)) {
+                    component.forEach(element -> idsCovered.add(toId.applyAsLong(element)));
+                }
+            }
+        }
+        return components;
+    }
+
+    private <T> List<OrderedSet<T>> traverseAll(List<Long> ids, LongFunction<OrderedSet<T>> traversal) {
+        if(componentExecutor == null || ids.size() < 2) {
+            return ids
+                .stream()
+                .map(traversal::apply)
+                .collect(Collectors.toList());
+        }
+        List<Future<OrderedSet<T>>> futures = ids
+            .stream()
+            .map(id -> componentExecutor.submit(() -> traversal.apply(id)))
+            .collect(Collectors.toList());
+        List<OrderedSet<T>> components = Lists.newArrayListWithCapacity(futures.size());
+        try {
+            for(Future<OrderedSet<T>> future : futures) {
+                components.add(future.get());
+            }
+        } catch(InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while traversing components", e);
+        } catch(ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+        return components;
+    }
+
+    /**
+     * @return The Elements of the component, ordered by id
+     * @throws IllegalStateException If the component is deeper or larger than the configured caps
+     */
+    private ElementColumns traverseLevelSynchronously(long id) {
+        LongArrayList ids = new LongArrayList();
+        LongArrayList as = new LongArrayList();
+        LongArrayList bs = new LongArrayList();
+        //Going one past each cap tells whether the component exceeds it
+        traversalService.traverse(
+            new long[] {id},
+            maxDepth + 1,
+            TraversalDirection.ALL,
+            maxSize + 1,
+            (idVisited, a, b, depth) -> {
+                if(depth > maxDepth) {
+                    throw new IllegalStateException(
+                        "The component of Element [" + id + "] is more than [" + maxDepth + "] hops deep"
+                    );
+                }
+                ids.add(idVisited);
+                as.add(a);
+                bs.add(b);
+            }
+        );
+        if(ids.size() > maxSize) {
+            throw new IllegalStateException(
+                "The component of Element [" + id + "] has more than [" + maxSize + "] Elements"
+            );
+        }
+
+        Integer[] order = IntStream
+            .range(0, ids.size())
+            .boxed()
+            .sorted(Comparator.comparingLong(ids::get))
+            .toArray(Integer[]::new);
+        return new ElementColumns(
+            Arrays.stream(order).mapToLong(ids::get).toArray(),
+            Arrays.stream(order).mapToLong(as::get).toArray(),
+            Arrays.stream(order).mapToLong(bs::get).toArray()
         );
     }
+
+    private void loadConnectivityIndex() {
+        ElementColumns elements = snapshotService.load();
+        if(elements != null) {
+            connectivityIndex.clear();
+            connectivityIndex.addAll(elements.getIds(), elements.getAs(), elements.getBs());
+            return;
+        }
+
+        //Elements can reference Elements with greater ids, so everything is loaded before any unions are made
+        LongArrayList ids = new LongArrayList();
+        LongArrayList as = new LongArrayList();
+        LongArrayList bs = new LongArrayList();
+        databaseService
+            .getJdbcTemplate()
+            .query(
+                "SELECT id, a, b FROM JGraphElement",
+                (RowCallbackHandler) rs -> {
+                    ids.add(rs.getLong("id"));
+                    as.add(rs.getLong("a"));
+                    bs.add(rs.getLong("b"));
+                }
+            );
+        connectivityIndex.clear();
+        connectivityIndex.addAll(ids.toArray(), as.toArray(), bs.toArray());
+    }
 }
@@ -0,0 +1,156 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.component.ComponentClient;
+import com.beumuth.math.client.jgraph.component.ComponentLabel;
+import com.beumuth.math.client.jgraph.component.ComponentsSummary;
+import com.beumuth.math.core.internal.client.ClientService;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.beumuth.math.core.jgraph.element.MockElementService;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ComponentTests {
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private MockElementService mockElementService;
+    @Autowired
+    private ComponentService componentService;
+    @Autowired
+    private ClientService clientService;
+
+    private static ComponentClient componentClient;
+
+    @PostConstruct
+    public void postConstruct() {
+        componentClient = clientService.getClient(ComponentClient.class);
+    }
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void getComponentsSummaryTest_empty_shouldHaveNoComponents() {
+        ComponentsSummary summary = componentClient.getComponentsSummary();
+        assertEquals(0, summary.getNumElements());
+        assertEquals(0, summary.getNumComponents());
+        assertEquals(ImmutableMap.of(), summary.getSizeHistogram());
+    }
+
+    @Test
+    public void getComponentsSummaryTest_manyComponents_shouldCountBySize() {
+        long idNode1 = elementService.createNode();
+        elementService.createLoopOn(idNode1);
+        long idNode2 = elementService.createNode();
+        long idNode3 = elementService.createNode();
+        elementService.createElement(idNode2, idNode3);
+        elementService.createNode();
+        ComponentsSummary summary = componentClient.getComponentsSummary();
+        assertEquals(6, summary.getNumElements());
+        assertEquals(3, summary.getNumComponents());
+        assertEquals(ImmutableMap.of(1, 1L, 2, 1L, 3, 1L), summary.getSizeHistogram());
+    }
+
+    @Test
+    public void iterateComponentLabelsTest_shouldLabelWithSmallestIdInComponent() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idPendant = elementService.createPendantFrom(idNode1);
+        long idEdge = elementService.createElement(idPendant, idPendant);
+        assertEquals(
+            Lists.newArrayList(
+                new ComponentLabel(idNode1, idNode1),
+                new ComponentLabel(idNode2, idNode2),
+                new ComponentLabel(idPendant, idNode1),
+                new ComponentLabel(idEdge, idNode1)
+            ),
+            Lists.newArrayList(componentClient.iterateComponentLabels())
+        );
+    }
+
+    @Test
+    public void iterateComponentLabelsTest_empty_shouldBeEmpty() {
+        assertFalse(componentClient.iterateComponentLabels().hasNext());
+    }
+
+    @Test
+    public void getComponentTest_levelSynchronous_shouldMatchRecursiveQuery() {
+        Random random = new Random(11);
+        List<Long> ids = Lists.newArrayList(elementService.createNodes(10));
+        for(int i = 0; i < 50; ++i) {
+            //Mostly pendants, loops and edges among what exists, with some new nodes to keep several components apart
+            if(random.nextInt(5) == 0) {
+                ids.add(elementService.createNode());
+            } else {
+                long a = ids.get(random.nextInt(ids.size()));
+                long b = random.nextBoolean() ? a : ids.get(random.nextInt(ids.size()));
+                ids.add(elementService.createElement(a, b));
+            }
+        }
+        ids.add(mockElementService.idNonexistent());
+
+        for(long id : ids) {
+            assertEquals(
+                componentService.getComponentIds(id, ComponentTraversal.RECURSIVE_QUERY),
+                componentService.getComponentIds(id, ComponentTraversal.LEVEL_SYNCHRONOUS)
+            );
+            assertEquals(
+                idsAndEndpoints(componentService.getComponent(id, ComponentTraversal.RECURSIVE_QUERY)),
+                idsAndEndpoints(componentService.getComponent(id, ComponentTraversal.LEVEL_SYNCHRONOUS))
+            );
+        }
+        Set<Long> idSet = Sets.newLinkedHashSet(ids);
+        assertEquals(
+            componentService.getComponentsIds(idSet, ComponentTraversal.RECURSIVE_QUERY),
+            componentService.getComponentsIds(idSet, ComponentTraversal.LEVEL_SYNCHRONOUS)
+        );
+        Set<List<List<Long>>> components = componentService
+            .getComponents(idSet, ComponentTraversal.RECURSIVE_QUERY)
+            .stream()
+            .map(ComponentTests::idsAndEndpoints)
+            .collect(Collectors.toSet());
+        assertTrue(components.size() > 1);
+        assertEquals(
+            components,
+            componentService
+                .getComponents(idSet, ComponentTraversal.LEVEL_SYNCHRONOUS)
+                .stream()
+                .map(ComponentTests::idsAndEndpoints)
+                .collect(Collectors.toSet())
+        );
+    }
+
+    /**
+     * Element equality is by id alone, so compare each Element's id, a and b.
+     */
+    private static List<List<Long>> idsAndEndpoints(Set<Element> component) {
+        return component
+            .stream()
+            .map(element -> Lists.newArrayList(element.getId(), element.getA(), element.getB()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,16 @@
+package com.beumuth.math.core.jgraph.component;
+
+/**
+ * How ComponentService finds the Elements of a component.
+ */
+public enum ComponentTraversal {
+    /**
+     * A single recursive query
+     */
+    RECURSIVE_QUERY,
+    /**
+     * Breadth-first from Java, one level at a time. Each level is expanded with separate lookups by id, a, and b,
+     * which can each use an index, and visited ids are kept in memory. Subject to the configured depth and size caps.
+     */
+    LEVEL_SYNCHRONOUS
+}
@@ -0,0 +1,272 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Incremental disjoint-set (union-find) index over the Elements of the j-graph, stored in primitive arrays. Two
+ * Elements are in the same set exactly when they are in the same component.
+ *
+ * Creating Elements and changing their a and b only ever merges sets, so those are applied incrementally with union
+ * by size and path compression. Deleting or rewiring an Element may split a component, which union-find cannot
+ * express; instead the set is flagged dirty and is rebuilt from its own members the next time it is queried.
+ */
+public class ConnectivityIndex {
+    private static final int NO_SLOT = -1;
+
+    private final LongIntHashMap slotsById;
+
+    //slot -> data. A slot whose id is 0 has been removed but is still linked into its set until the set is rebuilt.
+    private long[] ids;
+    private long[] as;
+    private long[] bs;
+    private int[] parents;
+    private int[] sizes;
+    //Each set's members form a circular singly-linked list through next, so a set can be walked without a scan
+    private int[] next;
+    private boolean[] dirty;
+
+    private int numSlots;
+    private int[] freeSlots;
+    private int numFreeSlots;
+
+    public ConnectivityIndex() {
+        this(1024);
+    }
+
+    public ConnectivityIndex(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        slotsById = new LongIntHashMap(capacity);
+        ids = new long[capacity];
+        as = new long[capacity];
+        bs = new long[capacity];
+        parents = new int[capacity];
+        sizes = new int[capacity];
+        next = new int[capacity];
+        dirty = new boolean[capacity];
+        freeSlots = new int[16];
+    }
+
+    public synchronized void add(long id, long a, long b) {
+        union(addSlot(id, a, b));
+    }
+
+    /**
+     * Add several Elements at once. The Elements may reference one another in any order.
+     */
+    public synchronized void addAll(long[] ids, long[] as, long[] bs) {
+        int[] slots = new int[ids.length];
+        for(int i = 0; i < ids.length; ++i) {
+            slots[i] = addSlot(ids[i], as[i], bs[i]);
+        }
+        for(int slot : slots) {
+            union(slot);
+        }
+    }
+
+    /**
+     * Change the a and b of an indexed Element. The Element's previous component is flagged for a rebuild since
+     * dropping the old a or b may have split it.
+     */
+    public synchronized void update(long id, long a, long b) {
+        int slot = slotsById.get(id, NO_SLOT);
+        if(slot == NO_SLOT) {
+            add(id, a, b);
+            return;
+        }
+        if(as[slot] == a && bs[slot] == b) {
+            return;
+        }
+        dirty[find(slot)] = true;
+        as[slot] = a;
+        bs[slot] = b;
+        union(slot);
+    }
+
+    public synchronized void remove(long id) {
+        int slot = slotsById.remove(id, NO_SLOT);
+        if(slot == NO_SLOT) {
+            return;
+        }
+        dirty[find(slot)] = true;
+        ids[slot] = 0;
+    }
+
+    public synchronized void clear() {
+        slotsById.clear();
+        numSlots = 0;
+        numFreeSlots = 0;
+    }
+
+    public synchronized boolean contains(long id) {
+        return slotsById.containsKey(id);
+    }
+
+    /**
+     * In the case that either x or y are not indexed, returns false.
+     */
+    public synchronized boolean areConnected(long x, long y) {
+        int slotX = slotsById.get(x, NO_SLOT);
+        int slotY = slotsById.get(y, NO_SLOT);
+        if(slotX == NO_SLOT || slotY == NO_SLOT) {
+            return false;
+        }
+        return cleanRoot(slotX) == cleanRoot(slotY);
+    }
+
+    /**
+     * @return A key that is equal for two Elements exactly when they are connected, or -1 if the id is not indexed.
+     * Keys are only comparable until the next modification of the index.
+     */
+    public synchronized int getComponentKey(long id) {
+        int slot = slotsById.get(id, NO_SLOT);
+        return slot == NO_SLOT ? NO_SLOT : cleanRoot(slot);
+    }
+
+    /**
+     * @return The sorted ids of the component of the given Element, or an empty array if it is not indexed.
+     */
+    public synchronized long[] getComponentIds(long id) {
+        int slot = slotsById.get(id, NO_SLOT);
+        if(slot == NO_SLOT) {
+            return new long[0];
+        }
+        int root = cleanRoot(slot);
+        long[] component = new long[sizes[root]];
+        int member = root;
+        int i = 0;
+        do {
+            component[i++] = ids[member];
+            member = next[member];
+        } while(member != root);
+        Arrays.sort(component);
+        return component;
+    }
+
+    private int addSlot(long id, long a, long b) {
+        int slot = slotsById.get(id, NO_SLOT);
+        if(slot != NO_SLOT) {
+            dirty[find(slot)] = true;
+        } else {
+            slot = allocateSlot();
+            slotsById.put(id, slot, NO_SLOT);
+            ids[slot] = id;
+            parents[slot] = slot;
+            sizes[slot] = 1;
+            next[slot] = slot;
+            dirty[slot] = false;
+        }
+        as[slot] = a;
+        bs[slot] = b;
+        return slot;
+    }
+
+    /**
+     * Union the slot with the slots of its a and b.
+     */
+    private void union(int slot) {
+        union(slot, slotsById.get(as[slot], NO_SLOT));
+        union(slot, slotsById.get(bs[slot], NO_SLOT));
+    }
+
+    private void union(int x, int y) {
+        if(y == NO_SLOT) {
+            return;
+        }
+        int rootX = find(x);
+        int rootY = find(y);
+        if(rootX == rootY) {
+            return;
+        }
+        if(sizes[rootX] < sizes[rootY]) {
+            int swap = rootX;
+            rootX = rootY;
+            rootY = swap;
+        }
+        parents[rootY] = rootX;
+        sizes[rootX] += sizes[rootY];
+        dirty[rootX] |= dirty[rootY];
+        //Splice the two circular member lists together
+        int swap = next[rootX];
+        next[rootX] = next[rootY];
+        next[rootY] = swap;
+    }
+
+    /**
+     * Find with path halving.
+     */
+    private int find(int slot) {
+        while(parents[slot] != slot) {
+            parents[slot] = parents[parents[slot]];
+            slot = parents[slot];
+        }
+        return slot;
+    }
+
+    /**
+     * Find the root of the slot's set, first rebuilding the set if it is dirty.
+     */
+    private int cleanRoot(int slot) {
+        int root = find(slot);
+        if(dirty[root]) {
+            rebuild(root);
+            root = find(slot);
+        }
+        return root;
+    }
+
+    /**
+     * Split a dirty set back into its true components: release removed slots, reset every live member to a
+     * singleton, then union each member with its current a and b.
+     */
+    private void rebuild(int root) {
+        int[] members = new int[sizes[root]];
+        int numMembers = 0;
+        int member = root;
+        do {
+            int following = next[member];
+            if(ids[member] == 0) {
+                releaseSlot(member);
+            } else {
+                members[numMembers++] = member;
+            }
+            member = following;
+        } while(member != root);
+
+        for(int i = 0; i < numMembers; ++i) {
+            int slot = members[i];
+            parents[slot] = slot;
+            sizes[slot] = 1;
+            next[slot] = slot;
+            dirty[slot] = false;
+        }
+        for(int i = 0; i < numMembers; ++i) {
+            union(members[i]);
+        }
+    }
+
+    private int allocateSlot() {
+        if(numFreeSlots > 0) {
+            return freeSlots[--numFreeSlots];
+        }
+        if(numSlots == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            as = Arrays.copyOf(as, capacity);
+            bs = Arrays.copyOf(bs, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            next = Arrays.copyOf(next, capacity);
+            dirty = Arrays.copyOf(dirty, capacity);
+        }
+        return numSlots++;
+    }
+
+    private void releaseSlot(int slot) {
+        if(numFreeSlots == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[numFreeSlots++] = slot;
+    }
+}
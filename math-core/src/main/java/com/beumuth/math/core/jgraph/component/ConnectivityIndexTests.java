@@ -0,0 +1,182 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.client.jgraph.UpdateElementRequest;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the ConnectivityIndex that an ElementService of these tests' own keeps, with
+ * jgraph.connectivityIndex.enabled=true, against the recursive query; and a standalone ConnectivityIndex against a
+ * breadth-first search over long random sequences of writes.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = "jgraph.connectivityIndex.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ConnectivityIndexTests {
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private ComponentService componentService;
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void getComponentIdsTest_afterCreates_shouldMatchRecursiveQuery() {
+        createTwoComponents();
+        assertIndexMatchesRecursiveQuery();
+    }
+
+    @Test
+    public void getComponentIdsTest_edgeRetargeted_shouldSplitAndMerge() {
+        long[] ids = createTwoComponents();
+        //Move the edge joining the first component's nodes over to the second component
+        elementService.updateElement(ids[2], new UpdateElementRequest(ids[3], ids[4]));
+        assertFalse(componentService.areElementsConnected(ids[0], ids[1]));
+        assertTrue(componentService.areElementsConnected(ids[2], ids[4]));
+        assertIndexMatchesRecursiveQuery();
+    }
+
+    @Test
+    public void getComponentIdsTest_bridgeDeleted_shouldSplit() {
+        long[] ids = createTwoComponents();
+        long idBridge = elementService.createElement(ids[0], ids[3]);
+        assertTrue(componentService.areElementsConnected(ids[1], ids[4]));
+        assertIndexMatchesRecursiveQuery();
+
+        elementService.deleteElement(idBridge);
+        assertFalse(componentService.areElementsConnected(ids[1], ids[4]));
+        assertIndexMatchesRecursiveQuery();
+    }
+
+    @Test
+    public void getComponentIdsTest_componentDeleted_shouldBeEmpty() {
+        long[] ids = createTwoComponents();
+        componentService.deleteComponent(ids[0]);
+        assertEquals(0, componentService.getComponentIds(ids[0]).size());
+        assertFalse(componentService.areElementsConnected(ids[0], ids[1]));
+        assertIndexMatchesRecursiveQuery();
+    }
+
+    @Test
+    public void connectivityIndexTest_randomWrites_shouldMatchBreadthFirstSearch() {
+        Random random = new Random(7);
+        ConnectivityIndex index = new ConnectivityIndex(16);
+        Map<Long, long[]> elements = Maps.newHashMap();
+        List<Long> ids = Lists.newArrayList();
+        long nextId = 1;
+        for(int i = 0; i < 5000; ++i) {
+            int operation = random.nextInt(10);
+            if(operation < 5 || ids.size() < 2) {
+                long id = nextId++;
+                long a = ids.isEmpty() || random.nextInt(4) == 0 ? id : ids.get(random.nextInt(ids.size()));
+                long b = ids.isEmpty() || random.nextInt(4) == 0 ? id : ids.get(random.nextInt(ids.size()));
+                elements.put(id, new long[] {a, b});
+                ids.add(id);
+                index.add(id, a, b);
+            } else if(operation < 8) {
+                long id = ids.get(random.nextInt(ids.size()));
+                long a = random.nextBoolean() ? id : ids.get(random.nextInt(ids.size()));
+                long b = random.nextBoolean() ? id : ids.get(random.nextInt(ids.size()));
+                elements.put(id, new long[] {a, b});
+                index.update(id, a, b);
+            } else {
+                //Only Elements that nothing else references can be deleted
+                long id = ids.get(random.nextInt(ids.size()));
+                if(elements.values().stream().filter(ab -> ab[0] == id || ab[1] == id).count() ==
+                    (elements.get(id)[0] == id || elements.get(id)[1] == id ? 1 : 0)) {
+                    elements.remove(id);
+                    ids.remove(Long.valueOf(id));
+                    index.remove(id);
+                }
+            }
+            if(i % 100 == 0) {
+                assertIndexMatchesBreadthFirstSearch(index, elements);
+            }
+        }
+        assertIndexMatchesBreadthFirstSearch(index, elements);
+    }
+
+    /**
+     * @return The ids of: two nodes and an edge between them; and a node, a pendant from it, and a loop on it.
+     */
+    private long[] createTwoComponents() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idEdge = elementService.createElement(idNode1, idNode2);
+        long idNode3 = elementService.createNode();
+        long idPendant = elementService.createPendantFrom(idNode3);
+        long idLoop = elementService.createLoopOn(idNode3);
+        return new long[] {idNode1, idNode2, idEdge, idNode3, idPendant, idLoop};
+    }
+
+    private void assertIndexMatchesRecursiveQuery() {
+        for(long id : elementService.getAllIds()) {
+            assertEquals(
+                Lists.newArrayList(componentService.getComponentIds(id, ComponentTraversal.RECURSIVE_QUERY)),
+                Lists.newArrayList(componentService.getComponentIds(id))
+            );
+        }
+    }
+
+    private static void assertIndexMatchesBreadthFirstSearch(ConnectivityIndex index, Map<Long, long[]> elements) {
+        Map<Long, List<Long>> neighbors = Maps.newHashMap();
+        elements.forEach((id, ab) -> {
+            for(long endpoint : ab) {
+                neighbors.computeIfAbsent(id, key -> Lists.newArrayList()).add(endpoint);
+                neighbors.computeIfAbsent(endpoint, key -> Lists.newArrayList()).add(id);
+            }
+        });
+        Set<Long> visited = Sets.newHashSet();
+        for(long id : elements.keySet()) {
+            if(! visited.add(id)) {
+                continue;
+            }
+            Set<Long> component = Sets.newHashSet(id);
+            Deque<Long> frontier = new ArrayDeque<>(component);
+            while(! frontier.isEmpty()) {
+                for(long neighbor : neighbors.get(frontier.poll())) {
+                    if(component.add(neighbor)) {
+                        visited.add(neighbor);
+                        frontier.add(neighbor);
+                    }
+                }
+            }
+            for(long member : component) {
+                assertEquals(component, toSet(index.getComponentIds(member)));
+            }
+        }
+    }
+
+    private static Set<Long> toSet(long[] ids) {
+        Set<Long> set = Sets.newHashSet();
+        for(long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+}
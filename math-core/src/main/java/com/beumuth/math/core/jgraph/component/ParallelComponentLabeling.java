@@ -0,0 +1,86 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.core.internal.parallel.ForkJoinRanges;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Labels every Element of a whole j-graph with its component, using a lock-free union-find over the Elements'
+ * positions in the (ascending) id array, run on a ForkJoinPool.
+ *
+ * A union links the larger of the two roots under the smaller with a compare-and-set, retrying if another thread moved
+ * either root first, and finds compress by path halving. Parents therefore only ever decrease, so no cycle can form,
+ * and each component ends up rooted at its first position; that is, at its smallest id, which becomes its label.
+ */
+class ParallelComponentLabeling {
+    private static final int NOT_FOUND = -1;
+
+    private final long[] ids;
+    private final long[] as;
+    private final long[] bs;
+    private final AtomicIntegerArray parents;
+
+    /**
+     * @param ids Ascending
+     */
+    ParallelComponentLabeling(long[] ids, long[] as, long[] bs) {
+        this.ids = ids;
+        this.as = as;
+        this.bs = bs;
+        this.parents = new AtomicIntegerArray(ids.length);
+    }
+
+    /**
+     * @return The label of each Element: the smallest id in its component.
+     */
+    long[] label(ForkJoinPool pool) {
+        int n = ids.length;
+        ForkJoinRanges.forEach(pool, n, i -> parents.set(i, i));
+        ForkJoinRanges.forEach(pool, n, i -> {
+            union(i, positionOf(as[i]));
+            union(i, positionOf(bs[i]));
+        });
+        long[] labels = new long[n];
+        ForkJoinRanges.forEach(pool, n, i -> labels[i] = ids[find(i)]);
+        return labels;
+    }
+
+    private int positionOf(long id) {
+        int position = Arrays.binarySearch(ids, id);
+        return position >= 0 ? position : NOT_FOUND;
+    }
+
+    private int find(int x) {
+        int parent = parents.get(x);
+        while(parent != x) {
+            int grandparent = parents.get(parent);
+            if(grandparent != parent) {
+                parents.compareAndSet(x, parent, grandparent);
+            }
+            x = grandparent;
+            parent = parents.get(x);
+        }
+        return x;
+    }
+
+    private void union(int x, int y) {
+        //An a or b outside of the j-graph being labeled can't join anything
+        if(y == NOT_FOUND) {
+            return;
+        }
+        while(true) {
+            x = find(x);
+            y = find(y);
+            if(x == y) {
+                return;
+            }
+            int larger = Math.max(x, y);
+            int smaller = Math.min(x, y);
+            if(parents.compareAndSet(larger, larger, smaller)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.beumuth.math.core.jgraph.component;
+
+import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.beumuth.math.core.jgraph.element.MockElementService;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs with a component parallelism of 4, so that getComponents and getComponentsIds traverse in waves of 4 on the
+ * component executor, and with LEVEL_SYNCHRONOUS traversals capped at 5 Elements, so that a traversal can be made to
+ * fail.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+    "jgraph.component.parallelism=" + ParallelComponentTests.PARALLELISM,
+    "jgraph.component.maxSize=" + ParallelComponentTests.MAX_SIZE
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ParallelComponentTests {
+    static final int PARALLELISM = 4;
+    static final int MAX_SIZE = 5;
+
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private MockElementService mockElementService;
+    @Autowired
+    private ComponentService componentService;
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void getComponentsIdsTest_sameComponentInOneWave_shouldReturnItOnce() {
+        long[] ids = createComponent(PARALLELISM);
+        Set<Set<Long>> components = componentService.getComponentsIds(orderedIds(ids));
+        assertEquals(Sets.newHashSet(componentService.getComponentIds(ids[0])), components);
+    }
+
+    @Test
+    public void getComponentsIdsTest_manyComponentsOverManyWaves_shouldReturnEachOnce() {
+        Set<Long> ids = new LinkedHashSet<>();
+        Set<Set<Long>> expected = Sets.newHashSet();
+        //Interleave the components so that every wave touches several of them
+        long[][] components = new long[PARALLELISM + 2][];
+        for(int i = 0; i < components.length; ++i) {
+            components[i] = createComponent(1 + i % 3);
+            expected.add(componentService.getComponentIds(components[i][0]));
+        }
+        for(int j = 0; j < components.length; ++j) {
+            for(long[] component : components) {
+                if(j < component.length) {
+                    ids.add(component[j]);
+                }
+            }
+        }
+        assertEquals(expected, componentService.getComponentsIds(ids));
+        assertEquals(expected, componentService.getComponentsIds(ids, ComponentTraversal.LEVEL_SYNCHRONOUS));
+    }
+
+    @Test
+    public void getComponentsTest_manyComponents_shouldMatchSequentialTraversals() {
+        Set<Long> ids = new LinkedHashSet<>();
+        Set<Set<Element>> expected = Sets.newHashSet();
+        for(int i = 0; i < PARALLELISM * 2; ++i) {
+            long[] component = createComponent(1 + i % 3);
+            ids.add(component[component.length - 1]);
+            expected.add(componentService.getComponent(component[0]));
+        }
+        assertEquals(expected, componentService.getComponents(ids));
+        assertEquals(expected, componentService.getComponents(ids, ComponentTraversal.LEVEL_SYNCHRONOUS));
+    }
+
+    @Test
+    public void getComponentsIdsTest_nonexistent_shouldContributeEmptyComponent() {
+        long[] ids = createComponent(2);
+        long idNonexistent = mockElementService.idNonexistent();
+        Set<Set<Long>> components = componentService.getComponentsIds(
+            orderedIds(new long[] {ids[0], idNonexistent, ids[1]})
+        );
+        assertEquals(2, components.size());
+        assertTrue(components.contains(componentService.getComponentIds(ids[0])));
+        assertTrue(components.stream().anyMatch(Set::isEmpty));
+    }
+
+    @Test
+    public void getComponentsIdsTest_traversalFails_shouldPropagateItsException() {
+        Set<Long> ids = new LinkedHashSet<>();
+        for(int i = 0; i < PARALLELISM - 1; ++i) {
+            ids.add(createComponent(1)[0]);
+        }
+        long[] tooLarge = createComponent(MAX_SIZE);
+        ids.add(tooLarge[0]);
+        try {
+            componentService.getComponentsIds(ids, ComponentTraversal.LEVEL_SYNCHRONOUS);
+            fail();
+        } catch(IllegalStateException e) {
+            //The traversal's own exception, not one wrapping an ExecutionException
+            assertTrue(e.getMessage(), e.getMessage().contains("[" + MAX_SIZE + "] Elements"));
+        }
+        //The executor is still usable afterwards
+        ids.remove(tooLarge[0]);
+        assertEquals(
+            PARALLELISM - 1,
+            componentService.getComponentsIds(ids, ComponentTraversal.LEVEL_SYNCHRONOUS).size()
+        );
+    }
+
+    /**
+     * @return The ids of a chain of the given number of nodes joined by edges, nodes first; a chain of n nodes has
+     * 2n - 1 Elements, so up to 3 nodes are within MAX_SIZE.
+     */
+    private long[] createComponent(int numNodes) {
+        long[] ids = new long[2 * numNodes - 1];
+        for(int i = 0; i < numNodes; ++i) {
+            ids[i] = elementService.createNode();
+        }
+        for(int i = 1; i < numNodes; ++i) {
+            ids[numNodes + i - 1] = elementService.createElement(ids[i - 1], ids[i]);
+        }
+        return ids;
+    }
+
+    private static Set<Long> orderedIds(long[] ids) {
+        Set<Long> set = new LinkedHashSet<>();
+        for(long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+}
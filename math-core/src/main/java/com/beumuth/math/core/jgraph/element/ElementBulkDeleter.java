@@ -0,0 +1,416 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.BulkDeleteResult;
+import com.beumuth.math.client.jgraph.ElementKind;
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Deletes a large, closed set of Elements (one that no Element outside of it references, such as a component) in
+ * bounded chunks, each its own short transaction.
+ *
+ * Elements are deleted leaves first: an Element is only deleted once no remaining Element references it, so the
+ * foreign keys on a and b hold after every chunk and a failure part way leaves a consistent graph. Within a chunk, rows
+ * are deleted one statement at a time in that order, which the driver sends as a single batch. Elements on a cycle can
+ * never become leaves; once everything else is gone they are grouped into strongly connected sets, each before the sets
+ * it references, and each chunk of them is rewired to reference themselves and deleted in the same transaction. Only a
+ * set larger than a chunk leaves Elements rewired but not yet deleted between chunks; they are deleted with the chunk
+ * that rewires the last Element referencing them.
+ * Each chunk adjusts the endpointCount of the remaining Elements it referenced in its own transaction.
+ */
+@Service
+public class ElementBulkDeleter {
+    private static final int NONE = -1;
+    private static final String DELETE_SQL = "DELETE FROM JGraphElement WHERE id = ?";
+    private static final String REWIRE_SQL =
+        "UPDATE JGraphElement SET a = id, b = id, kind = " + ElementKind.NODE.getCode() + " WHERE id = ?";
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Value("${jgraph.bulkDelete.chunkSize:1000}")
+    private int chunkSize;
+
+    /**
+     * How long each chunk waits for a row lock before failing, rather than the server-wide default.
+     */
+    @Value("${jgraph.bulkDelete.lockWaitTimeoutSeconds:5}")
+    private int lockWaitTimeoutSeconds;
+
+    public BulkDeleteResult delete(long[] ids, long[] as, long[] bs, Listener listener) {
+        long start = System.nanoTime();
+        int[] order = new int[ids.length];
+        int numAcyclic = orderLeavesFirst(ids, as, bs, order);
+        long numChunks = 0;
+        long numDeleted = 0;
+
+        for(int from = 0; from < numAcyclic; from += chunkSize) {
+            long[] chunk = idsAt(ids, order, from, Math.min(from + chunkSize, numAcyclic));
+            executeChunk(
+                new long[0],
+                chunk,
+                unreferenced(ids, as, bs, order, from, from + chunk.length, true)
+            );
+            ++numChunks;
+            numDeleted += chunk.length;
+            listener.deleted(chunk);
+            listener.progress(numDeleted, ids.length);
+        }
+
+        //Everything left is on, or referenced from, a cycle
+        int[] setEnds = orderStronglyConnectedReferencersFirst(ids, as, bs, order, numAcyclic);
+        int[] chunkEnds = chunkEnds(setEnds, numAcyclic);
+        int[][] deletedByChunk = groupByChunkDeletable(ids, as, bs, order, numAcyclic, chunkEnds);
+        for(int chunk = 0, from = numAcyclic; chunk < chunkEnds.length; from = chunkEnds[chunk++]) {
+            long[] chunkRewired = idsAt(ids, order, from, chunkEnds[chunk]);
+            long[] chunkDeleted = idsAt(ids, deletedByChunk[chunk], 0, deletedByChunk[chunk].length);
+            EndpointCounts endpointCounts = unreferenced(ids, as, bs, order, from, chunkEnds[chunk], false);
+            endpointCounts.discard(chunkDeleted);
+            executeChunk(chunkRewired, chunkDeleted, endpointCounts);
+            ++numChunks;
+            numDeleted += chunkDeleted.length;
+            listener.rewired(chunkRewired);
+            listener.deleted(chunkDeleted);
+            listener.progress(numDeleted, ids.length);
+        }
+
+        return new BulkDeleteResult(
+            numDeleted,
+            ids.length - numAcyclic,
+            numChunks,
+            (System.nanoTime() - start) / 1_000_000
+        );
+    }
+
+    /**
+     * Kahn's algorithm over the references between the given Elements. Fills order with the indexes of the Elements
+     * that can be deleted leaves first, followed by the rest in their given order.
+     * @return The number of Elements that can be deleted leaves first.
+     */
+    static int orderLeavesFirst(long[] ids, long[] as, long[] bs, int[] order) {
+        int n = ids.length;
+        LongIntHashMap indexesById = new LongIntHashMap(n);
+        for(int i = 0; i < n; ++i) {
+            indexesById.put(ids[i], i, NONE);
+        }
+        int[] indexesA = new int[n];
+        int[] indexesB = new int[n];
+        int[] numReferencers = new int[n];
+        for(int i = 0; i < n; ++i) {
+            indexesA[i] = indexesById.get(as[i], NONE);
+            indexesB[i] = indexesById.get(bs[i], NONE);
+            //Self-references don't hold up deletion, and an Element referencing another as both a and b counts once
+            if(indexesA[i] != NONE && indexesA[i] != i) {
+                ++numReferencers[indexesA[i]];
+            }
+            if(indexesB[i] != NONE && indexesB[i] != i && indexesB[i] != indexesA[i]) {
+                ++numReferencers[indexesB[i]];
+            }
+        }
+
+        int tail = 0;
+        for(int i = 0; i < n; ++i) {
+            if(numReferencers[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        for(int head = 0; head < tail; ++head) {
+            int i = order[head];
+            if(indexesA[i] != NONE && indexesA[i] != i && --numReferencers[indexesA[i]] == 0) {
+                order[tail++] = indexesA[i];
+            }
+            if(
+                indexesB[i] != NONE &&
+                indexesB[i] != i &&
+                indexesB[i] != indexesA[i] &&
+                --numReferencers[indexesB[i]] == 0
+            ) {
+                order[tail++] = indexesB[i];
+            }
+        }
+
+        int numAcyclic = tail;
+        for(int i = 0; i < n; ++i) {
+            if(numReferencers[i] > 0) {
+                order[tail++] = i;
+            }
+        }
+        return numAcyclic;
+    }
+
+    /**
+     * Tarjan's algorithm over the references between the Elements at order[from, n). Reorders them so that each strongly
+     * connected set of them, such as a cycle, is contiguous and comes before every set that it references.
+     * @return The end of each set within order, in order.
+     */
+    static int[] orderStronglyConnectedReferencersFirst(long[] ids, long[] as, long[] bs, int[] order, int from) {
+        int n = order.length - from;
+        LongIntHashMap positionsById = new LongIntHashMap(n);
+        for(int p = 0; p < n; ++p) {
+            positionsById.put(ids[order[from + p]], p, NONE);
+        }
+        int[] positionsA = new int[n];
+        int[] positionsB = new int[n];
+        for(int p = 0; p < n; ++p) {
+            positionsA[p] = positionsById.get(as[order[from + p]], NONE);
+            positionsB[p] = positionsById.get(bs[order[from + p]], NONE);
+        }
+
+        int[] indexes = new int[n];
+        int[] lowLinks = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        //An explicit call stack, as sets may be far too deep to recurse over
+        int[] calls = new int[n];
+        int[] numReferencesVisited = new int[n];
+        int numCalls = 0;
+        //Tarjan's algorithm completes each set after every set that it references
+        int[] completed = new int[n];
+        int numCompleted = 0;
+        int nextIndex = 0;
+        Arrays.fill(indexes, NONE);
+        for(int root = 0; root < n; ++root) {
+            if(indexes[root] != NONE) {
+                continue;
+            }
+            indexes[root] = lowLinks[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            calls[numCalls] = root;
+            numReferencesVisited[numCalls++] = 0;
+            while(numCalls > 0) {
+                int p = calls[numCalls - 1];
+                if(numReferencesVisited[numCalls - 1] < 2) {
+                    int q = numReferencesVisited[numCalls - 1]++ == 0 ? positionsA[p] : positionsB[p];
+                    if(q == NONE || q == p) {
+                        continue;
+                    }
+                    if(indexes[q] == NONE) {
+                        indexes[q] = lowLinks[q] = nextIndex++;
+                        stack[stackSize++] = q;
+                        onStack[q] = true;
+                        calls[numCalls] = q;
+                        numReferencesVisited[numCalls++] = 0;
+                    } else if(onStack[q]) {
+                        lowLinks[p] = Math.min(lowLinks[p], indexes[q]);
+                    }
+                    continue;
+                }
+                --numCalls;
+                if(lowLinks[p] == indexes[p]) {
+                    int q;
+                    do {
+                        q = stack[--stackSize];
+                        onStack[q] = false;
+                        completed[numCompleted++] = q;
+                    } while(q != p);
+                }
+                if(numCalls > 0) {
+                    int caller = calls[numCalls - 1];
+                    lowLinks[caller] = Math.min(lowLinks[caller], lowLinks[p]);
+                }
+            }
+        }
+
+        int[] previousOrder = Arrays.copyOfRange(order, from, order.length);
+        for(int p = 0; p < n; ++p) {
+            order[from + p] = previousOrder[completed[n - 1 - p]];
+        }
+        //Each set was completed with its root last, which is now its first Element
+        int[] setEnds = new int[n];
+        int numSets = 0;
+        for(int p = 1; p <= n; ++p) {
+            if(p == n || lowLinks[completed[n - 1 - p]] == indexes[completed[n - 1 - p]]) {
+                setEnds[numSets++] = from + p;
+            }
+        }
+        return Arrays.copyOf(setEnds, numSets);
+    }
+
+    /**
+     * Split the Elements from the given position into chunks of at most chunkSize, keeping each strongly connected set
+     * that fits in a chunk within one.
+     * @return The end of each chunk.
+     */
+    private int[] chunkEnds(int[] setEnds, int from) {
+        int[] chunkEnds = new int[setEnds.length == 0 ? 0 : setEnds[setEnds.length - 1] - from];
+        int numChunks = 0;
+        int chunkStart = from;
+        int setStart = from;
+        for(int setEnd : setEnds) {
+            if(setEnd - chunkStart > chunkSize && setStart > chunkStart) {
+                chunkEnds[numChunks++] = setStart;
+                chunkStart = setStart;
+            }
+            //A set larger than a chunk is split on its own
+            while(setEnd - chunkStart > chunkSize) {
+                chunkStart += chunkSize;
+                chunkEnds[numChunks++] = chunkStart;
+            }
+            setStart = setEnd;
+        }
+        if(setStart > chunkStart) {
+            chunkEnds[numChunks++] = setStart;
+        }
+        return Arrays.copyOf(chunkEnds, numChunks);
+    }
+
+    /**
+     * Once the Elements at order[from, n) are rewired a chunk at a time, each can be deleted with the chunk that rewires
+     * the last of them referencing it.
+     * @return For each chunk, the indexes of the Elements that it deletes.
+     */
+    private static int[][] groupByChunkDeletable(
+        long[] ids,
+        long[] as,
+        long[] bs,
+        int[] order,
+        int from,
+        int[] chunkEnds
+    ) {
+        int n = order.length - from;
+        LongIntHashMap positionsById = new LongIntHashMap(n);
+        int[] chunksRewired = new int[n];
+        for(int p = 0, chunk = 0; p < n; ++p) {
+            positionsById.put(ids[order[from + p]], p, NONE);
+            if(from + p >= chunkEnds[chunk]) {
+                ++chunk;
+            }
+            chunksRewired[p] = chunk;
+        }
+        int[] chunksDeleted = chunksRewired.clone();
+        for(int p = 0; p < n; ++p) {
+            for(long referenced : new long[] {as[order[from + p]], bs[order[from + p]]}) {
+                int q = positionsById.get(referenced, NONE);
+                if(q != NONE) {
+                    chunksDeleted[q] = Math.max(chunksDeleted[q], chunksRewired[p]);
+                }
+            }
+        }
+
+        int[] numDeletedByChunk = new int[chunkEnds.length];
+        for(int p = 0; p < n; ++p) {
+            ++numDeletedByChunk[chunksDeleted[p]];
+        }
+        int[][] deletedByChunk = new int[chunkEnds.length][];
+        for(int chunk = 0; chunk < chunkEnds.length; ++chunk) {
+            deletedByChunk[chunk] = new int[numDeletedByChunk[chunk]];
+            numDeletedByChunk[chunk] = 0;
+        }
+        for(int p = 0; p < n; ++p) {
+            int chunk = chunksDeleted[p];
+            deletedByChunk[chunk][numDeletedByChunk[chunk]++] = order[from + p];
+        }
+        return deletedByChunk;
+    }
+
+    private long[] idsAt(long[] ids, int[] order, int from, int to) {
+        return Arrays
+            .stream(order, from, to)
+            .mapToLong(i -> ids[i])
+            .toArray();
+    }
+
+    /**
+     * The endpointCount changes from the Elements at order[from, to) no longer referencing their a and b.
+     * @param deleted Whether those Elements are deleted, rather than rewired, so their own counts need no change.
+     */
+    private EndpointCounts unreferenced(
+        long[] ids,
+        long[] as,
+        long[] bs,
+        int[] order,
+        int from,
+        int to,
+        boolean deleted
+    ) {
+        EndpointCounts endpointCounts = new EndpointCounts();
+        for(int i = from; i < to; ++i) {
+            endpointCounts.unreferenced(ids[order[i]], as[order[i]], bs[order[i]]);
+        }
+        if(deleted) {
+            endpointCounts.discard(idsAt(ids, order, from, to));
+        }
+        return endpointCounts;
+    }
+
+    /**
+     * Rewire each of the first ids to reference itself, delete each of the second, in order, and then apply the
+     * endpointCount changes, in one transaction with the configured lock wait timeout.
+     */
+    private void executeChunk(long[] idsRewired, long[] idsDeleted, EndpointCounts endpointCounts) {
+        databaseService
+            .getJdbcTemplate()
+            .execute((ConnectionCallback<Void>) connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                long lockWaitTimeout = getLockWaitTimeout(connection);
+                connection.setAutoCommit(false);
+                try {
+                    setLockWaitTimeout(connection, lockWaitTimeoutSeconds);
+                    executeBatch(connection, REWIRE_SQL, idsRewired);
+                    executeBatch(connection, DELETE_SQL, idsDeleted);
+                    endpointCounts.apply(connection);
+                    connection.commit();
+                } catch(SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    setLockWaitTimeout(connection, lockWaitTimeout);
+                    connection.setAutoCommit(autoCommit);
+                }
+                return null;
+            });
+    }
+
+    private void executeBatch(Connection connection, String sql, long[] ids) throws SQLException {
+        if(ids.length == 0) {
+            return;
+        }
+        try(PreparedStatement statement = connection.prepareStatement(sql)) {
+            for(long id : ids) {
+                statement.setLong(1, id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private long getLockWaitTimeout(Connection connection) throws SQLException {
+        try(
+            Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery("SELECT @@SESSION.innodb_lock_wait_timeout")
+        ) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void setLockWaitTimeout(Connection connection, long seconds) throws SQLException {
+        try(Statement statement = connection.createStatement()) {
+            statement.execute("SET SESSION innodb_lock_wait_timeout = " + seconds);
+        }
+    }
+
+    /**
+     * Notified after each chunk commits.
+     */
+    public interface Listener {
+        default void rewired(long[] ids) {}
+
+        default void deleted(long[] ids) {}
+
+        default void progress(long numDeleted, long numTotal) {}
+    }
+}
@@ -0,0 +1,314 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.BulkDeleteResult;
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs with a chunk size of 3 so that small deletes span several chunks, and a lock wait timeout of 1 second so that a
+ * chunk blocked by another transaction fails quickly.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+    "jgraph.bulkDelete.chunkSize=" + ElementBulkDeleterTests.CHUNK_SIZE,
+    "jgraph.bulkDelete.lockWaitTimeoutSeconds=" + ElementBulkDeleterTests.LOCK_WAIT_TIMEOUT_SECONDS
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ElementBulkDeleterTests {
+    static final int CHUNK_SIZE = 3;
+    static final int LOCK_WAIT_TIMEOUT_SECONDS = 1;
+
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private ElementBulkDeleter bulkDeleter;
+    @Autowired
+    private ElementBulkInserter bulkInserter;
+    @Autowired
+    private ElementIdAllocator idAllocator;
+    @Autowired
+    private DatabaseService databaseService;
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void deleteTest_aroundChunkBoundaries_shouldDeleteLeavesFirstInChunks() {
+        for(int numElements : new int[] {1, 2, 3, 4, 6, 7}) {
+            //A chain of pendants, each from the one before, so each must be deleted before the one before it
+            long[] ids = new long[numElements];
+            ids[0] = elementService.createNode();
+            for(int i = 1; i < numElements; ++i) {
+                ids[i] = elementService.createPendantFrom(ids[i - 1]);
+            }
+            RecordingListener listener = new RecordingListener();
+            BulkDeleteResult result = delete(ids, listener);
+
+            int numChunks = (numElements + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            assertEquals(numElements, result.getNumElementsDeleted());
+            assertEquals(0, result.getNumElementsRewired());
+            assertEquals(numChunks, result.getNumChunksExecuted());
+            assertEquals(numChunks, listener.deleted.size());
+            assertTrue(listener.rewired.isEmpty());
+            List<Long> deleted = Lists.newArrayList();
+            for(long[] chunk : listener.deleted) {
+                assertTrue(chunk.length <= CHUNK_SIZE);
+                Arrays.stream(chunk).forEach(deleted::add);
+            }
+            List<Long> expected = Lists.newArrayList();
+            for(int i = numElements - 1; i >= 0; --i) {
+                expected.add(ids[i]);
+            }
+            assertEquals(expected, deleted);
+            assertNoneExist(ids);
+        }
+    }
+
+    @Test
+    public void deleteTest_cycles_shouldRewireAndDeleteEachInOneChunk() {
+        long first = idAllocator.allocate(9);
+        long[] ids = LongStream.range(first, first + 9).toArray();
+        //0 and 1 are loops on each other, as are 2 and 3 except that 3's b is node 4; 5 to 8 are a cycle of loops too
+        //long for one chunk, and 8 is also referenced by a pendant (deleted first)
+        long[] as = {ids[1], ids[0], ids[3], ids[2], ids[4], ids[6], ids[7], ids[8], ids[5]};
+        long[] bs = {ids[1], ids[0], ids[3], ids[4], ids[4], ids[6], ids[7], ids[8], ids[5]};
+        bulkInserter.insert(ids, as, bs);
+        long idPendant = elementService.createPendantFrom(ids[8]);
+
+        RecordingListener listener = new RecordingListener();
+        long[] idsAll = LongStream.concat(Arrays.stream(ids), LongStream.of(idPendant)).toArray();
+        BulkDeleteResult result = delete(idsAll, listener);
+
+        assertEquals(idsAll.length, result.getNumElementsDeleted());
+        assertEquals(ids.length, result.getNumElementsRewired());
+        assertNoneExist(idsAll);
+        assertEquals(result.getNumChunksExecuted(), listener.deleted.size());
+        assertEquals(idPendant, listener.deleted.get(0)[0]);
+        //Each chunk of rewires is notified along with the deletes of the same transaction
+        assertEquals(listener.rewired.size() + 1, listener.deleted.size());
+        for(int chunk = 0; chunk < listener.rewired.size(); ++chunk) {
+            assertTrue(listener.rewired.get(chunk).length <= CHUNK_SIZE);
+        }
+        //The cycles that fit in a chunk are rewired and deleted in the same one
+        assertRewiredAndDeletedTogether(listener, ids[0], ids[1]);
+        assertRewiredAndDeletedTogether(listener, ids[2], ids[3]);
+    }
+
+    @Test
+    public void deleteTest_endpointCountsOfElementsLeft_shouldBeUpdated() {
+        long idNode = elementService.createNode();
+        long first = idAllocator.allocate(2);
+        long[] ids = {first, first + 1};
+        //A cycle of two edges, each also between the other and the node, which is not deleted
+        bulkInserter.insert(ids, new long[] {ids[1], ids[0]}, new long[] {idNode, idNode});
+        assertEquals(2, endpointCount(idNode));
+        delete(ids, new RecordingListener());
+        assertNoneExist(ids);
+        assertEquals(0, endpointCount(idNode));
+        assertTrue(elementService.isElementNode(idNode));
+    }
+
+    @Test
+    public void deleteTest_progress_shouldCountUpToTotal() {
+        long first = idAllocator.allocate(4);
+        long[] idsCycle = LongStream.range(first, first + 4).toArray();
+        bulkInserter.insert(
+            idsCycle,
+            new long[] {idsCycle[1], idsCycle[2], idsCycle[3], idsCycle[0]},
+            new long[] {idsCycle[1], idsCycle[2], idsCycle[3], idsCycle[0]}
+        );
+        List<Long> idsNodes = elementService.createNodes(5);
+        long[] ids = LongStream
+            .concat(Arrays.stream(idsCycle), idsNodes.stream().mapToLong(Long::longValue))
+            .toArray();
+
+        RecordingListener listener = new RecordingListener();
+        BulkDeleteResult result = delete(ids, listener);
+        assertEquals(result.getNumChunksExecuted(), listener.progress.size());
+        long previous = 0;
+        for(long[] progress : listener.progress) {
+            assertTrue(progress[0] >= previous);
+            assertEquals(ids.length, progress[1]);
+            previous = progress[0];
+        }
+        assertEquals(ids.length, previous);
+    }
+
+    @Test
+    public void deleteTest_succeeds_shouldRestoreLockWaitTimeout() {
+        long idNode = elementService.createNode();
+        long[] lockWaitTimeouts = lockWaitTimeoutsAround(() -> bulkDeleter.delete(
+            new long[] {idNode},
+            new long[] {idNode},
+            new long[] {idNode},
+            new ElementBulkDeleter.Listener() {}
+        ));
+        assertNotEquals(LOCK_WAIT_TIMEOUT_SECONDS, lockWaitTimeouts[0]);
+        assertEquals(lockWaitTimeouts[0], lockWaitTimeouts[1]);
+    }
+
+    @Test
+    public void deleteTest_blockedByAnotherTransaction_shouldTimeOutAndRestoreLockWaitTimeout() throws Exception {
+        long idNode = elementService.createNode();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> databaseService
+                .getTransactionTemplate()
+                .execute(status -> {
+                    databaseService
+                        .getJdbcTemplate()
+                        .queryForList("SELECT id FROM JGraphElement WHERE id = ? FOR UPDATE", idNode);
+                    locked.countDown();
+                    try {
+                        release.await();
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                })
+            );
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            boolean[] failed = {false};
+            long[] lockWaitTimeouts = lockWaitTimeoutsAround(() -> {
+                try {
+                    bulkDeleter.delete(
+                        new long[] {idNode},
+                        new long[] {idNode},
+                        new long[] {idNode},
+                        new ElementBulkDeleter.Listener() {}
+                    );
+                } catch(DataAccessException e) {
+                    failed[0] = true;
+                }
+            });
+            assertTrue(failed[0]);
+            //Well short of the server default of 50 seconds
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(LOCK_WAIT_TIMEOUT_SECONDS + 10));
+            assertEquals(lockWaitTimeouts[0], lockWaitTimeouts[1]);
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+            assertTrue(elementService.doesElementExist(idNode));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private BulkDeleteResult delete(long[] ids, ElementBulkDeleter.Listener listener) {
+        long[] as = new long[ids.length];
+        long[] bs = new long[ids.length];
+        for(int i = 0; i < ids.length; ++i) {
+            as[i] = elementService.getElement(ids[i]).getA();
+            bs[i] = elementService.getElement(ids[i]).getB();
+        }
+        return elementService.deleteElementsInChunks(ids, as, bs, listener);
+    }
+
+    /**
+     * Runs the given delete on a connection held for the whole call, so that the session's lock wait timeout can be
+     * read before and after it.
+     * @return The lock wait timeout before, and after, the delete.
+     */
+    private long[] lockWaitTimeoutsAround(Runnable delete) {
+        return databaseService
+            .getTransactionTemplate()
+            .execute(status -> {
+                long before = lockWaitTimeout();
+                delete.run();
+                return new long[] {before, lockWaitTimeout()};
+            });
+    }
+
+    private long lockWaitTimeout() {
+        return databaseService
+            .getJdbcTemplate()
+            .queryForObject("SELECT @@SESSION.innodb_lock_wait_timeout", Long.class);
+    }
+
+    private int endpointCount(long id) {
+        return databaseService
+            .getNamedParameterJdbcTemplate()
+            .queryForObject(
+                "SELECT endpointCount FROM JGraphElement WHERE id=:id",
+                ImmutableMap.of("id", id),
+                Integer.class
+            );
+    }
+
+    private void assertNoneExist(long[] ids) {
+        for(long id : ids) {
+            assertFalse(elementService.doesElementExist(id));
+        }
+    }
+
+    private static void assertRewiredAndDeletedTogether(RecordingListener listener, long... ids) {
+        Set<Long> expected = Sets.newHashSet();
+        Arrays.stream(ids).forEach(expected::add);
+        for(int chunk = 0; chunk < listener.rewired.size(); ++chunk) {
+            Set<Long> rewired = Sets.newHashSet();
+            Arrays.stream(listener.rewired.get(chunk)).forEach(rewired::add);
+            if(rewired.containsAll(expected)) {
+                //Deletes of cyclic chunks follow the acyclic chunk that deleted the pendant
+                Set<Long> deleted = Sets.newHashSet();
+                Arrays.stream(listener.deleted.get(chunk + 1)).forEach(deleted::add);
+                assertTrue(deleted.containsAll(expected));
+                return;
+            }
+        }
+        fail(expected + " were not rewired in the same chunk");
+    }
+
+    private static class RecordingListener implements ElementBulkDeleter.Listener {
+        private final List<long[]> rewired = Lists.newArrayList();
+        private final List<long[]> deleted = Lists.newArrayList();
+        private final List<long[]> progress = Lists.newArrayList();
+
+        @Override
+        public void rewired(long[] ids) {
+            rewired.add(ids);
+        }
+
+        @Override
+        public void deleted(long[] ids) {
+            deleted.add(ids);
+        }
+
+        @Override
+        public void progress(long numDeleted, long numTotal) {
+            progress.add(new long[] {numDeleted, numTotal});
+        }
+    }
+}
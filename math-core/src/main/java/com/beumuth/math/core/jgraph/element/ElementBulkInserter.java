@@ -0,0 +1,117 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.BulkInsertStatistics;
+import com.beumuth.math.client.jgraph.ElementKind;
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.beumuth.math.core.internal.primitive.LongArrayList;
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts JGraphElement rows with one parameterized statement, executed as a JDBC batch per chunk. The MathDataSource
+ * enables rewriteBatchedStatements, so the driver packs each batch into multi-row INSERTs that respect
+ * max_allowed_packet. All chunks of a call run in one transaction of the DatabaseService's TransactionTemplate (joining
+ * the caller's, if there is one), so a call inserts either every row or none. The endpointCount of every Element the
+ * new rows reference is adjusted in the same transaction.
+ *
+ * The foreign keys on a and b are checked row by row, so a row that references a row later in the call (including
+ * every cycle) is first inserted referencing itself, and then pointed at its real a and b once all rows are in.
+ */
+@Service
+public class ElementBulkInserter {
+    private static final String INSERT_SQL = "INSERT INTO JGraphElement (id, a, b, kind) VALUES (?, ?, ?, ?)";
+    private static final String REFERENCE_SQL = "UPDATE JGraphElement SET a = ?, b = ?, kind = ? WHERE id = ?";
+    private static final int NOT_IN_CALL = -1;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Value("${jgraph.bulkInsert.chunkSize:5000}")
+    private int chunkSize;
+
+    private final AtomicLong numCalls = new AtomicLong();
+    private final AtomicLong numElementsInserted = new AtomicLong();
+    private final AtomicLong numChunksExecuted = new AtomicLong();
+    private final AtomicLong nanosecondsElapsed = new AtomicLong();
+
+    /**
+     * Insert the Elements (ids[i], as[i], bs[i]). All a and b must already be resolved to ids.
+     */
+    public void insert(long[] ids, long[] as, long[] bs) {
+        if(ids.length == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        EndpointCounts endpointCounts = new EndpointCounts();
+        LongIntHashMap positions = new LongIntHashMap(ids.length);
+        for(int i = 0; i < ids.length; ++i) {
+            endpointCounts.referenced(ids[i], as[i], bs[i]);
+            positions.put(ids[i], i, NOT_IN_CALL);
+        }
+        LongArrayList forwardReferencing = new LongArrayList();
+        int numChunks = databaseService
+            .getTransactionTemplate()
+            .execute(status -> databaseService
+                .getJdbcTemplate()
+                .execute((ConnectionCallback<Integer>) connection -> {
+                    int chunks = 0;
+                    try(PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                        for(int from = 0; from < ids.length; from += chunkSize) {
+                            int to = Math.min(from + chunkSize, ids.length);
+                            for(int i = from; i < to; ++i) {
+                                boolean forward =
+                                    positions.get(as[i], NOT_IN_CALL) > i ||
+                                    positions.get(bs[i], NOT_IN_CALL) > i;
+                                long a = forward ? ids[i] : as[i];
+                                long b = forward ? ids[i] : bs[i];
+                                if(forward) {
+                                    forwardReferencing.add(i);
+                                }
+                                statement.setLong(1, ids[i]);
+                                statement.setLong(2, a);
+                                statement.setLong(3, b);
+                                statement.setInt(4, ElementKind.of(ids[i], a, b).getCode());
+                                statement.addBatch();
+                            }
+                            statement.executeBatch();
+                            ++chunks;
+                        }
+                    }
+                    if(! forwardReferencing.isEmpty()) {
+                        try(PreparedStatement reference = connection.prepareStatement(REFERENCE_SQL)) {
+                            for(int j = 0; j < forwardReferencing.size(); ++j) {
+                                int i = (int) forwardReferencing.get(j);
+                                reference.setLong(1, as[i]);
+                                reference.setLong(2, bs[i]);
+                                reference.setInt(3, ElementKind.of(ids[i], as[i], bs[i]).getCode());
+                                reference.setLong(4, ids[i]);
+                                reference.addBatch();
+                            }
+                            reference.executeBatch();
+                        }
+                    }
+                    endpointCounts.apply(connection);
+                    return chunks;
+                })
+            );
+        nanosecondsElapsed.addAndGet(System.nanoTime() - start);
+        numCalls.incrementAndGet();
+        numElementsInserted.addAndGet(ids.length);
+        numChunksExecuted.addAndGet(numChunks);
+    }
+
+    public BulkInsertStatistics getStatistics() {
+        return new BulkInsertStatistics(
+            numCalls.get(),
+            numElementsInserted.get(),
+            numChunksExecuted.get(),
+            nanosecondsElapsed.get() / 1_000_000
+        );
+    }
+}
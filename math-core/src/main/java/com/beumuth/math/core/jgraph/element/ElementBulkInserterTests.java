@@ -0,0 +1,144 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.BulkInsertStatistics;
+import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs with a chunk size of 3 so that small calls span several chunks.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = "jgraph.bulkInsert.chunkSize=" + ElementBulkInserterTests.CHUNK_SIZE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ElementBulkInserterTests {
+    static final int CHUNK_SIZE = 3;
+
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private ElementBulkInserter bulkInserter;
+    @Autowired
+    private ElementIdAllocator idAllocator;
+    @Autowired
+    private DatabaseService databaseService;
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void insertTest_aroundChunkBoundaries_shouldExecuteOneBatchPerChunk() {
+        for(int numElements : new int[] {1, 2, 3, 4, 6, 7}) {
+            BulkInsertStatistics before = bulkInserter.getStatistics();
+            long[] ids = nodes(numElements);
+            BulkInsertStatistics after = bulkInserter.getStatistics();
+            assertEquals(before.getNumCalls() + 1, after.getNumCalls());
+            assertEquals(before.getNumElementsInserted() + numElements, after.getNumElementsInserted());
+            assertEquals(
+                before.getNumChunksExecuted() + (numElements + CHUNK_SIZE - 1) / CHUNK_SIZE,
+                after.getNumChunksExecuted()
+            );
+            for(long id : ids) {
+                assertTrue(elementService.isElementNode(id));
+            }
+        }
+    }
+
+    @Test
+    public void insertTest_forwardReferencesAcrossChunks_shouldBeResolved() {
+        long first = idAllocator.allocate(8);
+        long[] ids = LongStream.range(first, first + 8).toArray();
+        //0 is an edge between 5 and 7, which are in later chunks; 1 and 2 are a cycle of edges; 3 is a loop on 7;
+        //4 is a pendant from 0; the rest are nodes
+        long[] as = {ids[5], ids[2], ids[1], ids[7], ids[0], ids[5], ids[6], ids[7]};
+        long[] bs = {ids[7], ids[2], ids[1], ids[7], ids[4], ids[5], ids[6], ids[7]};
+        bulkInserter.insert(ids, as, bs);
+
+        for(int i = 0; i < ids.length; ++i) {
+            Element element = elementService.getElement(ids[i]);
+            assertEquals(as[i], element.getA());
+            assertEquals(bs[i], element.getB());
+        }
+        assertTrue(elementService.isElementPendantFrom(ids[4], ids[0]));
+        assertTrue(elementService.isElementLoopOn(ids[3], ids[7]));
+        assertTrue(elementService.isElementNode(ids[7]));
+        assertFalse(elementService.isElementNode(ids[0]));
+        //0, 3, and 7 itself reference 7, but 7 does not count toward its own endpointCount
+        assertEquals(2, endpointCount(ids[7]));
+        assertEquals(1, endpointCount(ids[1]));
+        assertEquals(1, endpointCount(ids[2]));
+        assertEquals(1, endpointCount(ids[0]));
+        assertEquals(0, endpointCount(ids[4]));
+    }
+
+    @Test
+    public void insertTest_failureInLastChunk_shouldInsertNothing() {
+        long idNonexistent = idAllocator.allocate();
+        long first = idAllocator.allocate(7);
+        long[] ids = LongStream.range(first, first + 7).toArray();
+        long[] as = ids.clone();
+        long[] bs = ids.clone();
+        as[6] = idNonexistent;
+        try {
+            bulkInserter.insert(ids, as, bs);
+            fail();
+        } catch(DataAccessException e) {
+            //expected
+        }
+        for(long id : ids) {
+            assertFalse(elementService.doesElementExist(id));
+        }
+    }
+
+    @Test
+    public void insertTest_insideCallersTransaction_shouldRollBackWithIt() {
+        long first = idAllocator.allocate(4);
+        long[] ids = LongStream.range(first, first + 4).toArray();
+        databaseService
+            .getTransactionTemplate()
+            .execute(status -> {
+                bulkInserter.insert(ids, ids, ids);
+                status.setRollbackOnly();
+                return null;
+            });
+        for(long id : ids) {
+            assertFalse(elementService.doesElementExist(id));
+        }
+    }
+
+    private long[] nodes(int number) {
+        long[] relative = LongStream.range(0, number).map(i -> -i).toArray();
+        List<Long> ids = elementService.createElements(relative, relative);
+        assertEquals(number, ids.size());
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private int endpointCount(long id) {
+        return databaseService
+            .getNamedParameterJdbcTemplate()
+            .queryForObject(
+                "SELECT endpointCount FROM JGraphElement WHERE id=:id",
+                ImmutableMap.of("id", id),
+                Integer.class
+            );
+    }
+}
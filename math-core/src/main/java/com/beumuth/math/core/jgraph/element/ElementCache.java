@@ -0,0 +1,307 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.ElementCacheStatistics;
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache of id -> (a, b) for j-graphs too large for an ElementIndex, held in primitive arrays. Ids known not
+ * to exist are cached too, so repeated lookups of missing Elements are also spared a round trip to MySQL.
+ *
+ * Eviction follows W-TinyLFU. New entries enter a small LRU window (1% of the capacity); an entry pushed out of the
+ * window is only admitted to the main space if a FrequencySketch estimates it to be accessed more often than the entry
+ * it would evict there. The main space is a segmented LRU: entries start in probation and are promoted to the protected
+ * segment (80% of the main space) when accessed again, the protected segment demoting its least recent entry back to
+ * probation when full. Bursts of one-off lookups thus cannot flush out the hot ids.
+ *
+ * The ElementService keeps it write-through, and drops the ids that other nodes write. A row read from MySQL is only
+ * cached if no write happened since the read began (see getWriteStamp), so a read that races a write cannot cache what
+ * the write replaced.
+ */
+public class ElementCache {
+    /**
+     * Returned by get for an id that is cached as not existing. Compare by identity.
+     */
+    public static final Element ABSENT = new Element(0, 0, 0);
+
+    private static final int NONE = -1;
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final int capacity;
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+
+    private final LongIntHashMap slotsById;
+    private final long[] ids;
+    //Both 0 for an id cached as not existing
+    private final long[] as;
+    private final long[] bs;
+    private final byte[] segments;
+    private final int[] previous;
+    private final int[] next;
+    private final int[] heads = {NONE, NONE, NONE};
+    private final int[] tails = {NONE, NONE, NONE};
+    private final int[] sizes = new int[3];
+    private int numSlotsUsed;
+    private final int[] freeSlots;
+    private int numFreeSlots;
+
+    private long writeStamp;
+    private long numHits;
+    private long numNegativeHits;
+    private long numMisses;
+    private long numEvictions;
+    private long numRejections;
+
+    public ElementCache(int capacity) {
+        if(capacity < 2) {
+            throw new IllegalArgumentException("An ElementCache needs a capacity of at least 2, not " + capacity);
+        }
+        this.capacity = capacity;
+        windowCapacity = Math.max(1, capacity / 100);
+        mainCapacity = capacity - windowCapacity;
+        protectedCapacity = Math.max(1, mainCapacity * 4 / 5);
+        sketch = new FrequencySketch(capacity);
+        //One spare slot for an entry on its way out of the window while the main space is full
+        int numSlots = capacity + 1;
+        slotsById = new LongIntHashMap(numSlots);
+        ids = new long[numSlots];
+        as = new long[numSlots];
+        bs = new long[numSlots];
+        segments = new byte[numSlots];
+        previous = new int[numSlots];
+        next = new int[numSlots];
+        freeSlots = new int[numSlots];
+    }
+
+    /**
+     * Count an access to the id and look it up.
+     * @return The cached Element; ABSENT if the id is cached as not existing; or null if the id is not cached, in which
+     * case the caller reads it and offers it with putLoaded or putLoadedAbsent.
+     */
+    public Element get(long id) {
+        lock.lock();
+        try {
+            sketch.increment(id);
+            int slot = slotsById.get(id, NONE);
+            if(slot == NONE) {
+                ++numMisses;
+                return null;
+            }
+            onAccess(slot);
+            if(as[slot] == 0) {
+                ++numNegativeHits;
+                return ABSENT;
+            }
+            ++numHits;
+            return new Element(id, as[slot], bs[slot]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return A stamp to take before reading an Element from MySQL and to hand to putLoaded or putLoadedAbsent.
+     */
+    public long getWriteStamp() {
+        lock.lock();
+        try {
+            return writeStamp;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cache an Element read from MySQL, unless the cache has been written to since the stamp was taken.
+     */
+    public void putLoaded(long id, long a, long b, long stamp) {
+        lock.lock();
+        try {
+            if(stamp == writeStamp) {
+                store(id, a, b);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cache that an id does not exist, unless the cache has been written to since the stamp was taken.
+     */
+    public void putLoadedAbsent(long id, long stamp) {
+        putLoaded(id, 0, 0, stamp);
+    }
+
+    /**
+     * Write-through of a created or updated Element.
+     */
+    public void put(long id, long a, long b) {
+        lock.lock();
+        try {
+            ++writeStamp;
+            store(id, a, b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write-through of a deleted Element.
+     */
+    public void putAbsent(long id) {
+        put(id, 0, 0);
+    }
+
+    /**
+     * Drop the ids from idFrom to idTo (inclusive), which another node has written, so that they are read afresh.
+     */
+    public void invalidate(long idFrom, long idTo) {
+        lock.lock();
+        try {
+            ++writeStamp;
+            for(long id = idFrom; id <= idTo; ++id) {
+                int slot = slotsById.remove(id, NONE);
+                if(slot != NONE) {
+                    unlink(slot);
+                    freeSlots[numFreeSlots++] = slot;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            ++writeStamp;
+            slotsById.clear();
+            for(int segment = WINDOW; segment <= PROTECTED; ++segment) {
+                heads[segment] = NONE;
+                tails[segment] = NONE;
+                sizes[segment] = 0;
+            }
+            numSlotsUsed = 0;
+            numFreeSlots = 0;
+            sketch.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ElementCacheStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new ElementCacheStatistics(
+                capacity,
+                slotsById.size(),
+                numHits,
+                numNegativeHits,
+                numMisses,
+                numEvictions,
+                numRejections
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(long id, long a, long b) {
+        int slot = slotsById.get(id, NONE);
+        if(slot != NONE) {
+            as[slot] = a;
+            bs[slot] = b;
+            return;
+        }
+        slot = allocateSlot();
+        slotsById.put(id, slot, NONE);
+        ids[slot] = id;
+        as[slot] = a;
+        bs[slot] = b;
+        pushFront(WINDOW, slot);
+        if(sizes[WINDOW] > windowCapacity) {
+            admit(tails[WINDOW]);
+        }
+    }
+
+    /**
+     * Move the least recent entry of the window into probation, evicting it or the least recent entry of the main
+     * space, whichever the sketch deems less frequently accessed, if the main space is full.
+     */
+    private void admit(int candidate) {
+        unlink(candidate);
+        if(sizes[PROBATION] + sizes[PROTECTED] >= mainCapacity) {
+            int victim = tails[PROBATION] != NONE ? tails[PROBATION] : tails[PROTECTED];
+            if(sketch.frequency(ids[candidate]) <= sketch.frequency(ids[victim])) {
+                ++numRejections;
+                evict(candidate);
+                return;
+            }
+            unlink(victim);
+            evict(victim);
+        }
+        pushFront(PROBATION, candidate);
+    }
+
+    private void onAccess(int slot) {
+        int segment = segments[slot];
+        unlink(slot);
+        if(segment == WINDOW) {
+            pushFront(WINDOW, slot);
+            return;
+        }
+        pushFront(PROTECTED, slot);
+        if(sizes[PROTECTED] > protectedCapacity) {
+            int demoted = tails[PROTECTED];
+            unlink(demoted);
+            pushFront(PROBATION, demoted);
+        }
+    }
+
+    private void evict(int slot) {
+        slotsById.remove(ids[slot], NONE);
+        freeSlots[numFreeSlots++] = slot;
+        ++numEvictions;
+    }
+
+    private int allocateSlot() {
+        return numFreeSlots > 0 ? freeSlots[--numFreeSlots] : numSlotsUsed++;
+    }
+
+    private void pushFront(int segment, int slot) {
+        segments[slot] = (byte) segment;
+        previous[slot] = NONE;
+        next[slot] = heads[segment];
+        if(heads[segment] != NONE) {
+            previous[heads[segment]] = slot;
+        } else {
+            tails[segment] = slot;
+        }
+        heads[segment] = slot;
+        ++sizes[segment];
+    }
+
+    private void unlink(int slot) {
+        int segment = segments[slot];
+        if(previous[slot] != NONE) {
+            next[previous[slot]] = next[slot];
+        } else {
+            heads[segment] = next[slot];
+        }
+        if(next[slot] != NONE) {
+            previous[next[slot]] = previous[slot];
+        } else {
+            tails[segment] = previous[slot];
+        }
+        --sizes[segment];
+    }
+}
@@ -0,0 +1,195 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.ElementCacheStatistics;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs against ElementCaches of capacity 10, which have a window of 1, a main space of 9, and a protected segment of 7.
+ * Writes through put do not count as accesses, so the tests control every frequency the admission policy compares.
+ */
+public class ElementCacheTests {
+    private static final int CAPACITY = 10;
+
+    @Test
+    public void constructorTest_capacityLessThanTwo_shouldThrow() {
+        try {
+            new ElementCache(1);
+            fail();
+        } catch(IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void getTest_shouldCountHitsNegativeHitsAndMisses() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        cache.put(1, 2, 3);
+        cache.putLoadedAbsent(4, cache.getWriteStamp());
+        cache.put(5, 5, 5);
+        cache.putAbsent(5);
+
+        Element element = cache.get(1);
+        assertEquals(1, element.getId());
+        assertEquals(2, element.getA());
+        assertEquals(3, element.getB());
+        assertSame(ElementCache.ABSENT, cache.get(4));
+        assertSame(ElementCache.ABSENT, cache.get(5));
+        assertNull(cache.get(6));
+
+        ElementCacheStatistics statistics = cache.getStatistics();
+        assertEquals(CAPACITY, statistics.getCapacity());
+        assertEquals(3, statistics.getSize());
+        assertEquals(1, statistics.getNumHits());
+        assertEquals(2, statistics.getNumNegativeHits());
+        assertEquals(1, statistics.getNumMisses());
+    }
+
+    @Test
+    public void putTest_pastCapacity_shouldEvictDownToCapacity() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        for(long id = 1; id <= 100; ++id) {
+            cache.put(id, id, id);
+            assertTrue(cache.getStatistics().getSize() <= CAPACITY);
+        }
+        ElementCacheStatistics statistics = cache.getStatistics();
+        assertEquals(CAPACITY, statistics.getSize());
+        assertEquals(100 - CAPACITY, statistics.getNumEvictions());
+    }
+
+    @Test
+    public void putTest_coldScan_shouldBeRejectedAtAdmission() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        fill(cache);
+        //None of the scanned ids has been accessed, so none is accessed more often than the main space's entries
+        for(long id = 100; id < 200; ++id) {
+            cache.put(id, id, id);
+        }
+        ElementCacheStatistics statistics = cache.getStatistics();
+        //10, which was in the window, and every scanned id but the last, which is in the window now
+        assertEquals(100, statistics.getNumRejections());
+        assertEquals(100, statistics.getNumEvictions());
+        for(long id = 1; id < CAPACITY; ++id) {
+            assertNotNull(cache.get(id));
+        }
+        assertNotNull(cache.get(199));
+        assertNull(cache.get(100));
+        assertNull(cache.get(CAPACITY));
+    }
+
+    @Test
+    public void putTest_hotCandidate_shouldBeAdmittedOverColdVictim() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        fill(cache);
+        //Misses that the caller then loads, as ElementService does
+        miss(cache, 500, 4);
+        cache.putLoaded(500, 500, 500, cache.getWriteStamp());
+        cache.put(501, 501, 501);
+
+        ElementCacheStatistics statistics = cache.getStatistics();
+        //10 was rejected on leaving the window for 500
+        assertEquals(1, statistics.getNumRejections());
+        assertEquals(2, statistics.getNumEvictions());
+        //1 was the least recently admitted to probation
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(500));
+    }
+
+    @Test
+    public void getTest_protectedOverflow_shouldDemoteLeastRecentToProbation() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        fill(cache);
+        //Promote 1 to 8 into the protected segment, which holds 7, so 1 is demoted back to probation ahead of 9
+        for(long id = 1; id <= 8; ++id) {
+            assertNotNull(cache.get(id));
+        }
+        //20 and 30 are accessed well more often than 9 and 1, so they evict them in turn from probation's tail; 10 and
+        //21, never accessed, are rejected on leaving the window
+        miss(cache, 20, 4);
+        cache.put(20, 20, 20);
+        cache.put(21, 21, 21);
+        miss(cache, 30, 6);
+        cache.put(30, 30, 30);
+        cache.put(31, 31, 31);
+
+        assertEquals(4, cache.getStatistics().getNumEvictions());
+        assertEquals(2, cache.getStatistics().getNumRejections());
+        assertNull(cache.get(9));
+        assertNull(cache.get(1));
+        for(long id = 2; id <= 8; ++id) {
+            assertNotNull(cache.get(id));
+        }
+        assertNotNull(cache.get(20));
+        assertNotNull(cache.get(30));
+    }
+
+    @Test
+    public void putLoadedTest_writtenSinceStamp_shouldBeIgnored() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        //A reader misses 1 and reads that it does not exist, while a writer creates it
+        long stamp = cache.getWriteStamp();
+        cache.put(1, 1, 1);
+        cache.putLoadedAbsent(1, stamp);
+        assertEquals(1, cache.get(1).getA());
+
+        //Another node writes, so anything read before the invalidation may be stale
+        stamp = cache.getWriteStamp();
+        cache.invalidate(50, 50);
+        cache.putLoaded(2, 2, 2, stamp);
+        assertNull(cache.get(2));
+
+        cache.putLoaded(2, 2, 2, cache.getWriteStamp());
+        assertEquals(2, cache.get(2).getA());
+    }
+
+    @Test
+    public void invalidateTest_shouldDropOnlyTheRange() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        for(long id = 1; id <= 5; ++id) {
+            cache.put(id, id, id);
+        }
+        cache.invalidate(2, 4);
+        assertEquals(2, cache.getStatistics().getSize());
+        assertNull(cache.get(2));
+        assertNull(cache.get(3));
+        assertNull(cache.get(4));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(5));
+
+        //The freed slots are reused
+        for(long id = 10; id < 10 + CAPACITY; ++id) {
+            cache.put(id, id, id);
+        }
+        assertEquals(CAPACITY, cache.getStatistics().getSize());
+    }
+
+    @Test
+    public void clearTest_shouldEmptyAndInvalidateStamps() {
+        ElementCache cache = new ElementCache(CAPACITY);
+        fill(cache);
+        long stamp = cache.getWriteStamp();
+        cache.clear();
+        cache.putLoaded(1, 1, 1, stamp);
+        assertEquals(0, cache.getStatistics().getSize());
+        assertNull(cache.get(1));
+    }
+
+    private static void miss(ElementCache cache, long id, int numTimes) {
+        for(int i = 0; i < numTimes; ++i) {
+            assertNull(cache.get(id));
+        }
+    }
+
+    /**
+     * Leaves 1 to 9 in probation, 1 least recently, and 10 in the window.
+     */
+    private static void fill(ElementCache cache) {
+        for(long id = 1; id <= CAPACITY; ++id) {
+            cache.put(id, id, id);
+        }
+        assertEquals(CAPACITY, cache.getStatistics().getSize());
+        assertEquals(0, cache.getStatistics().getNumEvictions());
+    }
+}
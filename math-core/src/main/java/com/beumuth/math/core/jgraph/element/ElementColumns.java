@@ -0,0 +1,32 @@
+package com.beumuth.math.core.jgraph.element;
+
+/**
+ * Elements stored as parallel id, a, and b arrays.
+ */
+public class ElementColumns {
+    private final long[] ids;
+    private final long[] as;
+    private final long[] bs;
+
+    public ElementColumns(long[] ids, long[] as, long[] bs) {
+        this.ids = ids;
+        this.as = as;
+        this.bs = bs;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long[] getIds() {
+        return ids;
+    }
+
+    public long[] getAs() {
+        return as;
+    }
+
+    public long[] getBs() {
+        return bs;
+    }
+}
@@ -1,26 +1,40 @@
 package com.beumuth.math.core.jgraph.element;
 
+import com.beumuth.math.client.Page;
+import com.beumuth.math.client.jgraph.BulkDeleteResult;
+import com.beumuth.math.client.jgraph.BulkInsertStatistics;
+import com.beumuth.math.client.jgraph.ComponentClone;
 import com.beumuth.math.client.jgraph.CreateElementRequest;
 import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.ElementCacheStatistics;
+import com.beumuth.math.client.jgraph.ElementLockStatistics;
+import com.beumuth.math.client.jgraph.ElementPair;
+import com.beumuth.math.client.jgraph.RewireRequest;
+import com.beumuth.math.client.jgraph.RewireResult;
 import com.beumuth.math.client.jgraph.UpdateElementRequest;
 import com.beumuth.math.client.settheory.orderedset.OrderedSet;
 import com.beumuth.math.client.settheory.orderedset.OrderedSets;
+import com.beumuth.math.core.internal.ndjson.NdjsonResponses;
+import com.beumuth.math.core.internal.pagination.Cursors;
 import com.github.instantpudd.validator.ClientErrorException;
 import com.github.instantpudd.validator.Validator;
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.ToLongFunction;
+import java.util.stream.LongStream;
 
 import static com.github.instantpudd.validator.ClientErrorStatusCode.*;
 
@@ -32,6 +46,18 @@ public class ElementController {
     @Qualifier(value="JGraphElementService")
     private ElementService elementService;
 
+    @Autowired
+    private ElementValidationService elementValidationService;
+
+    @Autowired
+    private ElementLockManager elementLockManager;
+
+    /**
+     * The largest page that the paginated endpoints will return
+     */
+    @Value("${jgraph.pagination.maxLimit:10000}")
+    private int maxPageLimit;
+
     @RequestMapping(method=RequestMethod.GET, value="/elements/element/{id}/exists")
     @ResponseBody
     public boolean doesElementExist(@PathVariable("id") long id) {
@@ -211,6 +237,31 @@ public class ElementController {
         return elementService.areElementsConnected(x, y);
     }
 
+    @RequestMapping(method=RequestMethod.POST, path="/elements/connected")
+    @ResponseBody
+    public List<Boolean> areElementsConnected(@RequestBody List<ElementPair> pairs) {
+        return elementService.areElementsConnected(pairs);
+    }
+
+    @RequestMapping(method=RequestMethod.GET, path="/elements/path/{x}/{y}")
+    @ResponseBody
+    public OrderedSet<Long> getShortestPath(
+        @PathVariable("x") long x,
+        @PathVariable("y") long y
+    ) throws ClientErrorException {
+        Validator
+            .returnStatus(NOT_FOUND)
+            .ifFalse(doesElementExist(x))
+            .withErrorMessage("Element with given id [" + x + "] does not exist")
+            .execute();
+        Validator
+            .returnStatus(NOT_FOUND)
+            .ifFalse(doesElementExist(y))
+            .withErrorMessage("Element with given id [" + y + "] does not exist")
+            .execute();
+        return elementService.getShortestPath(x, y);
+    }
+
     @RequestMapping(method=RequestMethod.GET, value="/elements/with/{a}/or/{b}/count")
     @ResponseBody
     public int getNumElementsWithAOrB(@PathVariable("a") long a, @PathVariable("b") long b) {
@@ -285,6 +336,16 @@ public class ElementController {
         return elementService.getAllIds();
     }
 
+    /**
+     * Stream the ids of every Element as newline-delimited JSON, one id per line, in ascending order.
+     */
+    @RequestMapping(method=RequestMethod.GET, value="/elements/ids/export")
+    public ResponseEntity<StreamingResponseBody> exportAllIds() {
+        return NdjsonResponses.stream(writer ->
+            elementService.forEachId(id -> NdjsonResponses.writeLine(writer, Long.toString(id)))
+        );
+    }
+
     @RequestMapping(method=RequestMethod.GET, value="/elements/ids/with/{a}/or/{b}")
     @ResponseBody
     public OrderedSet<Long> getIdsWithAOrB(@PathVariable("a") long a, @PathVariable("b") long b) {
@@ -349,6 +410,17 @@ public class ElementController {
         return elementService.getIdsEndpointsOf(id);
     }
 
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{id}/dependents/closure/ids")
+    @ResponseBody
+    public OrderedSet<Long> getDependencyClosure(@PathVariable("id") long id) throws ClientErrorException {
+        elementValidationService.validateElementExists(
+            id,
+            NOT_FOUND,
+            "Element with given id [" + id + "] does not exist"
+        );
+        return elementService.getDependencyClosure(id);
+    }
+
     @RequestMapping(method=RequestMethod.GET, value="/elements/endpoints/of/ids")
     @ResponseBody
     public List<OrderedSet<Long>> getIdsEndpointsOfForEach(
@@ -365,6 +437,18 @@ public class ElementController {
         return ids == null || ids.isEmpty() ? elementService.getAllElements() : elementService.getElements(ids);
     }
 
+    /**
+     * Stream every Element as newline-delimited JSON, one Element per line, in ascending order of id.
+     */
+    @RequestMapping(method=RequestMethod.GET, value="/elements/export")
+    public ResponseEntity<StreamingResponseBody> exportAllElements() {
+        return NdjsonResponses.stream(writer ->
+            elementService.forEachElement((id, a, b) ->
+                NdjsonResponses.writeLine(writer, "{\"id\":" + id + ",\"a\":" + a + ",\"b\":" + b + "}")
+            )
+        );
+    }
+
     @RequestMapping(method=RequestMethod.GET, value="/elements/with/{a}/or/{b}")
     @ResponseBody
     public OrderedSet<Element> getElementsWithAOrB(@PathVariable("a") long a, @PathVariable("b") long b) {
@@ -443,18 +527,53 @@ public class ElementController {
     @ResponseBody
     @ResponseStatus(HttpStatus.CREATED)
     public long createElement(@RequestBody CreateElementRequest request) throws ClientErrorException {
-        validateCreateElementRequest(request, 1);
-        return elementService.createElement(request.getA(), request.getB());
+        try(ElementLockManager.Locked locked = elementLockManager.lock(request.getA(), request.getB())) {
+            elementValidationService.validateCreateElementRequests(Collections.singletonList(request));
+            return elementService.createElement(request.getA(), request.getB());
+        }
     }
 
     @RequestMapping(method=RequestMethod.POST, value="/elements")
     @ResponseBody
     @ResponseStatus(HttpStatus.CREATED)
     public OrderedSet<Long> createElements(@RequestBody List<CreateElementRequest> requests) throws ClientErrorException {
-        for(CreateElementRequest request : requests) {
-           validateCreateElementRequest(request, requests.size());
+        long[] referencedIds = requests
+            .stream()
+            .flatMapToLong(request -> LongStream.of(request.getA(), request.getB()))
+            .toArray();
+        try(ElementLockManager.Locked locked = elementLockManager.lock(referencedIds)) {
+            elementValidationService.validateCreateElementRequests(requests);
+            return requests.isEmpty() ? OrderedSets.empty() : elementService.createElements(requests);
         }
-        return requests.isEmpty() ? OrderedSets.empty() : elementService.createElements(requests);
+    }
+
+    @RequestMapping(method=RequestMethod.POST, value="/elements/snapshot")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void writeSnapshot() throws ClientErrorException {
+        Validator
+            .returnStatus(CONFLICT)
+            .ifFalse(elementService.isSnapshotEnabled())
+            .withErrorMessage("Snapshots are disabled; set jgraph.snapshot.path to enable them")
+            .execute();
+        elementService.writeSnapshot();
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/bulkInsert/statistics")
+    @ResponseBody
+    public BulkInsertStatistics getBulkInsertStatistics() {
+        return elementService.getBulkInsertStatistics();
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/locks/statistics")
+    @ResponseBody
+    public ElementLockStatistics getLockStatistics() {
+        return elementLockManager.getStatistics();
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/cache/statistics")
+    @ResponseBody
+    public ElementCacheStatistics getCacheStatistics() {
+        return elementService.getCacheStatistics();
     }
 
     @RequestMapping(method=RequestMethod.POST, value="/elements/nodes/node")
@@ -480,12 +599,14 @@ public class ElementController {
     @ResponseBody
     @ResponseStatus(HttpStatus.CREATED)
     public long createPendantFrom(@PathVariable("idFrom") long idFrom) throws ClientErrorException {
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(elementService.doesElementExist(idFrom))
-            .withErrorMessage("Element with given from [" + idFrom + "] does not exist.")
-            .execute();
-        return elementService.createPendantFrom(idFrom);
+        try(ElementLockManager.Locked locked = elementLockManager.lock(idFrom)) {
+            Validator
+                .returnStatus(NOT_FOUND)
+                .ifFalse(elementService.doesElementExist(idFrom))
+                .withErrorMessage("Element with given from [" + idFrom + "] does not exist.")
+                .execute();
+            return elementService.createPendantFrom(idFrom);
+        }
     }
 
     @RequestMapping(method=RequestMethod.POST, value="/elements/element/{idFrom}/pendants/from")
@@ -493,29 +614,33 @@ public class ElementController {
     @ResponseStatus(HttpStatus.CREATED)
     public OrderedSet<Long> createPendantsFrom(@PathVariable("idFrom") long idFrom, @RequestBody int howMany)
         throws ClientErrorException {
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(elementService.doesElementExist(idFrom))
-            .withErrorMessage("Element with given from [" + idFrom + "] does not exist.")
-            .execute();
-        Validator
-            .returnStatus(BAD_REQUEST)
-            .ifFalse(howMany > 0)
-            .withErrorMessage("The request body indicating how many to create must be > 0")
-            .execute();
-        return elementService.createPendantsFrom(idFrom, howMany);
+        try(ElementLockManager.Locked locked = elementLockManager.lock(idFrom)) {
+            Validator
+                .returnStatus(NOT_FOUND)
+                .ifFalse(elementService.doesElementExist(idFrom))
+                .withErrorMessage("Element with given from [" + idFrom + "] does not exist.")
+                .execute();
+            Validator
+                .returnStatus(BAD_REQUEST)
+                .ifFalse(howMany > 0)
+                .withErrorMessage("The request body indicating how many to create must be > 0")
+                .execute();
+            return elementService.createPendantsFrom(idFrom, howMany);
+        }
     }
 
     @RequestMapping(method=RequestMethod.POST, value="/elements/element/{idTo}/pendant/to")
     @ResponseBody
     @ResponseStatus(HttpStatus.CREATED)
     public long createPendantTo(@PathVariable("idTo") long idTo) throws ClientErrorException {
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(elementService.doesElementExist(idTo))
-            .withErrorMessage("Element with given to [" + idTo + "] does not exist.")
-            .execute();
-        return elementService.createPendantTo(idTo);
+        try(ElementLockManager.Locked locked = elementLockManager.lock(idTo)) {
+            Validator
+                .returnStatus(NOT_FOUND)
+                .ifFalse(elementService.doesElementExist(idTo))
+                .withErrorMessage("Element with given to [" + idTo + "] does not exist.")
+                .execute();
+            return elementService.createPendantTo(idTo);
+        }
     }
 
     @RequestMapping(method=RequestMethod.POST, value="/elements/element/{idTo}/pendants/to")
@@ -523,29 +648,33 @@ public class ElementController {
     @ResponseStatus(HttpStatus.CREATED)
     public OrderedSet<Long> createPendantsTo(@PathVariable("idTo") long idTo, @RequestBody int howMany)
         throws ClientErrorException {
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(elementService.doesElementExist(idTo))
-            .withErrorMessage("Element with given from [" + idTo + "] does not exist.")
-            .execute();
-        Validator
-            .returnStatus(BAD_REQUEST)
-            .ifFalse(howMany > 0)
-            .withErrorMessage("The request body indicating how many to create must be > 0")
-            .execute();
-        return elementService.createPendantsTo(idTo, howMany);
+        try(ElementLockManager.Locked locked = elementLockManager.lock(idTo)) {
+            Validator
+                .returnStatus(NOT_FOUND)
+                .ifFalse(elementService.doesElementExist(idTo))
+                .withErrorMessage("Element with given from [" + idTo + "] does not exist.")
+                .execute();
+            Validator
+                .returnStatus(BAD_REQUEST)
+                .ifFalse(howMany > 0)
+                .withErrorMessage("The request body indicating how many to create must be > 0")
+                .execute();
+            return elementService.createPendantsTo(idTo, howMany);
+        }
     }
 
     @RequestMapping(method=RequestMethod.POST, value="/elements/element/{idOn}/loop")
     @ResponseBody
     @ResponseStatus(HttpStatus.CREATED)
     public long createLoopOn(@PathVariable("idOn") long idOn) throws ClientErrorException {
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(elementService.doesElementExist(idOn))
-            .withErrorMessage("Element with given on [" + idOn + "] does not exist.")
-            .execute();
-        return elementService.createLoopOn(idOn);
+        try(ElementLockManager.Locked locked = elementLockManager.lock(idOn)) {
+            Validator
+                .returnStatus(NOT_FOUND)
+                .ifFalse(elementService.doesElementExist(idOn))
+                .withErrorMessage("Element with given on [" + idOn + "] does not exist.")
+                .execute();
+            return elementService.createLoopOn(idOn);
+        }
     }
 
     @RequestMapping(method=RequestMethod.POST, value="/elements/element/{idOn}/loops")
@@ -553,39 +682,50 @@ public class ElementController {
     @ResponseStatus(HttpStatus.CREATED)
     public OrderedSet<Long> createLoopsOn(@PathVariable("idOn") long idOn, @RequestBody int howMany)
         throws ClientErrorException {
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(elementService.doesElementExist(idOn))
-            .withErrorMessage("Element with given on [" + idOn + "] does not exist.")
-            .execute();
-        Validator
-            .returnStatus(BAD_REQUEST)
-            .ifFalse(howMany > 0)
-            .withErrorMessage("The request body indicating how many to create must be > 0")
-            .execute();
-        return elementService.createLoopsOn(idOn, howMany);
+        try(ElementLockManager.Locked locked = elementLockManager.lock(idOn)) {
+            Validator
+                .returnStatus(NOT_FOUND)
+                .ifFalse(elementService.doesElementExist(idOn))
+                .withErrorMessage("Element with given on [" + idOn + "] does not exist.")
+                .execute();
+            Validator
+                .returnStatus(BAD_REQUEST)
+                .ifFalse(howMany > 0)
+                .withErrorMessage("The request body indicating how many to create must be > 0")
+                .execute();
+            return elementService.createLoopsOn(idOn, howMany);
+        }
+    }
+
+    @RequestMapping(method=RequestMethod.POST, value="/elements/element/{id}/component/clone")
+    @ResponseBody
+    @ResponseStatus(HttpStatus.CREATED)
+    public ComponentClone cloneComponent(@PathVariable("id") long id) throws ClientErrorException {
+        //Nothing can be deleted from, retargeted within, or attached to the component while it is copied
+        try(ElementLockManager.Locked locked = elementLockManager.lockClosure(
+            id,
+            () -> Longs.toArray(elementService.getComponentIds(id))
+        )) {
+            elementValidationService.validateElementExists(
+                id,
+                NOT_FOUND,
+                "Element with given id [" + id + "] does not exist"
+            );
+            return elementService.cloneComponent(id);
+        }
     }
 
     @RequestMapping(method=RequestMethod.PUT, value="/elements/element/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void updateElement(@PathVariable long id, @RequestBody UpdateElementRequest request)
         throws ClientErrorException {
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(elementService.doesElementExist(id))
-            .withErrorMessage("Element with given id [" + id + "] does not exist")
-            .execute();
-        Validator
-            .returnStatus(BAD_REQUEST)
-            .ifFalse(elementService.doesElementExist(request.getA()))
-            .withErrorMessage("Element with given a [" + request.getA() + "] does not exist")
-            .execute();
-        Validator
-            .returnStatus(BAD_REQUEST)
-            .ifFalse(elementService.doesElementExist(request.getB()))
-            .withErrorMessage("Element with given b [" + request.getB() + "] does not exist")
-            .execute();
-        elementService.updateElement(id, request);
+        try(ElementLockManager.Locked locked = elementLockManager.lock(id, request.getA(), request.getB())) {
+            elementValidationService.validateUpdateElementRequests(
+                OrderedSets.singleton(id),
+                Collections.singletonList(request)
+            );
+            elementService.updateElement(id, request);
+        }
     }
 
     @RequestMapping(method=RequestMethod.PUT, value="/elements")
@@ -600,69 +740,80 @@ public class ElementController {
             return;
         }
 
-        //Ensure that the ids are the same size as the requests
-        Validator
-            .returnStatus(BAD_REQUEST)
-            .ifFalse(ids.size() == requests.size())
-            .withErrorMessage(
-                "The number of ids must match the number of UpdateElementRequests in the body. " +
-                ids.size() + " ids and " + requests.size() + " requests were given."
-            ).execute();
-
-        //Ensure that all of the ids in the request exist
-        OrderedSet<Long> idsThatDoNotExist = elementService.getIdsThatDoNotExist(ids);
-        Validator
-            .returnStatus(NOT_FOUND)
-            .ifFalse(idsThatDoNotExist.isEmpty())
-            .withErrorMessage("Elements with the following ids do not exist: " + idsThatDoNotExist)
-            .execute();
+        long[] referencedIds = LongStream.concat(
+            ids.stream().mapToLong(Long::longValue),
+            requests.stream().flatMapToLong(request -> LongStream.of(request.getA(), request.getB()))
+        ).toArray();
+        try(ElementLockManager.Locked locked = elementLockManager.lock(referencedIds)) {
+            elementValidationService.validateUpdateElementRequests(ids, requests);
 
-        //Ensure that Elements with the given a's and b's exist
-        OrderedSet<Long> idAsThatDoNotExist = elementService.getIdsThatDoNotExist(
-            requests //Read as a's
-                .stream()
-                .mapToLong(UpdateElementRequest::getA)
-                .boxed()
-                .collect(Collectors.toCollection(OrderedSet::new))
-        );
-        OrderedSet<Long> idBsThatDoNotExist = elementService.getIdsThatDoNotExist(
-            requests //Read as a's
-                .stream()
-                .mapToLong(UpdateElementRequest::getB)
-                .boxed()
-                .collect(Collectors.toCollection(OrderedSet::new))
-        );
-        if(! (idAsThatDoNotExist.isEmpty() && idBsThatDoNotExist.isEmpty())) {
+            elementService.updateElements(ids, requests);
+        }
+    }
+
+    @RequestMapping(method=RequestMethod.POST, value="/elements/rewire")
+    @ResponseBody
+    public RewireResult rewire(@RequestBody RewireRequest request) throws ClientErrorException {
+        try(ElementLockManager.Locked locked = elementLockManager.lock(request.getFrom(), request.getTo())) {
+            elementValidationService.validateElementExists(
+                request.getFrom(),
+                NOT_FOUND,
+                "Element with given from [" + request.getFrom() + "] does not exist"
+            );
+            elementValidationService.validateElementExists(
+                request.getTo(),
+                NOT_FOUND,
+                "Element with given to [" + request.getTo() + "] does not exist"
+            );
             Validator
                 .returnStatus(BAD_REQUEST)
-                .always()
-                .withErrorMessage(
-                    "Elements with the given a elements do not exist " + idAsThatDoNotExist.toString() + ". " +
-                    "Elements with the given b elements do not exist " + idBsThatDoNotExist.toString() + "."
-                ).execute();
+                .ifFalse(request.isRewireA() || request.isRewireB())
+                .withErrorMessage("At least one of rewireA and rewireB must be true")
+                .execute();
+            return elementService.rewire(
+                request.getFrom(),
+                request.getTo(),
+                request.isRewireA(),
+                request.isRewireB(),
+                request.getKinds() == null ? Collections.emptySet() : request.getKinds()
+            );
         }
-
-        elementService.updateElements(ids, requests);
     }
 
     @RequestMapping(method=RequestMethod.DELETE, path="/elements/element/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteElement(@PathVariable long id) throws ClientErrorException {
-        //Does the element already not exist?
-        if(! elementService.doesElementExist(id)) {
-            //Yes. Nothing to do.
-            return;
+        try(ElementLockManager.Locked locked = elementLockManager.lock(id)) {
+            //Does the element already not exist?
+            if(! elementService.doesElementExist(id)) {
+                //Yes. Nothing to do.
+                return;
+            }
+            //Ensure that no element is connected to or from the element
+            if(elementService.isElementEndpoint(id)) {
+                OrderedSet<Element> endpoints = elementService.getEndpointsOf(id);
+                Validator
+                    .returnStatus(CONFLICT)
+                    .ifFalse(endpoints.isEmpty())
+                    .withErrorMessage(
+                        "The Element with id [" + id + "] has the following elements connected to it and cannot be " +
+                            "deleted: " + endpoints
+                    ).execute();
+            }
+            elementService.deleteElement(id);
+        }
+    }
+
+    @RequestMapping(method=RequestMethod.DELETE, path="/elements/element/{id}/dependents")
+    @ResponseBody
+    public BulkDeleteResult deleteElementWithDependents(@PathVariable long id) {
+        //Nothing can come to depend on the closure while it is deleted
+        try(ElementLockManager.Locked locked = elementLockManager.lockClosure(
+            id,
+            () -> Longs.toArray(elementService.getDependencyClosure(id))
+        )) {
+            return elementService.deleteElementWithDependents(id, new ElementBulkDeleter.Listener() {});
         }
-        //Ensure that no element is connected to or from the element
-        OrderedSet<Element> endpoints = elementService.getEndpointsOf(id);
-        Validator
-            .returnStatus(CONFLICT)
-            .ifFalse(endpoints.isEmpty())
-            .withErrorMessage(
-                "The Element with id [" + id + "] has the following elements connected to it and cannot be deleted: " +
-                    endpoints
-            ).execute();
-        elementService.deleteElement(id);
     }
 
     @RequestMapping(method=RequestMethod.DELETE, path="/elements")
@@ -672,56 +823,296 @@ public class ElementController {
             return;
         }
 
-        //Get the ids of elements whose endpoint list is not a subset of the given ids
-        OrderedSet<Long> orderedIds = OrderedSets.with(ids);
-        List<OrderedSet<Long>> idsEndpointsOfForEach = elementService.getIdsEndpointsOfForEach(orderedIds);
-        Map<Long, Set> invalidIds = Maps.newHashMap();
-        IntStream
-            .range(0, ids.size())
-            .forEach(i -> {
-                Set<Long> endpointsNotBeingDeleted = Sets.difference(idsEndpointsOfForEach.get(i), ids).immutableCopy();
-                if (! endpointsNotBeingDeleted.isEmpty()) {
-                    invalidIds.put(orderedIds.get(i), endpointsNotBeingDeleted);
-                }
-            });
-        Validator
-            .returnStatus(CONFLICT)
-            .ifFalse(invalidIds.isEmpty())
-            .withErrorMessage(
-                "There were elements that could not be deleted due to containing endpoints not being deleted." +
-                " Here is a map from the invalid ids to its endpoints that are not being deleted: " + invalidIds
-            ).execute();
+        try(ElementLockManager.Locked locked = elementLockManager.lock(Longs.toArray(ids))) {
+            elementValidationService.validateDeletable(ids);
 
-        elementService.deleteElements(ids);
+            elementService.deleteElements(ids);
+        }
     }
 
-    private void validateCreateElementRequest(CreateElementRequest request, int numRequests)
-        throws ClientErrorException {
-        Validator
-            .returnStatus(BAD_REQUEST)
-            .ifTrue(request.getA() < 0 && -1 * request.getA() >= numRequests)
-            .withErrorMessage(
-                "Was given a [" + request.getA() + "], which indicates that a is to reference the id of the " +
-                    request.getA() + "th element of this request; but the request only contains " + numRequests +
-                    " elements."
-            ).execute();
+    @RequestMapping(method=RequestMethod.GET, value="/elements/ids/all/page")
+    @ResponseBody
+    public Page<Long> getAllIdsPage(
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getAllIds(afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/ids/with/{a}/or/{b}/page")
+    @ResponseBody
+    public Page<Long> getIdsWithAOrBPage(
+        @PathVariable("a") long a,
+        @PathVariable("b") long b,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getIdsWithAOrB(a, b, afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/ids/with/{a}/and/{b}/page")
+    @ResponseBody
+    public Page<Long> getIdsWithAAndBPage(
+        @PathVariable("a") long a,
+        @PathVariable("b") long b,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getIdsWithAAndB(a, b, afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/nodes/ids/page")
+    @ResponseBody
+    public Page<Long> getIdsNodesPage(
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getIdsNodes(afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{idFrom}/pendants/from/ids/page")
+    @ResponseBody
+    public Page<Long> getIdsPendantsFromPage(
+        @PathVariable("idFrom") long idFrom,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(idFrom);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getIdsPendantsFrom(idFrom, afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{idTo}/pendants/to/ids/page")
+    @ResponseBody
+    public Page<Long> getIdsPendantsToPage(
+        @PathVariable("idTo") long idTo,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(idTo);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getIdsPendantsTo(idTo, afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{idOn}/loops/on/ids/page")
+    @ResponseBody
+    public Page<Long> getIdsLoopsOnPage(
+        @PathVariable("idOn") long idOn,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(idOn);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getIdsLoopsOn(idOn, afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{id}/endpoints/of/ids/page")
+    @ResponseBody
+    public Page<Long> getIdsEndpointsOfPage(
+        @PathVariable("id") long id,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(id);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getIdsEndpointsOf(id, afterId, limitPlusOne),
+            Long::longValue
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/page")
+    @ResponseBody
+    public Page<Element> getAllElementsPage(
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getAllElements(afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/with/{a}/or/{b}/page")
+    @ResponseBody
+    public Page<Element> getElementsWithAOrBPage(
+        @PathVariable("a") long a,
+        @PathVariable("b") long b,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getElementsWithAOrB(a, b, afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/with/{a}/and/{b}/page")
+    @ResponseBody
+    public Page<Element> getElementsWithAAndBPage(
+        @PathVariable("a") long a,
+        @PathVariable("b") long b,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getElementsWithAAndB(a, b, afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/nodes/page")
+    @ResponseBody
+    public Page<Element> getNodesPage(
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getNodes(afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{idFrom}/pendants/from/page")
+    @ResponseBody
+    public Page<Element> getPendantsFromPage(
+        @PathVariable("idFrom") long idFrom,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(idFrom);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getPendantsFrom(idFrom, afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{idTo}/pendants/to/page")
+    @ResponseBody
+    public Page<Element> getPendantsToPage(
+        @PathVariable("idTo") long idTo,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(idTo);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getPendantsTo(idTo, afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{idOn}/loops/on/page")
+    @ResponseBody
+    public Page<Element> getLoopsOnPage(
+        @PathVariable("idOn") long idOn,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(idOn);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getLoopsOn(idOn, afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    @RequestMapping(method=RequestMethod.GET, value="/elements/element/{id}/endpoints/of/page")
+    @ResponseBody
+    public Page<Element> getEndpointsOfPage(
+        @PathVariable("id") long id,
+        @RequestParam(value="cursor", required=false) String cursor,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        validateElementExists(id);
+        return page(
+            cursor,
+            limit,
+            (afterId, limitPlusOne) -> elementService.getEndpointsOf(id, afterId, limitPlusOne),
+            Element::getId
+        );
+    }
+
+    private void validateElementExists(long id) throws ClientErrorException {
         Validator
-            .returnStatus(BAD_REQUEST)
-            .ifTrue(request.getB() < 0 && -1 * request.getB() >= numRequests)
-            .withErrorMessage(
-                "Was given b [" + request.getB() + "], which indicates that a is to reference the id of the " +
-                    request.getB() + "th element of this request; but the request only contains " + numRequests +
-                    " elements."
-            ).execute();
+            .returnStatus(NOT_FOUND)
+            .ifFalse(elementService.doesElementExist(id))
+            .withErrorMessage("Element with given id [" + id + "] does not exist")
+            .execute();
+    }
+
+    /**
+     * Get one page of a list keyed by ascending id. One more item than the limit is queried, to tell whether there is
+     * another page without a further round trip.
+     */
+    private <T> Page<T> page(String cursor, int limit, PageQuery<T> query, ToLongFunction<T> toId)
+        throws ClientErrorException {
+        Long afterId = Cursors.decode(cursor);
         Validator
             .returnStatus(BAD_REQUEST)
-            .ifFalse(request.getA() <= 0 || elementService.doesElementExist(request.getA()))
-            .withErrorMessage("Given a [" + request.getA() + "] does not exist")
+            .ifTrue(afterId == null)
+            .withErrorMessage("Given cursor [" + cursor + "] is not valid")
             .execute();
         Validator
             .returnStatus(BAD_REQUEST)
-            .ifFalse(request.getB() <= 0 || elementService.doesElementExist(request.getB()))
-            .withErrorMessage("Given b [" + request.getB() + "] does not exist")
+            .ifTrue(limit < 1 || limit > maxPageLimit)
+            .withErrorMessage("Given limit [" + limit + "] must be between 1 and " + maxPageLimit)
             .execute();
+        List<T> items = query.get(afterId, limit + 1);
+        if(items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        List<T> itemsInPage = Lists.newArrayList(items.subList(0, limit));
+        return new Page<>(itemsInPage, Cursors.encode(toId.applyAsLong(itemsInPage.get(limit - 1))));
+    }
+
+    @FunctionalInterface
+    private interface PageQuery<T> {
+        List<T> get(long afterId, int limit);
     }
-}
\ No newline at end of file
+}
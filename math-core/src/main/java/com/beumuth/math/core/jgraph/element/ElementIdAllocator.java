@@ -0,0 +1,140 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.core.internal.database.DatabaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hi/lo allocator for JGraphElement ids. Blocks of ids are leased from the IdAllocation table with a single atomic
+ * UPDATE, so any number of math-core instances can share one schema without handing out the same id twice. Ids within
+ * a leased block are handed out lock-free; only leasing a new block synchronizes. Ids in a block that is abandoned
+ * (because the instance stops, or a request doesn't fit in what remains) are never used, so ids may have gaps.
+ */
+@Service
+public class ElementIdAllocator {
+    public static final String SEQUENCE_NAME = "JGraphElement";
+
+    private static final Block EXHAUSTED = new Block(0, 0);
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Value("${jgraph.idAllocation.blockSize:1000}")
+    private int blockSize;
+
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>(EXHAUSTED);
+    private final Object leaseLock = new Object();
+
+    /**
+     * Make sure the sequence is ahead of every existing id, in case rows were inserted without going through the
+     * allocator.
+     */
+    @PostConstruct
+    public void initialize() {
+        databaseService
+            .getJdbcTemplate()
+            .update(
+                "UPDATE IdAllocation " +
+                "SET nextId = GREATEST(nextId, (SELECT COALESCE(MAX(id), 0) + 1 FROM JGraphElement)) " +
+                "WHERE name = ?",
+                SEQUENCE_NAME
+            );
+    }
+
+    public long allocate() {
+        return allocate(1);
+    }
+
+    /**
+     * @return The first of number contiguous, unused ids.
+     */
+    public long allocate(int number) {
+        if(number < 1) {
+            throw new IllegalArgumentException("Must allocate at least one id, not [" + number + "]");
+        }
+        Block block = currentBlock.get();
+        long first = block.next.getAndAdd(number);
+        if(first + number <= block.end) {
+            return first;
+        }
+        return allocateFromNewBlock(number);
+    }
+
+    /**
+     * Rewind the sequence to 1. Only safe when JGraphElement is empty and no other instance is allocating.
+     */
+    public void reset() {
+        synchronized(leaseLock) {
+            databaseService
+                .getJdbcTemplate()
+                .update("UPDATE IdAllocation SET nextId = 1 WHERE name = ?", SEQUENCE_NAME);
+            currentBlock.set(EXHAUSTED);
+        }
+    }
+
+    private long allocateFromNewBlock(int number) {
+        synchronized(leaseLock) {
+            //Another thread may have leased a block while this one waited
+            Block block = currentBlock.get();
+            long first = block.next.getAndAdd(number);
+            if(first + number <= block.end) {
+                return first;
+            }
+
+            //Requests at least as large as a block get a block of their own and leave the current block alone
+            if(number >= blockSize) {
+                return lease(number);
+            }
+            first = lease(blockSize);
+            currentBlock.set(new Block(first + number, first + blockSize));
+            return first;
+        }
+    }
+
+    /**
+     * Atomically advance the sequence by size. LAST_INSERT_ID(expr) is connection-scoped, so both statements must run
+     * on the same connection.
+     * @return The first id of the leased block.
+     */
+    private long lease(int size) {
+        long end = databaseService
+            .getJdbcTemplate()
+            .execute((ConnectionCallback<Long>) connection -> {
+                try(PreparedStatement update = connection.prepareStatement(
+                    "UPDATE IdAllocation SET nextId = LAST_INSERT_ID(nextId + ?) WHERE name = ?"
+                )) {
+                    update.setLong(1, size);
+                    update.setString(2, SEQUENCE_NAME);
+                    if(update.executeUpdate() != 1) {
+                        throw new IllegalStateException("No IdAllocation row for [" + SEQUENCE_NAME + "]");
+                    }
+                }
+                try(
+                    PreparedStatement select = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                    ResultSet rs = select.executeQuery()
+                ) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            });
+        return end - size;
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs with a block size of 7 so that the tests cross many block boundaries.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = "jgraph.idAllocation.blockSize=" + ElementIdAllocatorTests.BLOCK_SIZE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ElementIdAllocatorTests {
+    static final int BLOCK_SIZE = 7;
+
+    @Autowired
+    private ElementIdAllocator idAllocator;
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void allocateTest_acrossBlocks_shouldBeIncreasingAndUnique() {
+        long previous = idAllocator.allocate();
+        for(int i = 0; i < BLOCK_SIZE * 3; ++i) {
+            long id = idAllocator.allocate();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void allocateTest_doesNotFitInBlock_shouldStartNewBlock() {
+        idAllocator.reset();
+        assertEquals(1, idAllocator.allocate(BLOCK_SIZE - 1));
+        //Only id 7 is left in the block 1 to 7, so the rest of it is abandoned
+        assertEquals(BLOCK_SIZE + 1, idAllocator.allocate(2));
+    }
+
+    @Test
+    public void allocateTest_largerThanBlock_shouldGetOwnBlock() {
+        idAllocator.reset();
+        assertEquals(1, idAllocator.allocate());
+        assertEquals(BLOCK_SIZE + 1, idAllocator.allocate(BLOCK_SIZE * 3));
+        //The current block is left alone, so the next single id still comes from it
+        assertEquals(2, idAllocator.allocate());
+        assertEquals(BLOCK_SIZE * 4 + 1, idAllocator.allocate(BLOCK_SIZE));
+    }
+
+    @Test
+    public void allocateTest_lessThanOne_shouldThrow() {
+        try {
+            idAllocator.allocate(0);
+            fail();
+        } catch(IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void resetTest_shouldStartAgainFromOne() {
+        idAllocator.allocate(BLOCK_SIZE * 2);
+        idAllocator.reset();
+        assertEquals(1, idAllocator.allocate());
+        assertEquals(2, idAllocator.allocate());
+    }
+
+    @Test
+    public void allocateTest_concurrent_shouldNeverOverlap() throws Exception {
+        int numThreads = 16;
+        int numAllocationsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<List<long[]>>> futures = Lists.newArrayList();
+            for(int thread = 0; thread < numThreads; ++thread) {
+                long seed = thread;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    List<long[]> ranges = Lists.newArrayList();
+                    for(int i = 0; i < numAllocationsPerThread; ++i) {
+                        //Mostly single ids, some that span blocks
+                        int number = random.nextInt(10) == 0 ? 1 + random.nextInt(BLOCK_SIZE * 2) : 1;
+                        ranges.add(new long[] {idAllocator.allocate(number), number});
+                    }
+                    return ranges;
+                }));
+            }
+            List<long[]> ranges = Lists.newArrayList();
+            for(Future<List<long[]>> future : futures) {
+                ranges.addAll(future.get());
+            }
+            Collections.sort(ranges, (x, y) -> Long.compare(x[0], y[0]));
+            for(int i = 1; i < ranges.size(); ++i) {
+                long[] previous = ranges.get(i - 1);
+                assertTrue(
+                    "[" + previous[0] + ", +" + previous[1] + ") overlaps " + ranges.get(i)[0],
+                    previous[0] + previous[1] <= ranges.get(i)[0]
+                );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.core.internal.primitive.LongArrayList;
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+import com.beumuth.math.core.internal.primitive.LongObjectHashMap;
+import com.beumuth.math.core.internal.primitive.LongSortedSet;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory copy of the JGraphElement table held in primitive arrays: id -> (a, b) plus reverse indexes from a and
+ * from b to the ids that use them. The ElementService keeps it write-through so that read methods can be answered
+ * without a round trip to MySQL. All id arrays returned are sorted ascending, matching the ORDER BY id of the SQL
+ * queries they replace. The ids, the nodes, and the reverse indexes are kept in LongSortedSets, so a page of up to
+ * limit ids after afterId is read directly rather than by sorting everything that matches.
+ */
+public class ElementIndex {
+    private static final int NO_ROW = -1;
+    /**
+     * Ids are positive, so paging after this starts from the first.
+     */
+    private static final long BEFORE_ALL_IDS = 0;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap rowsById;
+    private final LongSortedSet ids;
+    private final LongObjectHashMap<LongSortedSet> idsByA;
+    private final LongObjectHashMap<LongSortedSet> idsByB;
+    private final LongSortedSet idsNodes;
+
+    private long[] rowAs;
+    private long[] rowBs;
+    private int numRows;
+    private int[] freeRows;
+    private int numFreeRows;
+
+    public ElementIndex() {
+        this(1024);
+    }
+
+    public ElementIndex(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        rowsById = new LongIntHashMap(capacity);
+        ids = new LongSortedSet();
+        idsByA = new LongObjectHashMap<>(capacity);
+        idsByB = new LongObjectHashMap<>(capacity);
+        idsNodes = new LongSortedSet();
+        rowAs = new long[capacity];
+        rowBs = new long[capacity];
+        freeRows = new int[16];
+    }
+
+    /**
+     * Insert the Element, or replace its a and b if it is already indexed.
+     */
+    public void put(long id, long a, long b) {
+        lock.writeLock().lock();
+        try {
+            int row = rowsById.get(id, NO_ROW);
+            if(row == NO_ROW) {
+                row = allocateRow();
+                rowsById.put(id, row, NO_ROW);
+                ids.add(id);
+            } else {
+                unlink(id, rowAs[row], rowBs[row]);
+            }
+            rowAs[row] = a;
+            rowBs[row] = b;
+            link(id, a, b);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowsById.remove(id, NO_ROW);
+            if(row == NO_ROW) {
+                return;
+            }
+            ids.remove(id);
+            unlink(id, rowAs[row], rowBs[row]);
+            releaseRow(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rowsById.clear();
+            ids.clear();
+            idsByA.clear();
+            idsByB.clear();
+            idsNodes.clear();
+            numRows = 0;
+            numFreeRows = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return rowsById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The Element with the given id, or null if it is not indexed.
+     */
+    public Element get(long id) {
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(id, NO_ROW);
+            return row == NO_ROW ? null : new Element(id, rowAs[row], rowBs[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isNode(long id) {
+        lock.readLock().lock();
+        try {
+            return idsNodes.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isPendantFrom(long id, long idFrom) {
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(id, NO_ROW);
+            return row != NO_ROW && rowAs[row] == idFrom && rowBs[row] == id;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isPendantTo(long id, long idTo) {
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(id, NO_ROW);
+            return row != NO_ROW && rowAs[row] == id && rowBs[row] == idTo;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isLoopOn(long id, long idOn) {
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(id, NO_ROW);
+            return row != NO_ROW && id != idOn && rowAs[row] == idOn && rowBs[row] == idOn;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Determine whether any <em>other</em> Elements have an a or b of the given id.
+     */
+    public boolean isEndpoint(long id) {
+        lock.readLock().lock();
+        try {
+            return containsOther(idsByA.get(id), id) || containsOther(idsByB.get(id), id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int numNodes() {
+        lock.readLock().lock();
+        try {
+            return idsNodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getAllIds() {
+        lock.readLock().lock();
+        try {
+            return ids.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsWithAOrB(long a, long b) {
+        return getIdsWithAOrB(a, b, BEFORE_ALL_IDS, Integer.MAX_VALUE);
+    }
+
+    public long[] getIdsWithAAndB(long a, long b) {
+        return getIdsWithAAndB(a, b, BEFORE_ALL_IDS, Integer.MAX_VALUE);
+    }
+
+    public long[] getIdsNodes() {
+        lock.readLock().lock();
+        try {
+            return idsNodes.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsPendantsFrom(long idFrom) {
+        return getIdsPendantsFrom(idFrom, BEFORE_ALL_IDS, Integer.MAX_VALUE);
+    }
+
+    public long[] getIdsPendantsTo(long idTo) {
+        return getIdsPendantsTo(idTo, BEFORE_ALL_IDS, Integer.MAX_VALUE);
+    }
+
+    public long[] getIdsLoopsOn(long idOn) {
+        return getIdsLoopsOn(idOn, BEFORE_ALL_IDS, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the ids of the non-identical Elements that have an a or b with the given id.
+     */
+    public long[] getIdsEndpointsOf(long id) {
+        return getIdsEndpointsOf(id, BEFORE_ALL_IDS, Integer.MAX_VALUE);
+    }
+
+    /*
+     * Pages of the id lists above: up to limit ids greater than afterId, in ascending order.
+     */
+
+    public long[] getAllIds(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return ids.after(afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsWithAOrB(long a, long b, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return union(idsByA.get(a), idsByB.get(b), BEFORE_ALL_IDS, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsWithAAndB(long a, long b, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return filter(idsByA.get(a), afterId, limit, id -> rowBs[rowsById.get(id, NO_ROW)] == b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsNodes(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return idsNodes.after(afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsPendantsFrom(long idFrom, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return filter(
+                idsByA.get(idFrom),
+                afterId,
+                limit,
+                id -> id != idFrom && rowBs[rowsById.get(id, NO_ROW)] == id
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsPendantsTo(long idTo, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return filter(
+                idsByB.get(idTo),
+                afterId,
+                limit,
+                id -> id != idTo && rowAs[rowsById.get(id, NO_ROW)] == id
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsLoopsOn(long idOn, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return filter(
+                idsByA.get(idOn),
+                afterId,
+                limit,
+                id -> id != idOn && rowBs[rowsById.get(id, NO_ROW)] == idOn
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getIdsEndpointsOf(long id, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return union(idsByA.get(id), idsByB.get(id), id, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean containsOther(LongSortedSet idsWith, long id) {
+        return idsWith != null && (idsWith.size() > 1 || (idsWith.size() == 1 && ! idsWith.contains(id)));
+    }
+
+    /**
+     * Merge the first ids of both sets after afterId, leaving out the excluded id. Each set can only contribute up to
+     * limit ids to the page, or one more if the excluded id is among them.
+     */
+    private static long[] union(LongSortedSet x, LongSortedSet y, long excluded, long afterId, int limit) {
+        int limitEach = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        long[] fromX = x == null ? new long[0] : x.after(afterId, limitEach);
+        long[] fromY = y == null ? new long[0] : y.after(afterId, limitEach);
+        LongArrayList result = new LongArrayList(Math.min(limit, fromX.length + fromY.length));
+        int i = 0;
+        int j = 0;
+        while(result.size() < limit && (i < fromX.length || j < fromY.length)) {
+            long id;
+            if(j == fromY.length || (i < fromX.length && fromX[i] < fromY[j])) {
+                id = fromX[i++];
+            } else if(i == fromX.length || fromY[j] < fromX[i]) {
+                id = fromY[j++];
+            } else {
+                id = fromX[i++];
+                ++j;
+            }
+            if(id != excluded) {
+                result.add(id);
+            }
+        }
+        return result.toArray();
+    }
+
+    private static long[] filter(LongSortedSet candidates, long afterId, int limit, LongPredicate predicate) {
+        LongArrayList matches = new LongArrayList();
+        if(candidates != null && limit > 0) {
+            candidates.forEachAfter(afterId, id -> {
+                if(predicate.test(id)) {
+                    matches.add(id);
+                }
+                return matches.size() < limit;
+            });
+        }
+        return matches.toArray();
+    }
+
+    private void link(long id, long a, long b) {
+        idsByA.computeIfAbsent(a, key -> new LongSortedSet()).add(id);
+        idsByB.computeIfAbsent(b, key -> new LongSortedSet()).add(id);
+        if(a == id && b == id) {
+            idsNodes.add(id);
+        }
+    }
+
+    private void unlink(long id, long a, long b) {
+        unlink(idsByA, a, id);
+        unlink(idsByB, b, id);
+        idsNodes.remove(id);
+    }
+
+    private void unlink(LongObjectHashMap<LongSortedSet> reverseIndex, long key, long id) {
+        LongSortedSet idsWith = reverseIndex.get(key);
+        if(idsWith != null) {
+            idsWith.remove(id);
+            if(idsWith.isEmpty()) {
+                reverseIndex.remove(key);
+            }
+        }
+    }
+
+    private int allocateRow() {
+        if(numFreeRows > 0) {
+            return freeRows[--numFreeRows];
+        }
+        if(numRows == rowAs.length) {
+            int capacity = rowAs.length * 2;
+            rowAs = Arrays.copyOf(rowAs, capacity);
+            rowBs = Arrays.copyOf(rowBs, capacity);
+        }
+        return numRows++;
+    }
+
+    private void releaseRow(int row) {
+        if(numFreeRows == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeRows.length * 2);
+        }
+        freeRows[numFreeRows++] = row;
+    }
+}
@@ -0,0 +1,152 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.ElementLockStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Makes validate-then-write sequences atomic against one another without serializing every writer. Each id hashes to
+ * one of a fixed number of lock stripes; a writer holds the stripes of every Element it validates or writes for the
+ * whole sequence, so two writers only wait on each other when they touch the same stripe. Stripes are always taken in
+ * ascending order, so writers cannot deadlock.
+ *
+ * A writer must lock every id whose state its validation depends on: a create locks its a and b (which a concurrent
+ * delete must not remove), a delete locks what it deletes (which a concurrent create or update must not start to
+ * reference), and an update locks both.
+ *
+ * The stripes only exclude writers within this JVM. Writers on other nodes sharing the database are not excluded, so
+ * running several nodes against one database reopens the validate-then-write races; those would need MySQL row locks
+ * (SELECT ... FOR UPDATE on what is validated) instead.
+ *
+ * Writers that act on a set of Elements found by following references, such as a component or a dependency closure,
+ * use lockClosure, since that set is only known once read and may grow before it is locked.
+ */
+@Service
+public class ElementLockManager {
+    @Value("${jgraph.locking.numStripes:1024}")
+    private int numStripes;
+
+    private ReentrantLock[] stripes;
+
+    private final AtomicLong numAcquisitions = new AtomicLong();
+    private final AtomicLong numContendedAcquisitions = new AtomicLong();
+    private final AtomicLong nanosecondsWaited = new AtomicLong();
+    private final AtomicLong maxNanosecondsWaited = new AtomicLong();
+
+    @PostConstruct
+    public void initialize() {
+        stripes = new ReentrantLock[Math.max(numStripes, 1)];
+        for(int i = 0; i < stripes.length; ++i) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lock the stripes of the given ids, blocking until all are held. Ids that are not positive (such as references
+     * to other Elements of a create request) are ignored.
+     * @return The held stripes, to be released by closing it, best in a try-with-resources.
+     */
+    public Locked lock(long... ids) {
+        int[] indexes = Arrays
+            .stream(ids)
+            .filter(id -> id > 0)
+            .mapToInt(this::stripeOf)
+            .sorted()
+            .distinct()
+            .toArray();
+        long start = System.nanoTime();
+        boolean contended = false;
+        int numLocked = 0;
+        try {
+            for(int index : indexes) {
+                if(! stripes[index].tryLock()) {
+                    contended = true;
+                    stripes[index].lock();
+                }
+                ++numLocked;
+            }
+        } finally {
+            if(numLocked < indexes.length) {
+                unlock(indexes, numLocked);
+            }
+        }
+        long waited = System.nanoTime() - start;
+        numAcquisitions.incrementAndGet();
+        if(contended) {
+            numContendedAcquisitions.incrementAndGet();
+        }
+        nanosecondsWaited.addAndGet(waited);
+        maxNanosecondsWaited.accumulateAndGet(waited, Math::max);
+        return new Locked(indexes);
+    }
+
+    /**
+     * Lock the Element with the given id together with the ids that read returns, where those are found by following
+     * references from it, such as its component or its dependency closure. Elements may join them between the read
+     * and the lock, so they are read again once locked, and locked afresh along with whatever joined until a read
+     * finds nothing new. From then on nothing can join them, since any write that would makes an Element reference
+     * one of them or changes one of them, and so must first lock it.
+     * @return The held stripes, to be released by closing it, best in a try-with-resources.
+     */
+    public Locked lockClosure(long id, Supplier<long[]> read) {
+        long[] ids = union(new long[] {id}, read.get());
+        while(true) {
+            Locked locked = lock(ids);
+            long[] idsRead = union(ids, read.get());
+            if(idsRead.length == ids.length) {
+                return locked;
+            }
+            locked.close();
+            ids = idsRead;
+        }
+    }
+
+    public ElementLockStatistics getStatistics() {
+        return new ElementLockStatistics(
+            stripes.length,
+            numAcquisitions.get(),
+            numContendedAcquisitions.get(),
+            nanosecondsWaited.get() / 1000,
+            maxNanosecondsWaited.get() / 1000
+        );
+    }
+
+    private int stripeOf(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (h ^ (h >>> 32)), stripes.length);
+    }
+
+    private static long[] union(long[] x, long[] y) {
+        return LongStream.concat(Arrays.stream(x), Arrays.stream(y)).sorted().distinct().toArray();
+    }
+
+    private void unlock(int[] indexes, int numLocked) {
+        for(int i = numLocked - 1; i >= 0; --i) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    public class Locked implements AutoCloseable {
+        private final int[] indexes;
+        private boolean released;
+
+        private Locked(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public void close() {
+            if(! released) {
+                released = true;
+                unlock(indexes, indexes.length);
+            }
+        }
+    }
+}
@@ -1,28 +1,60 @@
 package com.beumuth.math.core.jgraph.element;
 
+import com.beumuth.math.client.jgraph.BulkDeleteResult;
+import com.beumuth.math.client.jgraph.BulkInsertStatistics;
+import com.beumuth.math.client.jgraph.ComponentClone;
 import com.beumuth.math.client.jgraph.CreateElementRequest;
 import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.ElementCacheStatistics;
+import com.beumuth.math.client.jgraph.ElementKind;
+import com.beumuth.math.client.jgraph.ElementPair;
+import com.beumuth.math.client.jgraph.RewireResult;
 import com.beumuth.math.client.jgraph.UpdateElementRequest;
+import com.beumuth.math.client.jgraph.traversal.TraversalDirection;
 import com.beumuth.math.client.settheory.orderedset.OrderedSet;
 import com.beumuth.math.client.settheory.orderedset.OrderedSets;
+import com.beumuth.math.core.internal.database.BulkIdLookup;
 import com.beumuth.math.core.internal.database.DatabaseService;
 import com.beumuth.math.core.internal.database.MathBeanPropertyRowMapper;
+import com.beumuth.math.core.internal.invalidation.InvalidatedEntity;
+import com.beumuth.math.core.internal.invalidation.InvalidationBus;
+import com.beumuth.math.core.internal.invalidation.InvalidationEvent;
+import com.beumuth.math.core.internal.primitive.LongArrayList;
+import com.beumuth.math.core.internal.primitive.LongHashSet;
+import com.beumuth.math.core.internal.primitive.LongObjectHashMap;
 import com.beumuth.math.core.jgraph.component.ComponentService;
+import com.beumuth.math.core.jgraph.component.ConnectivityIndex;
+import com.beumuth.math.core.jgraph.traversal.TraversalService;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
 import org.assertj.core.util.Lists;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -33,11 +65,11 @@ public class ElementService {
     public static final MathBeanPropertyRowMapper<Element> ROW_MAPPER =
         MathBeanPropertyRowMapper.newInstance(Element.class);
     public static final ResultSetExtractor<OrderedSet<Long>> ID_ORDERED_SET_EXTRACTOR = rs -> {
-        OrderedSet<Long> result = OrderedSets.empty();
+        List<Long> result = Lists.newArrayList();
         while(rs.next()) {
             result.add(rs.getLong("id") == 0 ? null : rs.getLong("id"));
         }
-        return result;
+        return OrderedSets.with(result);
     };
     public static final ResultSetExtractor<List<Long>> ID_LIST_EXTRACTOR = rs -> {
         List<Long> result = Lists.newArrayList();
@@ -47,7 +79,7 @@ public class ElementService {
         return result;
     };
     public static final ResultSetExtractor<OrderedSet<Element>> ELEMENT_ORDERED_SET_EXTRACTOR = rs -> {
-        OrderedSet<Element> result = OrderedSets.empty();
+        List<Element> result = Lists.newArrayList();
         while(rs.next()) {
             long id = rs.getLong("id");
             long a = rs.getLong("a");
@@ -58,7 +90,7 @@ public class ElementService {
                 result.add(new Element(id, a, b));
             }
         }
-        return result;
+        return OrderedSets.with(result);
     };
     private static final ResultSetExtractor<List<Element>> ELEMENT_LIST_EXTRACTOR = rs -> {
         List<Element> result = Lists.newArrayList();
@@ -75,30 +107,140 @@ public class ElementService {
         return result;
     };
 
+    /**
+     * Computes the ElementKind code of a row from its (already assigned) id, a, and b, as ElementKind.of does
+     */
+    private static final String KIND_SQL =
+        "CASE " +
+            "WHEN a = id AND b = id THEN " + ElementKind.NODE.getCode() + " " +
+            "WHEN b = id THEN " + ElementKind.PENDANT_FROM.getCode() + " " +
+            "WHEN a = id THEN " + ElementKind.PENDANT_TO.getCode() + " " +
+            "WHEN a = b THEN " + ElementKind.LOOP.getCode() + " " +
+            "ELSE " + ElementKind.EDGE.getCode() + " " +
+        "END";
+
     @Autowired
     private ComponentService componentService;
 
     @Autowired
     private DatabaseService databaseService;
 
-    private AtomicLong nextId;
+    @Autowired
+    private ElementIdAllocator idAllocator;
+
+    @Autowired
+    private ElementBulkInserter bulkInserter;
+
+    @Autowired
+    private ElementBulkDeleter bulkDeleter;
+
+    @Autowired
+    private BulkIdLookup bulkIdLookup;
+
+    @Autowired
+    private ElementSnapshotService snapshotService;
+
+    @Autowired
+    private TraversalService traversalService;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * When enabled, the whole JGraphElement table is mirrored in an ElementIndex and all read methods are answered
+     * from memory instead of MySQL.
+     */
+    @Value("${jgraph.index.enabled:false}")
+    private boolean indexEnabled;
+
+    private ElementIndex index;
+
+    /**
+     * When enabled, concurrent single Element creates are grouped into multi-row inserts by an ElementWriteCoalescer,
+     * trading up to maxDelayMillis of latency per create for far fewer transactions.
+     */
+    @Value("${jgraph.writeCoalescing.enabled:false}")
+    private boolean writeCoalescingEnabled;
+
+    @Value("${jgraph.writeCoalescing.maxBatchSize:500}")
+    private int writeCoalescingMaxBatchSize;
+
+    @Value("${jgraph.writeCoalescing.maxDelayMillis:2}")
+    private long writeCoalescingMaxDelayMillis;
+
+    private ElementWriteCoalescer writeCoalescer;
+
+    /**
+     * When enabled (and the index is not), getElement, doesElementExist and isElementNode are answered from a bounded
+     * ElementCache of the most frequently read Elements, including ones found not to exist.
+     */
+    @Value("${jgraph.cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    @Value("${jgraph.cache.capacity:100000}")
+    private int cacheCapacity;
+
+    private ElementCache cache;
 
     @PostConstruct
     public void initialize() {
-        Long maxId = databaseService
-            .getJdbcTemplate()
-            .queryForObject(
-                "SELECT MAX(id) FROM JGraphElement",
-                Long.class
+        if(writeCoalescingEnabled) {
+            writeCoalescer = new ElementWriteCoalescer(
+                this::createElements,
+                this::insertElement,
+                writeCoalescingMaxBatchSize,
+                writeCoalescingMaxDelayMillis
             );
-        if(maxId != null) {
-            nextId = new AtomicLong(maxId + 1);
-        } else {
-            reset();
         }
+        if(indexEnabled) {
+            index = new ElementIndex();
+            warmIndex();
+            invalidationBus.warnIfNotShared("The Element index");
+        } else if(cacheEnabled) {
+            cache = new ElementCache(cacheCapacity);
+            invalidationBus.warnIfNotShared("The Element cache");
+        }
+        invalidationBus.subscribe(InvalidatedEntity.JGRAPH_ELEMENT, this::onElementsInvalidated);
+    }
+
+    /**
+     * Keep the snapshot fresh so that the next startup has little to replay.
+     */
+    @PreDestroy
+    public void destroy() {
+        if(writeCoalescer != null) {
+            writeCoalescer.shutdown();
+        }
+        if(snapshotService.isEnabled()) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Write every Element to the local snapshot file used to warm in-memory indexes at startup.
+     */
+    public void writeSnapshot() {
+        //Read the revision first; any change made while the Elements are read is then replayed on load
+        long revision = snapshotService.getSnapshotRevision();
+        ElementColumns elements = getAllElementColumns();
+        snapshotService.write(revision, elements.getIds(), elements.getAs(), elements.getBs());
+    }
+
+    public boolean isSnapshotEnabled() {
+        return snapshotService.isEnabled();
+    }
+
+    public boolean isIndexed() {
+        return index != null;
     }
 
     public boolean doesElementExist(long id) {
+        if(index != null) {
+            return index.contains(id);
+        }
+        if(cache != null) {
+            return getThroughCache(id) != ElementCache.ABSENT;
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -113,6 +255,9 @@ public class ElementService {
     }
 
     public boolean doAnyElementsExist(Set<Long> ids) {
+        if(index != null) {
+            return ids.stream().anyMatch(index::contains);
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -127,6 +272,9 @@ public class ElementService {
     }
 
     public boolean doAllElementsExist(Set<Long> ids) {
+        if(index != null) {
+            return ids.stream().allMatch(index::contains);
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .queryForObject(
@@ -148,124 +296,196 @@ public class ElementService {
     }
 
     public boolean isElementNode(long idElement) {
+        if(index != null) {
+            requireIndexed(idElement);
+            return index.isNode(idElement);
+        }
+        if(cache != null) {
+            Element element = requireExists(getThroughCache(idElement));
+            return element.getA() == idElement && element.getB() == idElement;
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .queryForObject(
-                "SELECT a=id AND b=id FROM JGraphElement WHERE id=:idElement",
-                ImmutableMap.of("idElement", idElement),
+                "SELECT kind=:kind FROM JGraphElement WHERE id=:idElement",
+                ImmutableMap.of(
+                    "idElement", idElement,
+                    "kind", ElementKind.NODE.getCode()
+                ),
                 Boolean.class
             );
     }
 
     public List<Boolean> areElementsNodes(OrderedSet<Long> idElements) {
-        return databaseService
+        if(index != null) {
+            return idElements
+                .stream()
+                .map(index::isNode)
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(idElements.size())) {
+            return mapRowsIn(idElements, (id, row) -> row != null && row.kind == ElementKind.NODE);
+        }
+        return bulkIdLookup.query(idElements, () -> databaseService
             .getNamedParameterJdbcTemplate()
             .queryForList(
                 "SELECT " +
-                    "j.a IS NOT NULL AND j.a=id AND j.b=id " +
+                    "j.id IS NOT NULL AND j.kind=:kind " +
                 "FROM " +
-                    "(VALUES " + idElements
-                        .stream()
-                        .map(id -> "ROW(" + id + ")")
-                        .collect(Collectors.joining(",")) +
-                    ") ids LEFT JOIN JGraphElement j " +
-                        "ON ids.column_0 = j.id",
-                ImmutableMap.of("idElements", idElements),
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                        "ON ids.idLookup = j.id " +
+                "ORDER BY ids.position",
+                ImmutableMap.of("kind", ElementKind.NODE.getCode()),
                 Boolean.class
-            );
+            )
+        );
     }
 
     public boolean isElementPendantFrom(long idElement, long idFrom) {
+        if(index != null) {
+            requireIndexed(idElement);
+            return index.isPendantFrom(idElement, idFrom);
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .queryForObject(
-                "SELECT a=:idFrom AND b=id FROM JGraphElement WHERE id=:idElement",
+                "SELECT kind=:kind AND a=:idFrom FROM JGraphElement WHERE id=:idElement",
                 ImmutableMap.of(
                     "idElement", idElement,
-                    "idFrom", idFrom
+                    "idFrom", idFrom,
+                    "kind", ElementKind.PENDANT_FROM.getCode()
                 ),
                 Boolean.class
             );
     }
 
     public List<Boolean> areElementsPendantsFrom(OrderedSet<Long> idElements, long idFrom) {
-        return databaseService
+        if(index != null) {
+            return idElements
+                .stream()
+                .map(id -> id != idFrom && index.isPendantFrom(id, idFrom))
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(idElements.size())) {
+            return mapRowsIn(
+                idElements,
+                (id, row) -> row != null && row.kind == ElementKind.PENDANT_FROM && row.element.getA() == idFrom
+            );
+        }
+        return bulkIdLookup.query(idElements, () -> databaseService
             .getNamedParameterJdbcTemplate()
             .queryForList(
                 "SELECT " +
-                    "j.a IS NOT NULL AND id != :idFrom AND j.a=:idFrom AND j.b=id " +
+                    "j.id IS NOT NULL AND j.kind=:kind AND j.a=:idFrom " +
                 "FROM " +
-                    "(VALUES " + idElements
-                        .stream()
-                        .map(id -> "ROW(" + id + ")")
-                        .collect(Collectors.joining(",")) +
-                ") ids LEFT JOIN JGraphElement j " +
-                    "ON ids.column_0 = j.id",
-                ImmutableMap.of("idElements", idElements, "idFrom", idFrom),
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                    "ON ids.idLookup = j.id " +
+                "ORDER BY ids.position",
+                ImmutableMap.of(
+                    "idFrom", idFrom,
+                    "kind", ElementKind.PENDANT_FROM.getCode()
+                ),
                 Boolean.class
-            );
+            )
+        );
     }
 
     public boolean isElementPendantTo(long idElement, long idTo) {
+        if(index != null) {
+            requireIndexed(idElement);
+            return index.isPendantTo(idElement, idTo);
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .queryForObject(
-                "SELECT a=id AND b=:idTo FROM JGraphElement WHERE id=:idElement",
+                "SELECT kind=:kind AND b=:idTo FROM JGraphElement WHERE id=:idElement",
                 ImmutableMap.of(
                     "idElement", idElement,
-                    "idTo", idTo
+                    "idTo", idTo,
+                    "kind", ElementKind.PENDANT_TO.getCode()
                 ),
                 Boolean.class
             );
     }
 
     public List<Boolean> areElementsPendantsTo(OrderedSet<Long> idElements, long idTo) {
-        return databaseService
+        if(index != null) {
+            return idElements
+                .stream()
+                .map(id -> id != idTo && index.isPendantTo(id, idTo))
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(idElements.size())) {
+            return mapRowsIn(
+                idElements,
+                (id, row) -> row != null && row.kind == ElementKind.PENDANT_TO && row.element.getB() == idTo
+            );
+        }
+        return bulkIdLookup.query(idElements, () -> databaseService
             .getNamedParameterJdbcTemplate()
             .queryForList(
                 "SELECT " +
-                    "j.a IS NOT NULL AND id != :idTo AND j.a=id AND j.b=:idTo " +
+                    "j.id IS NOT NULL AND j.kind=:kind AND j.b=:idTo " +
                 "FROM " +
-                    "(VALUES " + idElements
-                        .stream()
-                        .map(id -> "ROW(" + id + ")")
-                        .collect(Collectors.joining(",")) +
-                    ") ids LEFT JOIN JGraphElement j " +
-                    "ON ids.column_0 = j.id",
-                ImmutableMap.of("idElements", idElements, "idTo", idTo),
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                    "ON ids.idLookup = j.id " +
+                "ORDER BY ids.position",
+                ImmutableMap.of(
+                    "idTo", idTo,
+                    "kind", ElementKind.PENDANT_TO.getCode()
+                ),
                 Boolean.class
-            );
+            )
+        );
     }
 
     public boolean isElementLoopOn(long idElement, long idOn) {
+        if(index != null) {
+            requireIndexed(idElement);
+            return index.isLoopOn(idElement, idOn);
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .queryForObject(
-                "SELECT id!=:idOn AND a=:idOn AND b=:idOn FROM JGraphElement WHERE id=:idElement",
+                "SELECT kind=:kind AND a=:idOn FROM JGraphElement WHERE id=:idElement",
                 ImmutableMap.of(
                     "idElement", idElement,
-                    "idOn", idOn
+                    "idOn", idOn,
+                    "kind", ElementKind.LOOP.getCode()
                 ),
                 Boolean.class
             );
     }
 
     public List<Boolean> areElementsLoopsOn(OrderedSet<Long> idElements, long idOn) {
-        return databaseService
+        if(index != null) {
+            return idElements
+                .stream()
+                .map(id -> index.isLoopOn(id, idOn))
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(idElements.size())) {
+            return mapRowsIn(
+                idElements,
+                (id, row) -> row != null && row.kind == ElementKind.LOOP && row.element.getA() == idOn
+            );
+        }
+        return bulkIdLookup.query(idElements, () -> databaseService
             .getNamedParameterJdbcTemplate()
             .queryForList(
                 "SELECT " +
-                    "j.a IS NOT NULL AND ids.column_0 != :idOn AND j.a = :idOn AND j.b = :idOn " +
+                    "j.id IS NOT NULL AND j.kind = :kind AND j.a = :idOn " +
                 "FROM " +
-                    "(VALUES " + idElements
-                        .stream()
-                        .map(id -> "ROW(" + id + ")")
-                        .collect(Collectors.joining(",")) +
-                    ") ids LEFT JOIN JGraphElement j " +
-                        "ON ids.column_0 = j.id",
-                ImmutableMap.of("idElements", idElements, "idOn", idOn),
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                        "ON ids.idLookup = j.id " +
+                "ORDER BY ids.position",
+                ImmutableMap.of(
+                    "idOn", idOn,
+                    "kind", ElementKind.LOOP.getCode()
+                ),
                 Boolean.class
-            );
+            )
+        );
     }
 
     /**
@@ -275,10 +495,13 @@ public class ElementService {
      * @return
      */
     public boolean isElementEndpoint(long id) {
+        if(index != null) {
+            return index.isEndpoint(id);
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .queryForObject(
-                "SELECT COUNT(1)  FROM JGraphElement WHERE id != :id AND (a=:id OR b=:id)",
+                "SELECT EXISTS(SELECT 1 FROM JGraphElement WHERE id=:id AND endpointCount > 0)",
                 ImmutableMap.of("id", id),
                 Boolean.class
             );
@@ -291,26 +514,27 @@ public class ElementService {
      * @return
      */
     public List<Boolean> areElementsEndpoints(OrderedSet<Long> ids) {
-        return databaseService
-            .getNamedParameterJdbcTemplate()
+        if(index != null) {
+            return ids
+                .stream()
+                .map(index::isEndpoint)
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.size())) {
+            return mapRowsIn(ids, (id, row) -> row != null && row.endpointCount > 0);
+        }
+        return bulkIdLookup.query(ids, () -> databaseService
+            .getJdbcTemplate()
             .queryForList(
                 "SELECT " +
-                    "j.id IS NOT NULL AS isEndpoint " +
+                    "j.id IS NOT NULL AND j.endpointCount > 0 " +
                 "FROM " +
-                    "(VALUES " +
-                        ids
-                            .stream()
-                            .map(id -> "ROW (" + id + ")")
-                            .collect(Collectors.joining(",")) +
-                    ") AS ids LEFT JOIN JGraphElement j ON " +
-                        "ids.column_0 != j.id AND (" +
-                            "ids.column_0 = j.a OR " +
-                            "ids.column_0 = j.b" +
-                        ") " +
-                "GROUP BY ids.column_0",
-                ImmutableMap.of("ids", ids),
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                        "ON ids.idLookup = j.id " +
+                "ORDER BY ids.position",
                 Boolean.class
-            );
+            )
+        );
     }
 
     /**
@@ -321,10 +545,46 @@ public class ElementService {
      * @return
      */
     public boolean areElementsConnected(long x, long y) {
-        return componentService.getComponentIds(x).contains(y);
+        return componentService.areElementsConnected(x, y);
+    }
+
+    /**
+     * For each pair, are its Elements connected?
+     * In the case that either Element of a pair does not exist, that pair is not connected.
+     */
+    public List<Boolean> areElementsConnected(List<ElementPair> pairs) {
+        return componentService.areElementsConnected(pairs);
+    }
+
+    /**
+     * Get the ids of the Elements on a shortest path from x to y.
+     * In the case that x and y are not connected, or either does not exist, returns an empty OrderedSet.
+     * @param x The id of Element x
+     * @param y The id of Element y
+     * @return
+     */
+    public OrderedSet<Long> getShortestPath(long x, long y) {
+        return componentService.getShortestPath(x, y);
+    }
+
+    /**
+     * See ComponentService.getComponentIds
+     */
+    public OrderedSet<Long> getComponentIds(long id) {
+        return componentService.getComponentIds(id);
+    }
+
+    /**
+     * See ComponentService.cloneComponent
+     */
+    public ComponentClone cloneComponent(long id) {
+        return componentService.cloneComponent(id);
     }
 
     public int numElementsWithAOrB(long a, long b) {
+        if(index != null) {
+            return index.getIdsWithAOrB(a, b).length;
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -339,6 +599,9 @@ public class ElementService {
     }
 
     public int numElementsWithAAndB(long a, long b) {
+        if(index != null) {
+            return index.getIdsWithAAndB(a, b).length;
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -353,16 +616,16 @@ public class ElementService {
     }
 
     public int numNodes() {
+        if(index != null) {
+            return index.numNodes();
+        }
         try {
             return databaseService
                 .getJdbcTemplate()
                 .queryForObject(
-                    "SELECT COUNT(1) " +
-                    "FROM JGraphElement " +
-                    "WHERE " +
-                        "a = id AND " +
-                        "b = id ",
-                    Integer.class
+                    "SELECT COUNT(1) FROM JGraphElement WHERE kind = ?",
+                    Integer.class,
+                    ElementKind.NODE.getCode()
                 );
         } catch(EmptyResultDataAccessException e) {
             return 0;
@@ -370,6 +633,9 @@ public class ElementService {
     }
 
     public int numPendantsFrom(long idFrom) {
+        if(index != null) {
+            return index.getIdsPendantsFrom(idFrom).length;
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -377,10 +643,12 @@ public class ElementService {
                     "SELECT COUNT(1) " +
                     "FROM JGraphElement " +
                     "WHERE " +
-                        "id != :idFrom AND " +
-                        "a = :idFrom AND " +
-                        "b = id ",
-                    ImmutableMap.of("idFrom", idFrom),
+                        "kind = :kind AND " +
+                        "a = :idFrom",
+                    ImmutableMap.of(
+                        "idFrom", idFrom,
+                        "kind", ElementKind.PENDANT_FROM.getCode()
+                    ),
                     Integer.class
                 );
         } catch(EmptyResultDataAccessException e) {
@@ -389,6 +657,9 @@ public class ElementService {
     }
 
     public int numPendantsTo(long idTo) {
+        if(index != null) {
+            return index.getIdsPendantsTo(idTo).length;
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -396,10 +667,12 @@ public class ElementService {
                     "SELECT COUNT(1) " +
                     "FROM JGraphElement " +
                     "WHERE " +
-                        "id != :idTo AND " +
-                        "a = id AND " +
-                        "b = :idTo ",
-                    ImmutableMap.of("idTo", idTo),
+                        "kind = :kind AND " +
+                        "b = :idTo",
+                    ImmutableMap.of(
+                        "idTo", idTo,
+                        "kind", ElementKind.PENDANT_TO.getCode()
+                    ),
                     Integer.class
                 );
         } catch(EmptyResultDataAccessException e) {
@@ -408,6 +681,9 @@ public class ElementService {
     }
 
     public int numLoopsOn(long idOn) {
+        if(index != null) {
+            return index.getIdsLoopsOn(idOn).length;
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -415,10 +691,12 @@ public class ElementService {
                     "SELECT COUNT(1) " +
                     "FROM JGraphElement " +
                     "WHERE " +
-                        "id != :idOn AND " +
-                        "a = :idOn AND " +
-                        "b = :idOn ",
-                    ImmutableMap.of("idOn", idOn),
+                        "kind = :kind AND " +
+                        "a = :idOn",
+                    ImmutableMap.of(
+                        "idOn", idOn,
+                        "kind", ElementKind.LOOP.getCode()
+                    ),
                     Integer.class
                 );
         } catch(EmptyResultDataAccessException e) {
@@ -427,6 +705,9 @@ public class ElementService {
     }
 
     public OrderedSet<Long> getAllIds() {
+        if(index != null) {
+            return toIdOrderedSet(index.getAllIds());
+        }
         return databaseService
             .getJdbcTemplate()
             .query(
@@ -435,51 +716,145 @@ public class ElementService {
             );
     }
 
+    /**
+     * Pass the id of every Element to the consumer in ascending order, without holding them all in memory.
+     */
+    public void forEachId(LongConsumer consumer) {
+        if(index != null) {
+            Arrays.stream(index.getAllIds()).forEach(consumer);
+            return;
+        }
+        databaseService
+            .getStreamingJdbcTemplate()
+            .query(
+                "SELECT id FROM JGraphElement ORDER BY id",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1))
+            );
+    }
+
     /**
      * Get the ids of Elements that exist with the given list of ids. If an Element with an id at index i does not
      * exist, then the value at index i in the returned list will be null.
      */
     public List<Long> getIds(OrderedSet<Long> ids) {
-        return databaseService
-            .getNamedParameterJdbcTemplate()
+        if(index != null) {
+            return ids
+                .stream()
+                .map(id -> index.contains(id) ? id : null)
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.size())) {
+            return mapRowsIn(ids, (id, row) -> row == null ? null : id);
+        }
+        return bulkIdLookup.query(ids, () -> databaseService
+            .getJdbcTemplate()
             .query(
                 "SELECT " +
                     "j.id " +
                 "FROM " +
-                    "(VALUES " +
-                        ids
-                            .stream()
-                            .map(i -> "ROW(" + i + ")")
-                            .collect(Collectors.joining(",")) +
-                    ") ids LEFT JOIN JGraphElement j " +
-                        "ON ids.column_0 = j.id ",
-                ImmutableMap.of("ids", ids),
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                        "ON ids.idLookup = j.id " +
+                "ORDER BY ids.position",
                 ID_LIST_EXTRACTOR
-            );
+            )
+        );
+    }
+
+    /**
+     * Pass each of the Elements with the given ids that exists to the consumer, in no particular order.
+     */
+    public void forEachElementIn(long[] ids, ElementConsumer consumer) {
+        if(index != null) {
+            for(long id : ids) {
+                Element element = index.get(id);
+                if(element != null) {
+                    consumer.accept(element.getId(), element.getA(), element.getB());
+                }
+            }
+            return;
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.length)) {
+            forEachRowWhere("id IN (:ids)", ids, consumer);
+            return;
+        }
+        bulkIdLookup.query(ids, () -> {
+            databaseService
+                .getJdbcTemplate()
+                .query(
+                    "SELECT j.id, j.a, j.b FROM IdLookup ids JOIN JGraphElement j ON j.id = ids.idLookup",
+                    (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3))
+                );
+            return null;
+        });
+    }
+
+    /**
+     * Pass each Element whose a or b is one of the given ids to the consumer, in no particular order. An Element may be
+     * passed more than once.
+     */
+    public void forEachElementWithAOrBIn(long[] ids, ElementConsumer consumer) {
+        if(index != null) {
+            for(long id : ids) {
+                for(long idWith : index.getIdsWithAOrB(id, id)) {
+                    Element element = index.get(idWith);
+                    if(element != null) {
+                        consumer.accept(element.getId(), element.getA(), element.getB());
+                    }
+                }
+            }
+            return;
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.length)) {
+            forEachRowWhere("a IN (:ids) OR b IN (:ids)", ids, consumer);
+            return;
+        }
+        //A temporary table can only be referenced once per statement, so a and b are separate queries
+        bulkIdLookup.query(ids, () -> {
+            for(String column : new String[] {"a", "b"}) {
+                databaseService
+                    .getJdbcTemplate()
+                    .query(
+                        "SELECT j.id, j.a, j.b FROM IdLookup ids JOIN JGraphElement j ON j." + column + " = ids.idLookup",
+                        (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3))
+                    );
+            }
+            return null;
+        });
     }
 
     public OrderedSet<Long> getIdsThatDoNotExist(OrderedSet<Long> ids) {
-        return databaseService
-            .getNamedParameterJdbcTemplate()
+        if(index != null) {
+            return ids
+                .stream()
+                .filter(id -> ! index.contains(id))
+                .collect(Collectors.toCollection(OrderedSet::new));
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.size())) {
+            return mapRowsIn(ids, (id, row) -> row == null ? id : null)
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(OrderedSet::new));
+        }
+        return bulkIdLookup.query(ids, () -> databaseService
+            .getJdbcTemplate()
             .query(
                 "SELECT " +
-                    "ids.column_0 AS id " +
+                    "ids.idLookup AS id " +
                 "FROM " +
-                    "(VALUES " +
-                        ids
-                            .stream()
-                            .map(i -> "ROW(" + i + ")")
-                            .collect(Collectors.joining(",")) +
-                    ") ids LEFT JOIN JGraphElement j " +
-                        "ON ids.column_0 = j.id " +
-                "WHERE j.id IS NULL",
-                ImmutableMap.of("ids", ids),
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                        "ON ids.idLookup = j.id " +
+                "WHERE j.id IS NULL " +
+                "ORDER BY ids.position",
                 ID_ORDERED_SET_EXTRACTOR
-            );
+            )
+        );
     }
 
 
     public OrderedSet<Long> getIdsWithAOrB(long a, long b) {
+        if(index != null) {
+            return toIdOrderedSet(index.getIdsWithAOrB(a, b));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -494,6 +869,9 @@ public class ElementService {
     }
 
     public OrderedSet<Long> getIdsWithAAndB(long a, long b) {
+        if(index != null) {
+            return toIdOrderedSet(index.getIdsWithAAndB(a, b));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -508,57 +886,76 @@ public class ElementService {
     }
 
     public OrderedSet<Long> getIdsNodes() {
+        if(index != null) {
+            return toIdOrderedSet(index.getIdsNodes());
+        }
         return databaseService
             .getJdbcTemplate()
             .query(
                 "SELECT id " +
                 "FROM JGraphElement " +
-                "WHERE a = id AND b = id",
-                ID_ORDERED_SET_EXTRACTOR
+                "WHERE kind = ?",
+                ID_ORDERED_SET_EXTRACTOR,
+                ElementKind.NODE.getCode()
             );
     }
 
     public OrderedSet<Long> getIdsPendantsFrom(long idFrom) {
+        if(index != null) {
+            return toIdOrderedSet(index.getIdsPendantsFrom(idFrom));
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .query(
                 "SELECT id " +
                 "FROM JGraphElement " +
                 "WHERE " +
-                    "id != :idFrom AND " +
-                    "a = :idFrom AND " +
-                    "b = id",
-                ImmutableMap.of("idFrom", idFrom),
+                    "kind = :kind AND " +
+                    "a = :idFrom",
+                ImmutableMap.of(
+                    "idFrom", idFrom,
+                    "kind", ElementKind.PENDANT_FROM.getCode()
+                ),
                 ID_ORDERED_SET_EXTRACTOR
             );
 }
 
     public OrderedSet<Long> getIdsPendantsTo(long idTo) {
+        if(index != null) {
+            return toIdOrderedSet(index.getIdsPendantsTo(idTo));
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .query(
                 "SELECT id " +
                 "FROM JGraphElement " +
                 "WHERE " +
-                    "id != :idTo AND " +
-                    "a = id AND " +
+                    "kind = :kind AND " +
                     "b = :idTo",
-                ImmutableMap.of("idTo", idTo),
+                ImmutableMap.of(
+                    "idTo", idTo,
+                    "kind", ElementKind.PENDANT_TO.getCode()
+                ),
                 ID_ORDERED_SET_EXTRACTOR
             );
     }
 
     public OrderedSet<Long> getIdsLoopsOn(long idOn) {
+        if(index != null) {
+            return toIdOrderedSet(index.getIdsLoopsOn(idOn));
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .query(
                 "SELECT id " +
                 "FROM JGraphElement " +
                 "WHERE " +
-                    "id != :idOn AND " +
-                    "a = :idOn AND " +
-                    "b = :idOn",
-                ImmutableMap.of("idOn", idOn),
+                    "kind = :kind AND " +
+                    "a = :idOn",
+                ImmutableMap.of(
+                    "idOn", idOn,
+                    "kind", ElementKind.LOOP.getCode()
+                ),
                 ID_ORDERED_SET_EXTRACTOR
             );
     }
@@ -568,6 +965,9 @@ public class ElementService {
      * an a or b with the given id.
      */
     public OrderedSet<Long> getIdsEndpointsOf(long id) {
+        if(index != null) {
+            return toIdOrderedSet(index.getIdsEndpointsOf(id));
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .query(
@@ -578,25 +978,29 @@ public class ElementService {
     }
 
     public List<OrderedSet<Long>> getIdsEndpointsOfForEach(OrderedSet<Long> ids) {
-        return databaseService
+        if(index != null) {
+            return ids
+                .stream()
+                .map(id -> toIdOrderedSet(index.getIdsEndpointsOf(id)))
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.size())) {
+            return getEndpointsOfEachIn(ids, Element::getId);
+        }
+        return bulkIdLookup.query(ids, () -> databaseService
             .getJdbcTemplate()
             .query(
                 "SELECT " +
-                    "ids.column_0 AS idElement, " +
+                    "ids.idLookup AS idElement, " +
                     "j.id AS idEndpoint " +
-                "FROM (" +
-                    "VALUES " +
-                        ids
-                            .stream()
-                            .map(id -> "ROW(" + id + ")")
-                            .collect(Collectors.joining(",")) +
-                    ") AS ids LEFT JOIN JGraphElement j ON " +
-                        "j.id != ids.column_0 AND ( " +
-                            "j.a = ids.column_0 OR " +
-                            "j.b = ids.column_0 " +
+                "FROM " +
+                    "IdLookup ids LEFT JOIN JGraphElement j ON " +
+                        "j.id != ids.idLookup AND ( " +
+                            "j.a = ids.idLookup OR " +
+                            "j.b = ids.idLookup " +
                         ") " +
                     "ORDER BY " +
-                        "idElement, " +
+                        "ids.position, " +
                         "idEndpoint",
                 new ResultSetExtractor<List<OrderedSet<Long>>>() {
                     @Override
@@ -622,10 +1026,139 @@ public class ElementService {
                         return result;
                     }
                 }
+            )
+        );
+    }
+
+    /*
+     * Keyset-paginated versions of the id lists above: up to limit ids greater than afterId, in ascending order.
+     */
+
+    public List<Long> getAllIds(long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getAllIds(afterId, limit),
+            "TRUE",
+            ImmutableMap.of(),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Long> getIdsWithAOrB(long a, long b, long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getIdsWithAOrB(a, b, afterId, limit),
+            "(a = :a OR b = :b)",
+            ImmutableMap.of(
+                "a", a,
+                "b", b
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Long> getIdsWithAAndB(long a, long b, long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getIdsWithAAndB(a, b, afterId, limit),
+            "a = :a AND b = :b",
+            ImmutableMap.of(
+                "a", a,
+                "b", b
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Long> getIdsNodes(long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getIdsNodes(afterId, limit),
+            "kind = :kind",
+            ImmutableMap.of("kind", ElementKind.NODE.getCode()),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Long> getIdsPendantsFrom(long idFrom, long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getIdsPendantsFrom(idFrom, afterId, limit),
+            "kind = :kind AND a = :idFrom",
+            ImmutableMap.of(
+                "idFrom", idFrom,
+                "kind", ElementKind.PENDANT_FROM.getCode()
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Long> getIdsPendantsTo(long idTo, long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getIdsPendantsTo(idTo, afterId, limit),
+            "kind = :kind AND b = :idTo",
+            ImmutableMap.of(
+                "idTo", idTo,
+                "kind", ElementKind.PENDANT_TO.getCode()
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Long> getIdsLoopsOn(long idOn, long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getIdsLoopsOn(idOn, afterId, limit),
+            "kind = :kind AND a = :idOn",
+            ImmutableMap.of(
+                "idOn", idOn,
+                "kind", ElementKind.LOOP.getCode()
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Long> getIdsEndpointsOf(long id, long afterId, int limit) {
+        return getIdsPage(
+            () -> index.getIdsEndpointsOf(id, afterId, limit),
+            "id != :id AND (a = :id OR b = :id)",
+            ImmutableMap.of("id", id),
+            afterId,
+            limit
+        );
+    }
+
+    private List<Long> getIdsPage(
+        Supplier<long[]> fromIndex,
+        String condition,
+        Map<String, ?> parameters,
+        long afterId,
+        int limit
+    ) {
+        if(index != null) {
+            return Arrays
+                .stream(fromIndex.get())
+                .boxed()
+                .collect(Collectors.toList());
+        }
+        return databaseService
+            .getNamedParameterJdbcTemplate()
+            .queryForList(
+                "SELECT id FROM JGraphElement WHERE " + condition + " AND id > :afterId ORDER BY id LIMIT :limit",
+                withPage(parameters, afterId, limit),
+                Long.class
             );
     }
 
     public Element getElement(long id) {
+        if(index != null) {
+            requireIndexed(id);
+            return index.get(id);
+        }
+        if(cache != null) {
+            return requireExists(getThroughCache(id));
+        }
         return databaseService
             .getNamedParameterJdbcTemplate()
             .queryForObject(
@@ -636,6 +1169,9 @@ public class ElementService {
     }
 
     public OrderedSet<Element> getAllElements() {
+        if(index != null) {
+            return toElementOrderedSet(index.getAllIds());
+        }
         return databaseService
             .getJdbcTemplate()
             .query(
@@ -645,31 +1181,76 @@ public class ElementService {
     }
 
     /**
-     * Get the Elements that exist with the given list of ids. If an Element with an id at index i does not exist,
-     * then the value at index i in the returned list will be null.
+     * Pass every Element to the consumer in ascending order of id, without holding them all in memory.
      */
-    public List<Element> getElements(OrderedSet<Long> ids) {
-        return databaseService
-            .getNamedParameterJdbcTemplate()
+    public void forEachElement(ElementConsumer consumer) {
+        if(index != null) {
+            for(long id : index.getAllIds()) {
+                Element element = index.get(id);
+                //It may have been deleted since the ids were read
+                if(element != null) {
+                    consumer.accept(element.getId(), element.getA(), element.getB());
+                }
+            }
+            return;
+        }
+        databaseService
+            .getStreamingJdbcTemplate()
             .query(
-                "SELECT " +
-                    "ids.column_0 AS id, " +
-                    "j.a AS a, " +
-                    "j.b AS b " +
-                "FROM " +
-                    "(VALUES " +
-                        ids
-                            .stream()
-                            .map(i -> "ROW(" + i + ")")
-                            .collect(Collectors.joining(",")) +
-                    ") ids LEFT JOIN JGraphElement j " +
-                        "ON ids.column_0 = j.id ",
-                ImmutableMap.of("ids", ids),
-                ELEMENT_LIST_EXTRACTOR
+                "SELECT id, a, b FROM JGraphElement ORDER BY id",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3))
             );
     }
 
+    /**
+     * Get every Element as parallel id, a, and b arrays, in ascending order of id.
+     */
+    public ElementColumns getAllElementColumns() {
+        LongArrayList ids = new LongArrayList();
+        LongArrayList as = new LongArrayList();
+        LongArrayList bs = new LongArrayList();
+        forEachElement((id, a, b) -> {
+            ids.add(id);
+            as.add(a);
+            bs.add(b);
+        });
+        return new ElementColumns(ids.toArray(), as.toArray(), bs.toArray());
+    }
+
+    /**
+     * Get the Elements that exist with the given list of ids. If an Element with an id at index i does not exist,
+     * then the value at index i in the returned list will be null.
+     */
+    public List<Element> getElements(OrderedSet<Long> ids) {
+        if(index != null) {
+            return ids
+                .stream()
+                .map(index::get)
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.size())) {
+            return mapRowsIn(ids, (id, row) -> row == null ? null : row.element);
+        }
+        return bulkIdLookup.query(ids, () -> databaseService
+            .getJdbcTemplate()
+            .query(
+                "SELECT " +
+                    "ids.idLookup AS id, " +
+                    "j.a AS a, " +
+                    "j.b AS b " +
+                "FROM " +
+                    "IdLookup ids LEFT JOIN JGraphElement j " +
+                        "ON ids.idLookup = j.id " +
+                "ORDER BY ids.position",
+                ELEMENT_LIST_EXTRACTOR
+            )
+        );
+    }
+
     public OrderedSet<Element> getElementsWithAOrB(long a, long b) {
+        if(index != null) {
+            return toElementOrderedSet(index.getIdsWithAOrB(a, b));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -684,6 +1265,9 @@ public class ElementService {
     }
 
     public OrderedSet<Element> getElementsWithAAndB(long a, long b) {
+        if(index != null) {
+            return toElementOrderedSet(index.getIdsWithAAndB(a, b));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -697,14 +1281,18 @@ public class ElementService {
         }
     }
     public OrderedSet<Element> getNodes() {
+        if(index != null) {
+            return toElementOrderedSet(index.getIdsNodes());
+        }
         try {
             return databaseService
                 .getJdbcTemplate()
                 .query(
                     "SELECT id, a, b " +
                     "FROM JGraphElement " +
-                    "WHERE a = id AND b = id",
-                    ELEMENT_ORDERED_SET_EXTRACTOR
+                    "WHERE kind = ?",
+                    ELEMENT_ORDERED_SET_EXTRACTOR,
+                    ElementKind.NODE.getCode()
                 );
         } catch(EmptyResultDataAccessException e) {
             return OrderedSets.empty();
@@ -712,17 +1300,22 @@ public class ElementService {
     }
 
     public OrderedSet<Element> getPendantsFrom(long idFrom) {
+        if(index != null) {
+            return toElementOrderedSet(index.getIdsPendantsFrom(idFrom));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
                 .query(
                     "SELECT id, a, b " +
                     "FROM JGraphElement " +
-                    "WHERE "  +
-                        "id != :idFrom AND " +
-                        "a = :idFrom AND " +
-                        "b = id",
-                    ImmutableMap.of("idFrom", idFrom),
+                    "WHERE " +
+                        "kind = :kind AND " +
+                        "a = :idFrom",
+                    ImmutableMap.of(
+                        "idFrom", idFrom,
+                        "kind", ElementKind.PENDANT_FROM.getCode()
+                    ),
                     ELEMENT_ORDERED_SET_EXTRACTOR
                 );
         } catch(EmptyResultDataAccessException e) {
@@ -731,6 +1324,9 @@ public class ElementService {
     }
 
     public OrderedSet<Element> getPendantsTo(long idTo) {
+        if(index != null) {
+            return toElementOrderedSet(index.getIdsPendantsTo(idTo));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -738,10 +1334,13 @@ public class ElementService {
                     "SELECT id, a, b " +
                     "FROM JGraphElement " +
                     "WHERE " +
-                        "id != :idTo AND " +
-                        "a = id AND " +
+                        "kind = :kind AND " +
                         "b = :idTo",
-                    ImmutableMap.of("idTo", idTo), ELEMENT_ORDERED_SET_EXTRACTOR
+                    ImmutableMap.of(
+                        "idTo", idTo,
+                        "kind", ElementKind.PENDANT_TO.getCode()
+                    ),
+                    ELEMENT_ORDERED_SET_EXTRACTOR
                 );
         } catch(EmptyResultDataAccessException e) {
             return OrderedSets.empty();
@@ -749,6 +1348,9 @@ public class ElementService {
     }
 
     public OrderedSet<Element> getLoopsOn(long idOn) {
+        if(index != null) {
+            return toElementOrderedSet(index.getIdsLoopsOn(idOn));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -756,10 +1358,12 @@ public class ElementService {
                     "SELECT id, a, b " +
                     "FROM JGraphElement " +
                     "WHERE " +
-                        "id != :idOn AND " +
-                        "a = :idOn AND " +
-                        "b = :idOn",
-                    ImmutableMap.of("idOn", idOn),
+                        "kind = :kind AND " +
+                        "a = :idOn",
+                    ImmutableMap.of(
+                        "idOn", idOn,
+                        "kind", ElementKind.LOOP.getCode()
+                    ),
                     ELEMENT_ORDERED_SET_EXTRACTOR
                 );
         } catch(EmptyResultDataAccessException e) {
@@ -772,6 +1376,9 @@ public class ElementService {
      * an a or b with the given id.
      */
     public OrderedSet<Element> getEndpointsOf(long id) {
+        if(index != null) {
+            return toElementOrderedSet(index.getIdsEndpointsOf(id));
+        }
         try {
             return databaseService
                 .getNamedParameterJdbcTemplate()
@@ -786,25 +1393,32 @@ public class ElementService {
     }
 
     public List<OrderedSet<Element>> getEndpointsOfForEach(OrderedSet<Long> ids) {
-        return databaseService
+        if(index != null) {
+            return ids
+                .stream()
+                .map(id -> toElementOrderedSet(index.getIdsEndpointsOf(id)))
+                .collect(Collectors.toList());
+        }
+        if(! bulkIdLookup.isWorthwhile(ids.size())) {
+            return getEndpointsOfEachIn(ids, Function.identity());
+        }
+        return bulkIdLookup.query(ids, () -> databaseService
             .getJdbcTemplate()
             .query(
                 "SELECT " +
-                    "ids.column_0 AS idElement, " +
+                    "ids.idLookup AS idElement, " +
                     "j.id AS idEndpoint, " +
                     "j.a AS a, " +
                     "j.b AS b " +
-                "FROM (" +
-                    "VALUES " +
-                        ids
-                            .stream()
-                            .map(id -> "ROW(" + id + ")")
-                            .collect(Collectors.joining(",")) +
-                    ") AS ids LEFT JOIN JGraphElement j ON " +
-                        "j.id != ids.column_0 AND ( " +
-                        "j.a = ids.column_0 OR " +
-                        "j.b = ids.column_0 " +
-                    ")",
+                "FROM " +
+                    "IdLookup ids LEFT JOIN JGraphElement j ON " +
+                        "j.id != ids.idLookup AND ( " +
+                        "j.a = ids.idLookup OR " +
+                        "j.b = ids.idLookup " +
+                    ") " +
+                "ORDER BY " +
+                    "ids.position, " +
+                    "idEndpoint",
                 new ResultSetExtractor<List<OrderedSet<Element>>>() {
                     @Override
                     public List<OrderedSet<Element>> extractData(ResultSet rs)
@@ -829,47 +1443,213 @@ public class ElementService {
                         return result;
                     }
                 }
+            )
+        );
+    }
+
+    /*
+     * Keyset-paginated versions of the Element lists above: up to limit Elements with ids greater than afterId, in
+     * ascending order of id.
+     */
+
+    public List<Element> getAllElements(long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getAllIds(afterId, limit),
+            "TRUE",
+            ImmutableMap.of(),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Element> getElementsWithAOrB(long a, long b, long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getIdsWithAOrB(a, b, afterId, limit),
+            "(a = :a OR b = :b)",
+            ImmutableMap.of(
+                "a", a,
+                "b", b
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Element> getElementsWithAAndB(long a, long b, long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getIdsWithAAndB(a, b, afterId, limit),
+            "a = :a AND b = :b",
+            ImmutableMap.of(
+                "a", a,
+                "b", b
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Element> getNodes(long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getIdsNodes(afterId, limit),
+            "kind = :kind",
+            ImmutableMap.of("kind", ElementKind.NODE.getCode()),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Element> getPendantsFrom(long idFrom, long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getIdsPendantsFrom(idFrom, afterId, limit),
+            "kind = :kind AND a = :idFrom",
+            ImmutableMap.of(
+                "idFrom", idFrom,
+                "kind", ElementKind.PENDANT_FROM.getCode()
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Element> getPendantsTo(long idTo, long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getIdsPendantsTo(idTo, afterId, limit),
+            "kind = :kind AND b = :idTo",
+            ImmutableMap.of(
+                "idTo", idTo,
+                "kind", ElementKind.PENDANT_TO.getCode()
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Element> getLoopsOn(long idOn, long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getIdsLoopsOn(idOn, afterId, limit),
+            "kind = :kind AND a = :idOn",
+            ImmutableMap.of(
+                "idOn", idOn,
+                "kind", ElementKind.LOOP.getCode()
+            ),
+            afterId,
+            limit
+        );
+    }
+
+    public List<Element> getEndpointsOf(long id, long afterId, int limit) {
+        return getElementsPage(
+            () -> index.getIdsEndpointsOf(id, afterId, limit),
+            "id != :id AND (a = :id OR b = :id)",
+            ImmutableMap.of("id", id),
+            afterId,
+            limit
+        );
+    }
+
+    private List<Element> getElementsPage(
+        Supplier<long[]> fromIndex,
+        String condition,
+        Map<String, ?> parameters,
+        long afterId,
+        int limit
+    ) {
+        if(index != null) {
+            return Arrays
+                .stream(fromIndex.get())
+                .mapToObj(index::get)
+                .collect(Collectors.toList());
+        }
+        return databaseService
+            .getNamedParameterJdbcTemplate()
+            .query(
+                "SELECT id, a, b FROM JGraphElement WHERE " + condition + " AND id > :afterId ORDER BY id LIMIT :limit",
+                withPage(parameters, afterId, limit),
+                ROW_MAPPER
             );
     }
 
+    private Map<String, Object> withPage(Map<String, ?> parameters, long afterId, int limit) {
+        Map<String, Object> withPage = Maps.newHashMap(parameters);
+        withPage.put("afterId", afterId);
+        withPage.put("limit", limit);
+        return withPage;
+    }
+
     public long createElement(long a, long b) {
+        if(writeCoalescer == null) {
+            return insertElement(a, b);
+        }
+        try {
+            return createElementAsync(a, b).join();
+        } catch(CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Create Element (a, b), where each of a and b follows the semantics of CreateElementRequest. With write coalescing
+     * enabled, the future completes once the batch containing the create commits; otherwise the Element is created
+     * before returning.
+     */
+    public CompletableFuture<Long> createElementAsync(long a, long b) {
+        //Only a self-reference of 0 has the same meaning within a batch
+        if(writeCoalescer == null || a < 0 || b < 0) {
+            return CompletableFuture.completedFuture(insertElement(a, b));
+        }
+        return writeCoalescer.create(a, b);
+    }
+
+    private long insertElement(long a, long b) {
+        long id = idAllocator.allocate();
+        long idA = createElementRequestValueToId(a, id);
+        long idB = createElementRequestValueToId(b, id);
         databaseService
-            .getJdbcTemplate()
-            .update(
-                "INSERT INTO JGraphElement (id, a, b) VALUES (" +
-                    nextId.get() + ", " +
-                    createElementRequestValueToSqlInsert(a, nextId.get()) + ", " +
-                    createElementRequestValueToSqlInsert(b, nextId.get()) +
-                ")"
-            );
-        return nextId.getAndIncrement();
+            .getTransactionTemplate()
+            .execute(status -> {
+                databaseService
+                    .getJdbcTemplate()
+                    .update(
+                        "INSERT INTO JGraphElement (id, a, b, kind) VALUES (?, ?, ?, ?)",
+                        id,
+                        idA,
+                        idB,
+                        ElementKind.of(id, idA, idB).getCode()
+                    );
+                EndpointCounts endpointCounts = new EndpointCounts();
+                endpointCounts.referenced(id, idA, idB);
+                applyEndpointCounts(endpointCounts);
+                return null;
+            });
+        afterElementsCreated(new long[] {id}, new long[] {idA}, new long[] {idB});
+        return id;
     }
 
     public OrderedSet<Long> createElements(List<CreateElementRequest> requests) {
-        AtomicInteger counter = new AtomicInteger();
-        OrderedSet<Long> ids = LongStream
-            .range(nextId.get(), nextId.get() + requests.size())
-            .boxed()
-            .collect(Collectors.toCollection(OrderedSet::new));
-        databaseService
-            .getJdbcTemplate()
-            .update(
-                "INSERT INTO JGraphElement (id, a, b) VALUES " + requests
-                    .stream()
-                    .map(request ->
-                        "(" +
-                            ids.get(counter.getAndIncrement()) + ", " +
-                            createElementRequestValueToSqlInsert(request.getA(), nextId.get()) + ", " +
-                            createElementRequestValueToSqlInsert(request.getB(), nextId.get()) +
-                        ")"
-                    ).collect(Collectors.joining(","))
-            );
-        nextId.set(nextId.get() + requests.size());
-        return ids;
+        return createElements(
+            requests.stream().mapToLong(CreateElementRequest::getA).toArray(),
+            requests.stream().mapToLong(CreateElementRequest::getB).toArray()
+        );
     }
 
-    private String createElementRequestValueToSqlInsert(long value, long nextId) {
-        return value > 0 ? value + "" : "" + (nextId + (-1 * value));
+    /**
+     * Create the Elements (as[i], bs[i]), where each a and b follows the semantics of CreateElementRequest.
+     */
+    public OrderedSet<Long> createElements(long[] as, long[] bs) {
+        if(as.length == 0) {
+            return OrderedSets.empty();
+        }
+        long firstId = idAllocator.allocate(as.length);
+        long[] ids = LongStream.range(firstId, firstId + as.length).toArray();
+        long[] idsA = Arrays.stream(as).map(a -> createElementRequestValueToId(a, firstId)).toArray();
+        long[] idsB = Arrays.stream(bs).map(b -> createElementRequestValueToId(b, firstId)).toArray();
+        bulkInserter.insert(ids, idsA, idsB);
+        afterElementsCreated(ids, idsA, idsB);
+        return toIdOrderedSet(ids);
+    }
+
+    private long createElementRequestValueToId(long value, long nextId) {
+        return value > 0 ? value : nextId + (-1 * value);
     }
 
     public long createNode() {
@@ -877,12 +1657,8 @@ public class ElementService {
     }
 
     public OrderedSet<Long> createNodes(int number) {
-        return createElements(
-            IntStream
-                .range(0, number)
-                .mapToObj(i -> new CreateElementRequest(-i, -i))
-                .collect(Collectors.toList())
-        );
+        long[] selves = LongStream.range(0, number).map(i -> -i).toArray();
+        return createElements(selves, selves);
     }
 
     public long createPendantFrom(long from) {
@@ -891,10 +1667,8 @@ public class ElementService {
 
     public OrderedSet<Long> createPendantsFrom(long from, int howMany) {
         return createElements(
-            IntStream
-                .range(0, howMany)
-                .mapToObj(i -> new CreateElementRequest(from, -1 * i))
-                .collect(Collectors.toList())
+            repeat(from, howMany),
+            LongStream.range(0, howMany).map(i -> -i).toArray()
         );
     }
 
@@ -904,10 +1678,8 @@ public class ElementService {
 
     public OrderedSet<Long> createPendantsTo(long to, int howMany) {
         return createElements(
-            IntStream
-                .range(0, howMany)
-                .mapToObj(i -> new CreateElementRequest(-1 * i, to))
-                .collect(Collectors.toList())
+            LongStream.range(0, howMany).map(i -> -i).toArray(),
+            repeat(to, howMany)
         );
     }
 
@@ -916,43 +1688,163 @@ public class ElementService {
     }
 
     public OrderedSet<Long> createLoopsOn(long idOn, int howMany) {
-        return createElements(
-            IntStream
-                .range(0, howMany)
-                .mapToObj(i -> new CreateElementRequest(idOn, idOn))
-                .collect(Collectors.toList())
-        );
+        long[] ons = repeat(idOn, howMany);
+        return createElements(ons, ons);
     }
 
-    public void updateElement(long id, UpdateElementRequest request) {
-        databaseService
-            .getNamedParameterJdbcTemplate()
-            .update(
-                "UPDATE JGraphElement set a=:a, b=:b WHERE id=:id",
-                ImmutableMap.of(
-                    "id", id,
-                    "a", request.getA(),
-                    "b", request.getB()
-                )
-            );
+    public BulkInsertStatistics getBulkInsertStatistics() {
+        return bulkInserter.getStatistics();
+    }
+
+    public ElementCacheStatistics getCacheStatistics() {
+        return cache == null ? new ElementCacheStatistics() : cache.getStatistics();
+    }
+
+    private long[] repeat(long value, int times) {
+        long[] result = new long[times];
+        Arrays.fill(result, value);
+        return result;
+    }
+
+    /**
+     * @return Whether the Element existed, and so was updated.
+     */
+    public boolean updateElement(long id, UpdateElementRequest request) {
+        boolean updated = databaseService
+            .getTransactionTemplate()
+            .execute(status -> {
+                EndpointCounts endpointCounts = new EndpointCounts();
+                if(unreferenceForUpdate(Collections.singleton(id), endpointCounts) == 0) {
+                    return false;
+                }
+                databaseService
+                    .getNamedParameterJdbcTemplate()
+                    .update(
+                        "UPDATE JGraphElement set a=:a, b=:b, kind=:kind WHERE id=:id",
+                        ImmutableMap.of(
+                            "id", id,
+                            "a", request.getA(),
+                            "b", request.getB(),
+                            "kind", ElementKind.of(id, request.getA(), request.getB()).getCode()
+                        )
+                    );
+                endpointCounts.referenced(id, request.getA(), request.getB());
+                applyEndpointCounts(endpointCounts);
+                return true;
+            });
+        if(updated) {
+            afterElementUpdated(id, request.getA(), request.getB());
+        }
+        return updated;
     }
 
     public void updateElements(OrderedSet<Long> ids, List<UpdateElementRequest> requests) {
         databaseService
-            .getJdbcTemplate()
-            .update(
-                "INSERT INTO JGraphElement (id, a, b) VALUES " + IntStream
-                    .range(0, ids.size())
-                    .mapToObj(i ->
-                        "(" + ids.get(i) + ", " +
-                            requests.get(i).getA() + ", " +
-                            requests.get(i).getB() + ")"
-                    ).collect(Collectors.joining(",")) +
-                " ON DUPLICATE KEY UPDATE " +
-                    "id=VALUES(id), " +
-                    "a=VALUES(a), " +
-                    "b=VALUES(b) "
-            );
+            .getTransactionTemplate()
+            .execute(status -> {
+                EndpointCounts endpointCounts = new EndpointCounts();
+                unreferenceForUpdate(ids, endpointCounts);
+                databaseService
+                    .getJdbcTemplate()
+                    .update(
+                        "INSERT INTO JGraphElement (id, a, b, kind) VALUES " + IntStream
+                            .range(0, ids.size())
+                            .mapToObj(i ->
+                                "(" + ids.get(i) + ", " +
+                                    requests.get(i).getA() + ", " +
+                                    requests.get(i).getB() + ", " +
+                                    ElementKind.of(ids.get(i), requests.get(i).getA(), requests.get(i).getB()).getCode() +
+                                ")"
+                            ).collect(Collectors.joining(",")) +
+                        " ON DUPLICATE KEY UPDATE " +
+                            "id=VALUES(id), " +
+                            "a=VALUES(a), " +
+                            "b=VALUES(b), " +
+                            "kind=VALUES(kind) "
+                    );
+                for(int i = 0; i < ids.size(); ++i) {
+                    endpointCounts.referenced(ids.get(i), requests.get(i).getA(), requests.get(i).getB());
+                }
+                applyEndpointCounts(endpointCounts);
+                return null;
+            });
+        afterElementsUpdated(
+            ids.stream().mapToLong(Long::longValue).toArray(),
+            requests.stream().mapToLong(UpdateElementRequest::getA).toArray(),
+            requests.stream().mapToLong(UpdateElementRequest::getB).toArray()
+        );
+    }
+
+    /**
+     * Retarget every Element (other than from itself) with from as its a (if rewireA) and/or b (if rewireB) to have to
+     * instead, with one UPDATE in one transaction. The affected Elements are locked and read first so that their
+     * endpointCounts and the in-memory structures can be kept in step.
+     * @param kinds Only Elements of these kinds, before the rewire, are retargeted. Empty means all kinds.
+     */
+    public RewireResult rewire(long from, long to, boolean rewireA, boolean rewireB, Set<ElementKind> kinds) {
+        if(from == to || ! (rewireA || rewireB)) {
+            return new RewireResult(0, 0, 0);
+        }
+        List<String> endpointConditions = Lists.newArrayList();
+        if(rewireA) {
+            endpointConditions.add("a = :from");
+        }
+        if(rewireB) {
+            endpointConditions.add("b = :from");
+        }
+        String condition = "id <> :from AND (" + String.join(" OR ", endpointConditions) + ")" +
+            (kinds.isEmpty() ? "" : " AND kind IN (:kinds)");
+        Map<String, Object> parameters = Maps.newHashMap();
+        parameters.put("from", from);
+        parameters.put("to", to);
+        parameters.put("kinds", kinds.stream().map(ElementKind::getCode).collect(Collectors.toList()));
+
+        LongArrayList ids = new LongArrayList();
+        LongArrayList as = new LongArrayList();
+        LongArrayList bs = new LongArrayList();
+        long[] numRewired = {0, 0};
+        databaseService
+            .getTransactionTemplate()
+            .execute(status -> {
+                EndpointCounts endpointCounts = new EndpointCounts();
+                databaseService
+                    .getNamedParameterJdbcTemplate()
+                    .query(
+                        "SELECT id, a, b FROM JGraphElement WHERE " + condition + " FOR UPDATE",
+                        parameters,
+                        (RowCallbackHandler) rs -> {
+                            long id = rs.getLong("id");
+                            long a = rs.getLong("a");
+                            long b = rs.getLong("b");
+                            long newA = rewireA && a == from ? to : a;
+                            long newB = rewireB && b == from ? to : b;
+                            numRewired[0] += newA != a ? 1 : 0;
+                            numRewired[1] += newB != b ? 1 : 0;
+                            endpointCounts.unreferenced(id, a, b);
+                            endpointCounts.referenced(id, newA, newB);
+                            ids.add(id);
+                            as.add(newA);
+                            bs.add(newB);
+                        }
+                    );
+                if(ids.isEmpty()) {
+                    return null;
+                }
+                databaseService
+                    .getNamedParameterJdbcTemplate()
+                    .update(
+                        "UPDATE JGraphElement SET " +
+                            (rewireA ? "a = IF(a = :from, :to, a), " : "") +
+                            (rewireB ? "b = IF(b = :from, :to, b), " : "") +
+                            "kind = " + KIND_SQL + " " +
+                        "WHERE " + condition,
+                        parameters
+                    );
+                applyEndpointCounts(endpointCounts);
+                return null;
+            });
+        afterElementsUpdated(ids.toArray(), as.toArray(), bs.toArray());
+        return new RewireResult(ids.size(), numRewired[0], numRewired[1]);
     }
 
     /**
@@ -960,11 +1852,21 @@ public class ElementService {
      */
     public void deleteElement(long id) {
         databaseService
-            .getNamedParameterJdbcTemplate()
-            .update(
-                "DELETE FROM JGraphElement WHERE id = :id",
-                ImmutableMap.of("id", id)
-            );
+            .getTransactionTemplate()
+            .execute(status -> {
+                EndpointCounts endpointCounts = new EndpointCounts();
+                unreferenceForUpdate(Collections.singleton(id), endpointCounts);
+                databaseService
+                    .getNamedParameterJdbcTemplate()
+                    .update(
+                        "DELETE FROM JGraphElement WHERE id = :id",
+                        ImmutableMap.of("id", id)
+                    );
+                endpointCounts.discard(new long[] {id});
+                applyEndpointCounts(endpointCounts);
+                return null;
+            });
+        afterElementsDeleted(Collections.singleton(id));
     }
 
     /**
@@ -975,19 +1877,437 @@ public class ElementService {
             return;
         }
 
+        databaseService
+            .getTransactionTemplate()
+            .execute(status -> {
+                EndpointCounts endpointCounts = new EndpointCounts();
+                unreferenceForUpdate(ids, endpointCounts);
+                databaseService
+                    .getNamedParameterJdbcTemplate()
+                    .update(
+                        "DELETE FROM JGraphElement WHERE id IN (:ids)",
+                        ImmutableMap.of("ids", ids)
+                    );
+                endpointCounts.discard(ids.stream().mapToLong(Long::longValue).toArray());
+                applyEndpointCounts(endpointCounts);
+                return null;
+            });
+        afterElementsDeleted(ids);
+    }
+
+    /**
+     * Lock the existing Elements with the given ids for the rest of the transaction, and count them as no longer
+     * referencing their current a and b.
+     * @return The number of the Elements that exist
+     */
+    private int unreferenceForUpdate(Collection<Long> ids, EndpointCounts endpointCounts) {
+        int[] numExisting = {0};
         databaseService
             .getNamedParameterJdbcTemplate()
-            .update(
-                "DELETE FROM JGraphElement WHERE id IN (:ids)",
-                ImmutableMap.of("ids", ids)
+            .query(
+                "SELECT id, a, b FROM JGraphElement WHERE id IN (:ids) FOR UPDATE",
+                ImmutableMap.of("ids", ids),
+                (RowCallbackHandler) rs -> {
+                    endpointCounts.unreferenced(rs.getLong("id"), rs.getLong("a"), rs.getLong("b"));
+                    ++numExisting[0];
+                }
             );
+        return numExisting[0];
+    }
+
+    /**
+     * Apply the endpointCount changes on the connection of the current transaction.
+     */
+    private void applyEndpointCounts(EndpointCounts endpointCounts) {
+        databaseService
+            .getJdbcTemplate()
+            .execute((ConnectionCallback<Void>) connection -> {
+                endpointCounts.apply(connection);
+                return null;
+            });
+    }
+
+    /**
+     * Delete Elements (ids[i], as[i], bs[i]) that no other Element references, such as whole components, in bounded
+     * chunks, leaves first. See ElementBulkDeleter.
+     * @param listener Notified after each chunk commits.
+     */
+    public BulkDeleteResult deleteElementsInChunks(
+        long[] ids,
+        long[] as,
+        long[] bs,
+        ElementBulkDeleter.Listener listener
+    ) {
+        return bulkDeleter.delete(ids, as, bs, new ElementBulkDeleter.Listener() {
+            @Override
+            public void rewired(long[] idsRewired) {
+                afterElementsUpdated(idsRewired, idsRewired, idsRewired);
+                listener.rewired(idsRewired);
+            }
+
+            @Override
+            public void deleted(long[] idsDeleted) {
+                afterElementsDeleted(Arrays.stream(idsDeleted).boxed().collect(Collectors.toList()));
+                listener.deleted(idsDeleted);
+            }
+
+            @Override
+            public void progress(long numDeleted, long numTotal) {
+                listener.progress(numDeleted, numTotal);
+            }
+        });
+    }
+
+    /**
+     * Get the Element with the given id and every Element that transitively depends on it; that is, that has it or one
+     * of its dependents as its a or b. Dependents come before the Elements they depend on, so deleting in this order
+     * never breaks a reference. Elements on (or depending on) a cycle have no such order and come last, in the order
+     * they were reached.
+     * In the case that the Element does not exist, returns an empty OrderedSet.
+     */
+    public OrderedSet<Long> getDependencyClosure(long id) {
+        ElementColumns closure = getDependencyClosureColumns(id);
+        int[] order = new int[closure.size()];
+        ElementBulkDeleter.orderLeavesFirst(closure.getIds(), closure.getAs(), closure.getBs(), order);
+        return toIdOrderedSet(Arrays.stream(order).mapToLong(i -> closure.getIds()[i]).toArray());
+    }
+
+    public void deleteElementWithDependents(long id) {
+        deleteElementWithDependents(id, new ElementBulkDeleter.Listener() {});
+    }
+
+    /**
+     * Delete the Element with the given id along with its dependency closure (see getDependencyClosure), in bounded
+     * chunks, leaves first. An Element created meanwhile that references the closure makes the chunk holding what it
+     * references fail.
+     * @param listener Notified after each chunk commits.
+     */
+    public BulkDeleteResult deleteElementWithDependents(long id, ElementBulkDeleter.Listener listener) {
+        ElementColumns closure = getDependencyClosureColumns(id);
+        return deleteElementsInChunks(closure.getIds(), closure.getAs(), closure.getBs(), listener);
+    }
+
+    private ElementColumns getDependencyClosureColumns(long id) {
+        LongArrayList ids = new LongArrayList();
+        LongArrayList as = new LongArrayList();
+        LongArrayList bs = new LongArrayList();
+        traversalService.traverse(
+            new long[] {id},
+            Integer.MAX_VALUE,
+            TraversalDirection.ENDPOINTS,
+            Integer.MAX_VALUE,
+            (idDependent, a, b, depth) -> {
+                ids.add(idDependent);
+                as.add(a);
+                bs.add(b);
+            }
+        );
+        return new ElementColumns(ids.toArray(), as.toArray(), bs.toArray());
     }
 
     /**
      * This deletes all elements and resets the auto_increment to 1.
      */
     public void reset() {
-        deleteElements(getAllIds());
-        nextId = new AtomicLong(1);
+        ElementColumns elements = getAllElementColumns();
+        deleteElementsInChunks(
+            elements.getIds(),
+            elements.getAs(),
+            elements.getBs(),
+            new ElementBulkDeleter.Listener() {}
+        );
+        idAllocator.reset();
+        //Ids are handed out again from 1, so what is cached as not existing may soon exist
+        if(cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Write-through to the in-memory structures that mirror JGraphElement.
+     */
+    private void afterElementsCreated(long[] ids, long[] as, long[] bs) {
+        if(index != null) {
+            for(int i = 0; i < ids.length; ++i) {
+                index.put(ids[i], as[i], bs[i]);
+            }
+        }
+        if(cache != null) {
+            for(int i = 0; i < ids.length; ++i) {
+                cache.put(ids[i], as[i], bs[i]);
+            }
+        }
+        ConnectivityIndex connectivityIndex = componentService.getConnectivityIndex();
+        if(connectivityIndex != null) {
+            connectivityIndex.addAll(ids, as, bs);
+        }
+        invalidationBus.publish(InvalidatedEntity.JGRAPH_ELEMENT, ids);
+    }
+
+    private void afterElementUpdated(long id, long a, long b) {
+        afterElementsUpdated(new long[] {id}, new long[] {a}, new long[] {b});
+    }
+
+    private void afterElementsUpdated(long[] ids, long[] as, long[] bs) {
+        ConnectivityIndex connectivityIndex = componentService.getConnectivityIndex();
+        for(int i = 0; i < ids.length; ++i) {
+            if(index != null) {
+                index.put(ids[i], as[i], bs[i]);
+            }
+            if(cache != null) {
+                cache.put(ids[i], as[i], bs[i]);
+            }
+            if(connectivityIndex != null) {
+                connectivityIndex.update(ids[i], as[i], bs[i]);
+            }
+        }
+        invalidationBus.publish(InvalidatedEntity.JGRAPH_ELEMENT, ids);
+    }
+
+    private void afterElementsDeleted(Collection<Long> ids) {
+        if(index != null) {
+            ids.forEach(index::remove);
+        }
+        if(cache != null) {
+            ids.forEach(cache::putAbsent);
+        }
+        ConnectivityIndex connectivityIndex = componentService.getConnectivityIndex();
+        if(connectivityIndex != null) {
+            ids.forEach(connectivityIndex::remove);
+        }
+        invalidationBus.publish(InvalidatedEntity.JGRAPH_ELEMENT, Longs.toArray(ids));
+    }
+
+    /**
+     * Bring what this node holds in memory up to date with Elements written by another node: the cache drops them, and
+     * the indexes re-read them.
+     */
+    private void onElementsInvalidated(InvalidationEvent event) {
+        if(cache != null) {
+            cache.invalidate(event.getIdFrom(), event.getIdTo());
+        }
+        ConnectivityIndex connectivityIndex = componentService.getConnectivityIndex();
+        if(index == null && connectivityIndex == null) {
+            return;
+        }
+        LongHashSet idsFound = new LongHashSet();
+        databaseService
+            .getNamedParameterJdbcTemplate()
+            .query(
+                "SELECT id, a, b FROM JGraphElement WHERE id BETWEEN :idFrom AND :idTo",
+                ImmutableMap.of(
+                    "idFrom", event.getIdFrom(),
+                    "idTo", event.getIdTo()
+                ),
+                (RowCallbackHandler) rs -> {
+                    long id = rs.getLong("id");
+                    long a = rs.getLong("a");
+                    long b = rs.getLong("b");
+                    idsFound.add(id);
+                    if(index != null) {
+                        index.put(id, a, b);
+                    }
+                    if(connectivityIndex != null) {
+                        connectivityIndex.update(id, a, b);
+                    }
+                }
+            );
+        for(long id = event.getIdFrom(); id <= event.getIdTo(); ++id) {
+            if(! idsFound.contains(id)) {
+                if(index != null) {
+                    index.remove(id);
+                }
+                if(connectivityIndex != null) {
+                    connectivityIndex.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fill the index from the snapshot, or from the table if the snapshot cannot be loaded.
+     * @return Whether the index was filled from the snapshot.
+     */
+    boolean warmIndex() {
+        if(loadIndexFromSnapshot()) {
+            return true;
+        }
+        loadIndex();
+        return false;
+    }
+
+    private boolean loadIndexFromSnapshot() {
+        ElementColumns elements = snapshotService.load();
+        if(elements == null) {
+            return false;
+        }
+        index.clear();
+        for(int i = 0; i < elements.size(); ++i) {
+            index.put(elements.getIds()[i], elements.getAs()[i], elements.getBs()[i]);
+        }
+        return true;
+    }
+
+    private void loadIndex() {
+        index.clear();
+        databaseService
+            .getJdbcTemplate()
+            .query(
+                "SELECT id, a, b FROM JGraphElement",
+                (RowCallbackHandler) rs -> index.put(rs.getLong("id"), rs.getLong("a"), rs.getLong("b"))
+            );
+    }
+
+    /**
+     * Mirrors the EmptyResultDataAccessException that queryForObject throws when the Element does not exist.
+     */
+    private void requireIndexed(long id) {
+        if(! index.contains(id)) {
+            throw new EmptyResultDataAccessException(1);
+        }
+    }
+
+    /**
+     * @return The Element with the given id, reading it into the cache on a miss; or ElementCache.ABSENT if it does
+     * not exist.
+     */
+    private Element getThroughCache(long id) {
+        Element cached = cache.get(id);
+        if(cached != null) {
+            return cached;
+        }
+        long stamp = cache.getWriteStamp();
+        List<Element> elements = databaseService
+            .getNamedParameterJdbcTemplate()
+            .query(
+                "SELECT id, a, b FROM JGraphElement WHERE id=:id",
+                ImmutableMap.of("id", id),
+                ROW_MAPPER
+            );
+        if(elements.isEmpty()) {
+            cache.putLoadedAbsent(id, stamp);
+            return ElementCache.ABSENT;
+        }
+        Element element = elements.get(0);
+        cache.putLoaded(id, element.getA(), element.getB(), stamp);
+        return element;
+    }
+
+    /**
+     * Mirrors the EmptyResultDataAccessException that queryForObject throws when the Element does not exist.
+     */
+    private Element requireExists(Element element) {
+        if(element == ElementCache.ABSENT) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        return element;
+    }
+
+    /**
+     * For id lists too short to be worth loading into IdLookup: map each id, in order, from its row (null if it does
+     * not exist), read with one IN (:ids) query.
+     */
+    private <T> List<T> mapRowsIn(Collection<Long> ids, BiFunction<Long, ElementRow, T> mapper) {
+        LongObjectHashMap<ElementRow> rows = new LongObjectHashMap<>(ids.size());
+        if(! ids.isEmpty()) {
+            databaseService
+                .getNamedParameterJdbcTemplate()
+                .query(
+                    "SELECT id, a, b, kind, endpointCount FROM JGraphElement WHERE id IN (:ids)",
+                    ImmutableMap.of("ids", ids),
+                    (RowCallbackHandler) rs -> rows.put(
+                        rs.getLong("id"),
+                        new ElementRow(
+                            new Element(rs.getLong("id"), rs.getLong("a"), rs.getLong("b")),
+                            ElementKind.fromCode(rs.getInt("kind")),
+                            rs.getInt("endpointCount")
+                        )
+                    )
+                );
+        }
+        return ids
+            .stream()
+            .map(id -> mapper.apply(id, rows.get(id)))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * For id lists too short to be worth loading into IdLookup: pass each Element matching the condition, which uses
+     * the ids as :ids, to the consumer.
+     */
+    private void forEachRowWhere(String condition, long[] ids, ElementConsumer consumer) {
+        if(ids.length == 0) {
+            return;
+        }
+        databaseService
+            .getNamedParameterJdbcTemplate()
+            .query(
+                "SELECT id, a, b FROM JGraphElement WHERE " + condition,
+                ImmutableMap.of("ids", Longs.asList(ids)),
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3))
+            );
+    }
+
+    /**
+     * For id lists too short to be worth loading into IdLookup: for each id, in order, the Elements other than itself
+     * with it as their a or b, in ascending order of id.
+     */
+    private <T> List<OrderedSet<T>> getEndpointsOfEachIn(Collection<Long> ids, Function<Element, T> mapper) {
+        List<Element> candidates = ids.isEmpty() ?
+            Collections.emptyList() :
+            databaseService
+                .getNamedParameterJdbcTemplate()
+                .query(
+                    "SELECT id, a, b FROM JGraphElement WHERE a IN (:ids) OR b IN (:ids) ORDER BY id",
+                    ImmutableMap.of("ids", ids),
+                    ROW_MAPPER
+                );
+        return ids
+            .stream()
+            .map(id -> candidates
+                .stream()
+                .filter(element -> element.getId() != id && (element.getA() == id || element.getB() == id))
+                .map(mapper)
+                .collect(Collectors.toCollection(OrderedSet::new))
+            )
+            .collect(Collectors.toList());
+    }
+
+    private OrderedSet<Long> toIdOrderedSet(long[] ids) {
+        return OrderedSets.with(
+            Arrays
+                .stream(ids)
+                .boxed()
+                .collect(Collectors.toList())
+        );
+    }
+
+    private OrderedSet<Element> toElementOrderedSet(long[] ids) {
+        return OrderedSets.with(
+            Arrays
+                .stream(ids)
+                .mapToObj(index::get)
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * A JGraphElement row as read by mapRowsIn
+     */
+    private static class ElementRow {
+        private final Element element;
+        private final ElementKind kind;
+        private final int endpointCount;
+
+        private ElementRow(Element element, ElementKind kind, int endpointCount) {
+            this.element = element;
+            this.kind = kind;
+            this.endpointCount = endpointCount;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ElementConsumer {
+        void accept(long id, long a, long b);
     }
 }
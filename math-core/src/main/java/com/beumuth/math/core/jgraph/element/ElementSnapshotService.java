@@ -0,0 +1,335 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.beumuth.math.core.internal.primitive.LongArrayList;
+import com.beumuth.math.core.internal.primitive.LongHashSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes a binary snapshot of JGraphElement on local disk, so in-memory indexes can be warmed from a
+ * memory-mapped file instead of paging the whole table through JDBC.
+ *
+ * Layout (big-endian):
+ *  int magic, int format version, long row count, long max id, long revision,
+ *  then the id, a, and b columns, each row count longs.
+ *
+ * The revision is that of the JGraphElementChange log when the snapshot was taken. On load, every Element changed since
+ * then is re-read from the table, and the result is checked against the table's row count and max id.
+ *
+ * The triggers that fill the log are only installed by nodes with snapshots enabled, so that writes do not pay for it
+ * otherwise; once installed they are kept, as other nodes sharing the database may rely on them. Revisions are
+ * AUTO_INCREMENT values, which concurrent writers may commit out of order, so a snapshot records a revision replayMargin
+ * below the newest one it sees, and a change committed late is still replayed as long as fewer than replayMargin
+ * others committed before it. Writing a snapshot prunes the log up to its revision; a snapshot older than what has been
+ * pruned, such as another node's, is not loaded.
+ */
+@Service
+public class ElementSnapshotService {
+    private static final int MAGIC = 0x4A474553;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    /**
+     * A column is mapped in windows of this many longs, since a single mapping cannot exceed 2GB.
+     */
+    private static final int MAX_WINDOW_LONGS = Integer.MAX_VALUE / Long.BYTES;
+    private static final int PRUNE_CHUNK_SIZE = 10000;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    /**
+     * Where the snapshot is kept. Snapshots are disabled when this is empty.
+     */
+    @Value("${jgraph.snapshot.path:}")
+    private String path;
+
+    @Value("${jgraph.snapshot.replayMargin:1000}")
+    private long replayMargin;
+
+    @PostConstruct
+    public void initialize() {
+        if(isEnabled()) {
+            installTriggers();
+        }
+    }
+
+    public boolean isEnabled() {
+        return ! path.isEmpty();
+    }
+
+    /**
+     * @return The revision for a snapshot of the Elements read after it: replayMargin below that of the most recent
+     * change to JGraphElement, or 0.
+     */
+    public long getSnapshotRevision() {
+        return databaseService
+            .getJdbcTemplate()
+            .queryForObject(
+                "SELECT GREATEST(COALESCE(MAX(revision), 0) - ?, 0) FROM JGraphElementChange",
+                Long.class,
+                replayMargin
+            );
+    }
+
+    /**
+     * Atomically replace the snapshot with the given Elements, then prune the log up to its revision. The revision must
+     * have been read before the Elements were, so that no change is missed on load; changes that are already included
+     * are harmlessly re-read.
+     */
+    public void write(long revision, long[] ids, long[] as, long[] bs) {
+        Path snapshot = Paths.get(path);
+        Path temporary = Paths.get(path + ".tmp");
+        long maxId = 0;
+        for(long id : ids) {
+            maxId = Math.max(maxId, id);
+        }
+        try {
+            if(snapshot.getParent() != null) {
+                Files.createDirectories(snapshot.getParent());
+            }
+            try(FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+                buffer
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(ids.length)
+                    .putLong(maxId)
+                    .putLong(revision);
+                writeColumn(channel, buffer, ids);
+                writeColumn(channel, buffer, as);
+                writeColumn(channel, buffer, bs);
+                drain(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e) {
+            throw new UncheckedIOException("Could not write jgraph snapshot to [" + path + "]", e);
+        }
+        pruneChanges(revision);
+    }
+
+    /**
+     * Load the snapshot and bring it up to date with the JGraphElementChange log.
+     * @return The current Elements, or null if snapshots are disabled, there is no snapshot, it is unreadable, the log
+     * has been pruned past it, or it does not match the table after replaying changes. Callers should then load from
+     * the table.
+     */
+    public ElementColumns load() {
+        if(! isEnabled() || ! Files.isRegularFile(Paths.get(path))) {
+            return null;
+        }
+        try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while(header.hasRemaining()) {
+                if(channel.read(header) < 0) {
+                    return null;
+                }
+            }
+            header.flip();
+            if(header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long numRows = header.getLong();
+            header.getLong(); //max id, which is recomputed after replaying
+            long revision = header.getLong();
+            if(
+                numRows < 0 ||
+                numRows > Integer.MAX_VALUE ||
+                channel.size() != HEADER_BYTES + numRows * 3 * Long.BYTES ||
+                hasLogBeenPrunedPast(revision)
+            ) {
+                return null;
+            }
+            return replay(channel, (int) numRows, revision);
+        } catch(IOException e) {
+            return null;
+        }
+    }
+
+    private ElementColumns replay(FileChannel channel, int numRows, long revision) throws IOException {
+        //Re-read the current state of everything that changed since the snapshot
+        LongHashSet idsChanged = new LongHashSet();
+        LongArrayList ids = new LongArrayList(numRows);
+        LongArrayList as = new LongArrayList(numRows);
+        LongArrayList bs = new LongArrayList(numRows);
+        databaseService
+            .getJdbcTemplate()
+            .query(
+                "SELECT changed.id, j.a, j.b " +
+                "FROM " +
+                    "(SELECT DISTINCT id FROM JGraphElementChange WHERE revision > ?) changed " +
+                    "LEFT JOIN JGraphElement j ON j.id = changed.id",
+                (RowCallbackHandler) rs -> {
+                    long id = rs.getLong(1);
+                    idsChanged.add(id);
+                    long a = rs.getLong(2);
+                    if(! rs.wasNull()) {
+                        ids.add(id);
+                        as.add(a);
+                        bs.add(rs.getLong(3));
+                    }
+                },
+                revision
+            );
+
+        for(long first = 0; first < numRows; first += MAX_WINDOW_LONGS) {
+            int numInWindow = (int) Math.min(MAX_WINDOW_LONGS, numRows - first);
+            LongBuffer idWindow = mapWindow(channel, 0, numRows, first, numInWindow);
+            LongBuffer aWindow = mapWindow(channel, 1, numRows, first, numInWindow);
+            LongBuffer bWindow = mapWindow(channel, 2, numRows, first, numInWindow);
+            for(int row = 0; row < numInWindow; ++row) {
+                long id = idWindow.get(row);
+                if(! idsChanged.contains(id)) {
+                    ids.add(id);
+                    as.add(aWindow.get(row));
+                    bs.add(bWindow.get(row));
+                }
+            }
+        }
+
+        ElementColumns result = new ElementColumns(ids.toArray(), as.toArray(), bs.toArray());
+        return matchesTable(result) ? result : null;
+    }
+
+    private static LongBuffer mapWindow(
+        FileChannel channel,
+        int column,
+        int numRows,
+        long firstRow,
+        int numInWindow
+    ) throws IOException {
+        return channel
+            .map(
+                FileChannel.MapMode.READ_ONLY,
+                HEADER_BYTES + ((long) column * numRows + firstRow) * Long.BYTES,
+                (long) numInWindow * Long.BYTES
+            )
+            .asLongBuffer();
+    }
+
+    /**
+     * Rolled back writes also leave gaps in the revisions, so this may reject a snapshot that could have been loaded,
+     * which only costs a load from the table.
+     */
+    private boolean hasLogBeenPrunedPast(long revision) {
+        return databaseService
+            .getJdbcTemplate()
+            .queryForObject(
+                "SELECT COALESCE(MIN(revision), 0) > ? FROM JGraphElementChange",
+                Boolean.class,
+                revision + 1
+            );
+    }
+
+    /**
+     * Delete the changes up to the revision in chunks, so as not to hold long locks on the log that writers append to.
+     */
+    private void pruneChanges(long revision) {
+        int numDeleted;
+        do {
+            numDeleted = databaseService
+                .getJdbcTemplate()
+                .update(
+                    "DELETE FROM JGraphElementChange WHERE revision <= ? ORDER BY revision LIMIT " + PRUNE_CHUNK_SIZE,
+                    revision
+                );
+        } while(numDeleted == PRUNE_CHUNK_SIZE);
+    }
+
+    private void installTriggers() {
+        installTrigger(
+            "jgraphElement_afterInsert",
+            "AFTER INSERT ON JGraphElement " +
+            "FOR EACH ROW INSERT INTO JGraphElementChange (id) VALUES (NEW.id)"
+        );
+        installTrigger(
+            "jgraphElement_afterUpdate",
+            "AFTER UPDATE ON JGraphElement " +
+            "FOR EACH ROW INSERT INTO JGraphElementChange (id) " +
+                "SELECT NEW.id FROM DUAL WHERE NEW.a != OLD.a OR NEW.b != OLD.b"
+        );
+        installTrigger(
+            "jgraphElement_afterDelete",
+            "AFTER DELETE ON JGraphElement " +
+            "FOR EACH ROW INSERT INTO JGraphElementChange (id) VALUES (OLD.id)"
+        );
+    }
+
+    private void installTrigger(String name, String definition) {
+        if(doesTriggerExist(name)) {
+            return;
+        }
+        try {
+            databaseService.getJdbcTemplate().execute("CREATE TRIGGER " + name + " " + definition);
+        } catch(DataAccessException e) {
+            //Another node may have installed it first
+            if(! doesTriggerExist(name)) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean doesTriggerExist(String name) {
+        return databaseService
+            .getJdbcTemplate()
+            .queryForObject(
+                "SELECT COUNT(1) > 0 FROM information_schema.TRIGGERS " +
+                "WHERE TRIGGER_SCHEMA = DATABASE() AND TRIGGER_NAME = ?",
+                Boolean.class,
+                name
+            );
+    }
+
+    private boolean matchesTable(ElementColumns elements) {
+        long maxId = 0;
+        for(long id : elements.getIds()) {
+            maxId = Math.max(maxId, id);
+        }
+        long expectedMaxId = maxId;
+        return databaseService
+            .getJdbcTemplate()
+            .queryForObject(
+                "SELECT COUNT(1), COALESCE(MAX(id), 0) FROM JGraphElement",
+                (rs, rowNum) -> rs.getLong(1) == elements.size() && rs.getLong(2) == expectedMaxId
+            );
+    }
+
+    private void writeColumn(FileChannel channel, ByteBuffer buffer, long[] column) throws IOException {
+        for(long value : column) {
+            if(buffer.remaining() < Long.BYTES) {
+                drain(channel, buffer);
+            }
+            buffer.putLong(value);
+        }
+    }
+
+    private void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,226 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.UpdateElementRequest;
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs with snapshots kept under target and a replay margin of 0, so that a snapshot's revision is that of the last
+ * change it includes, and with the in-memory index enabled, so that warming it can be checked to fall back to the
+ * table.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+    "jgraph.snapshot.path=" + ElementSnapshotTests.PATH,
+    "jgraph.snapshot.replayMargin=0",
+    "jgraph.index.enabled=true"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ElementSnapshotTests {
+    static final String PATH = "target/snapshot-tests/jgraph.snapshot";
+
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private ElementSnapshotService snapshotService;
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Before
+    public void setupTest() throws IOException {
+        Files.deleteIfExists(Paths.get(PATH));
+    }
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void loadTest_noSnapshot_shouldBeNull() {
+        assertNull(snapshotService.load());
+    }
+
+    @Test
+    public void loadTest_unchangedSinceWrite_shouldMatchTable() {
+        createElements();
+        elementService.writeSnapshot();
+        assertMatchesTable(snapshotService.load());
+    }
+
+    @Test
+    public void loadTest_changedSinceWrite_shouldReplayChanges() {
+        long[] ids = createElements();
+        elementService.writeSnapshot();
+
+        //A create, a retarget, and a delete, none of which is in the snapshot
+        long idNode = elementService.createNode();
+        elementService.updateElement(ids[2], new UpdateElementRequest(ids[1], idNode));
+        elementService.deleteElement(ids[3]);
+
+        ElementColumns loaded = snapshotService.load();
+        assertMatchesTable(loaded);
+        Map<Long, List<Long>> elements = toMap(loaded);
+        assertEquals(Lists.newArrayList(idNode, idNode), elements.get(idNode));
+        assertEquals(Lists.newArrayList(ids[1], idNode), elements.get(ids[2]));
+        assertFalse(elements.containsKey(ids[3]));
+    }
+
+    @Test
+    public void loadTest_truncated_shouldBeNull() throws IOException {
+        createElements();
+        elementService.writeSnapshot();
+        long size = Files.size(Paths.get(PATH));
+        truncate(size - Long.BYTES);
+        assertNull(snapshotService.load());
+        //Not even a whole header
+        truncate(10);
+        assertNull(snapshotService.load());
+    }
+
+    @Test
+    public void loadTest_corruptHeader_shouldBeNull() throws IOException {
+        createElements();
+        elementService.writeSnapshot();
+        try(FileChannel channel = FileChannel.open(Paths.get(PATH), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 0xDEADBEEF), 0);
+        }
+        assertNull(snapshotService.load());
+    }
+
+    @Test
+    public void loadTest_logPrunedPastSnapshot_shouldBeNull() throws IOException {
+        createElements();
+        elementService.writeSnapshot();
+        byte[] stale = Files.readAllBytes(Paths.get(PATH));
+
+        //The next snapshot prunes the changes the stale one would need, and one more change follows it
+        elementService.createNode();
+        elementService.writeSnapshot();
+        elementService.createNode();
+        assertMatchesTable(snapshotService.load());
+
+        Files.write(Paths.get(PATH), stale);
+        assertNull(snapshotService.load());
+    }
+
+    @Test
+    public void loadTest_doesNotMatchTable_shouldBeNull() {
+        long[] ids = createElements();
+        long revision = snapshotService.getSnapshotRevision();
+        ElementColumns elements = readTable();
+
+        //A row missing
+        int numRows = elements.size() - 1;
+        snapshotService.write(
+            revision,
+            Arrays.copyOf(elements.getIds(), numRows),
+            Arrays.copyOf(elements.getAs(), numRows),
+            Arrays.copyOf(elements.getBs(), numRows)
+        );
+        assertNull(snapshotService.load());
+
+        //As many rows, but a max id the table does not have
+        long[] idsWrong = elements.getIds().clone();
+        idsWrong[idsWrong.length - 1] = ids[ids.length - 1] + 1000;
+        snapshotService.write(revision, idsWrong, elements.getAs(), elements.getBs());
+        assertNull(snapshotService.load());
+    }
+
+    @Test
+    public void warmIndexTest_snapshotUsable_shouldLoadFromIt() {
+        createElements();
+        elementService.writeSnapshot();
+        elementService.createNode();
+        assertTrue(elementService.warmIndex());
+        assertMatchesTable(elementService.getAllElementColumns());
+    }
+
+    @Test
+    public void warmIndexTest_snapshotTruncated_shouldLoadFromTable() throws IOException {
+        createElements();
+        elementService.writeSnapshot();
+        elementService.createNode();
+        truncate(Files.size(Paths.get(PATH)) - 1);
+        assertFalse(elementService.warmIndex());
+        assertMatchesTable(elementService.getAllElementColumns());
+    }
+
+    /**
+     * @return The ids of: two nodes, an edge between them, a loop on the first, and a pendant from the edge.
+     */
+    private long[] createElements() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idEdge = elementService.createElement(idNode1, idNode2);
+        long idLoop = elementService.createLoopOn(idNode1);
+        long idPendant = elementService.createPendantFrom(idEdge);
+        return new long[] {idNode1, idNode2, idEdge, idLoop, idPendant};
+    }
+
+    private void truncate(long size) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(PATH), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private void assertMatchesTable(ElementColumns elements) {
+        assertNotNull(elements);
+        assertEquals(toMap(readTable()), toMap(elements));
+    }
+
+    /**
+     * Read straight from JGraphElement, since the ElementService answers from its index here.
+     */
+    private ElementColumns readTable() {
+        List<long[]> rows = Lists.newArrayList();
+        databaseService
+            .getJdbcTemplate()
+            .query(
+                "SELECT id, a, b FROM JGraphElement ORDER BY id",
+                (RowCallbackHandler) rs -> rows.add(new long[] {rs.getLong(1), rs.getLong(2), rs.getLong(3)})
+            );
+        return new ElementColumns(
+            rows.stream().mapToLong(row -> row[0]).toArray(),
+            rows.stream().mapToLong(row -> row[1]).toArray(),
+            rows.stream().mapToLong(row -> row[2]).toArray()
+        );
+    }
+
+    private static Map<Long, List<Long>> toMap(ElementColumns elements) {
+        Map<Long, List<Long>> map = Maps.newHashMap();
+        for(int i = 0; i < elements.size(); ++i) {
+            assertNull(
+                "Id [" + elements.getIds()[i] + "] appears twice",
+                map.put(elements.getIds()[i], Lists.newArrayList(elements.getAs()[i], elements.getBs()[i]))
+            );
+        }
+        return map;
+    }
+}
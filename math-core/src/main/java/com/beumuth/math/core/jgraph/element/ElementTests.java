@@ -1,8 +1,18 @@
 package com.beumuth.math.core.jgraph.element;
 
+import com.beumuth.math.client.Page;
+import com.beumuth.math.client.jgraph.BulkDeleteResult;
+import com.beumuth.math.client.jgraph.BulkInsertStatistics;
+import com.beumuth.math.client.jgraph.ComponentClone;
 import com.beumuth.math.client.jgraph.CreateElementRequest;
 import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.ElementCacheStatistics;
 import com.beumuth.math.client.jgraph.ElementClient;
+import com.beumuth.math.client.jgraph.ElementKind;
+import com.beumuth.math.client.jgraph.ElementLockStatistics;
+import com.beumuth.math.client.jgraph.ElementPair;
+import com.beumuth.math.client.jgraph.RewireRequest;
+import com.beumuth.math.client.jgraph.RewireResult;
 import com.beumuth.math.client.jgraph.UpdateElementRequest;
 import com.beumuth.math.client.settheory.orderedset.OrderedSet;
 import com.beumuth.math.client.settheory.orderedset.OrderedSets;
@@ -25,6 +35,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -735,6 +750,28 @@ public class ElementTests {
         assertFalse(elementClient.isElementEndpoint(idNonexistent));
     }
 
+    @Test
+    public void isElementEndpointTest_referenceDeleted_shouldReturnFalse() {
+        long idNode = elementService.createNode();
+        long idPendant = elementService.createPendantFrom(idNode);
+        elementService.createLoopOn(idNode);
+        elementClient.deleteElement(idPendant);
+        assertTrue(elementClient.isElementEndpoint(idNode));
+        elementClient.deleteElements(Sets.newHashSet(elementService.getIdsLoopsOn(idNode)));
+        assertFalse(elementClient.isElementEndpoint(idNode));
+    }
+
+    @Test
+    public void isElementEndpointTest_referenceUpdated_shouldFollowUpdate() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idPendant = elementService.createPendantFrom(idNode1);
+        elementClient.updateElement(idPendant, new UpdateElementRequest(idNode2, idPendant));
+        assertFalse(elementClient.isElementEndpoint(idNode1));
+        assertTrue(elementClient.isElementEndpoint(idNode2));
+        assertTrue(elementClient.isElementPendantFrom(idPendant, idNode2));
+    }
+
     @Test
     public void areElementsEndpointsTest_emptyList_shouldReturnEmptyOrderedSet() {
         assertEquals(Collections.emptyList(), elementClient.areElementsEndpoints(OrderedSets.empty()));
@@ -838,6 +875,91 @@ public class ElementTests {
         }
     }
 
+    @Test
+    public void areElementsConnectedTest_yes_farApart_shouldReturnTrue() {
+        long idFirst = elementService.createNode();
+        long idLast = idFirst;
+        for(int i = 0; i < 10; ++i) {
+            idLast = elementService.createPendantFrom(idLast);
+        }
+        assertTrue(elementClient.areElementsConnected(idFirst, idLast));
+        assertTrue(elementClient.areElementsConnected(idLast, idFirst));
+    }
+
+    @Test
+    public void areElementsConnectedTest_pairs_shouldAnswerEach() {
+        long idNode1 = elementService.createNode();
+        long idPendant1 = elementService.createPendantFrom(idNode1);
+        long idLoop1 = elementService.createLoopOn(idPendant1);
+        long idNode2 = elementService.createNode();
+        assertEquals(
+            Lists.newArrayList(true, true, false, true, false, false),
+            elementClient.areElementsConnected(
+                Lists.newArrayList(
+                    new ElementPair(idNode1, idLoop1),
+                    new ElementPair(idLoop1, idPendant1),
+                    new ElementPair(idNode1, idNode2),
+                    new ElementPair(idNode2, idNode2),
+                    new ElementPair(idNode1, idNonexistent),
+                    new ElementPair(idNonexistent, idNonexistent)
+                )
+            )
+        );
+    }
+
+    @Test
+    public void areElementsConnectedTest_noPairs_shouldReturnEmpty() {
+        assertTrue(elementClient.areElementsConnected(Lists.newArrayList()).isEmpty());
+    }
+
+    @Test
+    public void getShortestPathTest_same_shouldReturnIt() {
+        long idNode = elementService.createNode();
+        assertEquals(OrderedSets.with(idNode), elementClient.getShortestPath(idNode, idNode));
+    }
+
+    @Test
+    public void getShortestPathTest_edge_shouldPassThroughIt() {
+        long idA = elementService.createNode();
+        long idB = elementService.createNode();
+        long idEdge = elementService.createElement(idA, idB);
+        assertEquals(OrderedSets.with(idA, idEdge, idB), elementClient.getShortestPath(idA, idB));
+        assertEquals(OrderedSets.with(idB, idEdge, idA), elementClient.getShortestPath(idB, idA));
+    }
+
+    @Test
+    public void getShortestPathTest_shortcut_shouldTakeShortcut() {
+        long idFirst = elementService.createNode();
+        long idLast = idFirst;
+        for(int i = 0; i < 5; ++i) {
+            idLast = elementService.createPendantFrom(idLast);
+        }
+        long idShortcut = elementService.createElement(idFirst, idLast);
+        assertEquals(
+            OrderedSets.with(idFirst, idShortcut, idLast),
+            elementClient.getShortestPath(idFirst, idLast)
+        );
+    }
+
+    @Test
+    public void getShortestPathTest_notConnected_shouldReturnEmpty() {
+        assertTrue(
+            elementClient
+                .getShortestPath(elementService.createNode(), elementService.createNode())
+                .isEmpty()
+        );
+    }
+
+    @Test
+    public void getShortestPathTest_doesNotExist_shouldReturn404() {
+        try {
+            elementClient.getShortestPath(elementService.createNode(), idNonexistent);
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 404, idNonexistent + "");
+        }
+    }
+
     @Test
     public void numElementsWithAOrBTest_oneAExists_shouldReturnOne() {
         assertEquals(
@@ -1155,6 +1277,64 @@ public class ElementTests {
         );
     }
 
+    @Test
+    public void getAllIdsPageTest_manyExist_shouldPageThroughAllInOrder() {
+        OrderedSet<Long> idNodes = elementService.createNodes(10);
+        List<Long> idsPaged = Lists.newArrayList();
+        String cursor = null;
+        int numPages = 0;
+        do {
+            Page<Long> page = elementClient.getAllIdsPage(cursor, 3);
+            assertTrue(page.getItems().size() <= 3);
+            idsPaged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            ++numPages;
+        } while(cursor != null);
+        assertEquals(idNodes, idsPaged);
+        assertEquals(4, numPages);
+    }
+
+    @Test
+    public void getAllIdsPageTest_exactlyOnePage_shouldHaveNoNextCursor() {
+        OrderedSet<Long> idNodes = elementService.createNodes(3);
+        Page<Long> page = elementClient.getAllIdsPage(null, 3);
+        assertEquals(idNodes, page.getItems());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void getAllIdsPageTest_invalidCursor_shouldReturn400() {
+        try {
+            elementClient.getAllIdsPage("not a cursor", 3);
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 400, "cursor");
+        }
+    }
+
+    @Test
+    public void getAllIdsPageTest_limitTooSmall_shouldReturn400() {
+        try {
+            elementClient.getAllIdsPage(null, 0);
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 400, "limit");
+        }
+    }
+
+    @Test
+    public void iterateAllIdsTest_noneAdded_shouldBeEmpty() {
+        assertFalse(elementClient.iterateAllIds().hasNext());
+    }
+
+    @Test
+    public void iterateAllIdsTest_manyExist_shouldIterateInOrder() {
+        assertEquals(
+            elementService.createNodes(10),
+            Lists.newArrayList(elementClient.iterateAllIds())
+        );
+    }
+
     @Test
     public void getIdsTest_allExist_shouldReturnAll() {
         OrderedSet<Long> idElements = OrderedSets.with(elementService.createNodes(5));
@@ -1755,6 +1935,21 @@ public class ElementTests {
         );
     }
 
+    @Test
+    public void iterateAllElementsTest_noneAdded_shouldBeEmpty() {
+        assertFalse(elementClient.iterateAllElements().hasNext());
+    }
+
+    @Test
+    public void iterateAllElementsTest_manyExist_shouldIterateInOrder() {
+        List<Element> expected = mockElementService.nodes(5);
+        List<Element> actual = Lists.newArrayList(elementClient.iterateAllElements());
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            assertElementsSame(expected.get(i), actual.get(i));
+        }
+    }
+
     @Test
     public void getElementsWithAOrBTest_noneExist_shouldReturnEmptyList() {
         assertTrue(
@@ -1996,6 +2191,27 @@ public class ElementTests {
         );
     }
 
+    @Test
+    public void getPendantsFromPageTest_manyExist_shouldPageThroughAll() {
+        long idNode = elementService.createNode();
+        OrderedSet<Element> pendants = mockElementService.pendantsFrom(idNode, 5);
+        Page<Element> first = elementClient.getPendantsFromPage(idNode, null, 3);
+        Page<Element> second = elementClient.getPendantsFromPage(idNode, first.getNextCursor(), 3);
+        assertEquals(pendants.subList(0, 3), first.getItems());
+        assertEquals(pendants.subList(3, 5), second.getItems());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void getPendantsFromPageTest_doesNotExist_shouldReturn404() {
+        try {
+            elementClient.getPendantsFromPage(idNonexistent, null, 3);
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 404, idNonexistent + "");
+        }
+    }
+
     @Test
     public void getPendantsFromTest_doesNotExist_shouldReturn404() {
         try {
@@ -2391,6 +2607,60 @@ public class ElementTests {
         }
     }
 
+    @Test
+    public void createElementsTest_manyElements_manyInvalid_shouldReportAll() {
+        long idNonexistentA = idNonexistentMultiple.get(0);
+        long idNonexistentB = idNonexistentMultiple.get(1);
+        try {
+            elementClient.createElements(
+                Lists.newArrayList(
+                    new CreateElementRequest(idNonexistentA, 0),
+                    new CreateElementRequest(0, idNonexistentB),
+                    new CreateElementRequest(-4, 0)
+                )
+            );
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 400, Sets.newHashSet(idNonexistentA + "", idNonexistentB + "", "-4"));
+        }
+        assertTrue(elementService.getAllIds().isEmpty());
+    }
+
+    @Test
+    public void cloneComponentTest_withForwardReferencesAndCycle_shouldBeCopied() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idLoop = elementService.createLoopOn(idNode1);
+        long idEdge = elementService.createElement(idLoop, idNode2);
+        //idNode1 now references a later Element, closing the cycle idNode1 -> idEdge -> idLoop -> idNode1
+        elementService.updateElement(idNode1, new UpdateElementRequest(idNode1, idEdge));
+        long idOther = elementService.createNode();
+
+        ComponentClone clone = elementClient.cloneComponent(idNode2);
+        assertEquals(Lists.newArrayList(idNode1, idNode2, idLoop, idEdge), clone.getSourceIds());
+        assertEquals(0, clone.getCloneId(idOther));
+        for(long idSource : clone.getSourceIds()) {
+            Element source = elementService.getElement(idSource);
+            assertEquals(
+                new Element(clone.getCloneId(idSource), clone.getCloneId(source.getA()), clone.getCloneId(source.getB())),
+                elementService.getElement(clone.getCloneId(idSource))
+            );
+        }
+        assertTrue(elementService.areElementsConnected(clone.getCloneId(idNode1), clone.getCloneId(idNode2)));
+        assertFalse(elementService.areElementsConnected(idNode1, clone.getCloneId(idNode1)));
+        assertTrue(elementService.isElementEndpoint(clone.getCloneId(idEdge)));
+    }
+
+    @Test
+    public void cloneComponentTest_doesNotExist_shouldReturn404() {
+        try {
+            elementClient.cloneComponent(idNonexistent);
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 404, idNonexistent + "");
+        }
+    }
+
     @Test
     public void createNodeTest_shouldBeCreated() {
         assertTrue(
@@ -2827,6 +3097,82 @@ public class ElementTests {
         }
     }
 
+    @Test
+    public void rewireTest_aAndB_shouldMoveEverythingHangingOffFrom() {
+        long idFrom = elementService.createNode();
+        long idTo = elementService.createNode();
+        long idPendantFrom = elementService.createPendantFrom(idFrom);
+        long idPendantTo = elementService.createPendantTo(idFrom);
+        long idLoop = elementService.createLoopOn(idFrom);
+        RewireResult result = elementClient.rewire(new RewireRequest(idFrom, idTo, true, true, null));
+        assertEquals(3, result.getNumElementsRewired());
+        assertEquals(2, result.getNumAsRewired());
+        assertEquals(2, result.getNumBsRewired());
+        assertEquals(
+            Lists.newArrayList(
+                new Element(idFrom, idFrom, idFrom),
+                new Element(idPendantFrom, idTo, idPendantFrom),
+                new Element(idPendantTo, idPendantTo, idTo),
+                new Element(idLoop, idTo, idTo)
+            ),
+            elementService.getElements(OrderedSets.with(idFrom, idPendantFrom, idPendantTo, idLoop))
+        );
+        assertTrue(elementService.isElementLoopOn(idLoop, idTo));
+        assertFalse(elementService.isElementEndpoint(idFrom));
+        assertTrue(elementService.isElementEndpoint(idTo));
+    }
+
+    @Test
+    public void rewireTest_onlyA_loopShouldBecomeEdge() {
+        long idFrom = elementService.createNode();
+        long idTo = elementService.createNode();
+        long idLoop = elementService.createLoopOn(idFrom);
+        RewireResult result = elementClient.rewire(new RewireRequest(idFrom, idTo, true, false, null));
+        assertEquals(1, result.getNumElementsRewired());
+        assertEquals(1, result.getNumAsRewired());
+        assertEquals(0, result.getNumBsRewired());
+        assertEquals(new Element(idLoop, idTo, idFrom), elementService.getElement(idLoop));
+        assertFalse(elementService.isElementLoopOn(idLoop, idFrom));
+        assertTrue(elementService.isElementEndpoint(idFrom));
+    }
+
+    @Test
+    public void rewireTest_kindFilter_shouldOnlyRewireThoseKinds() {
+        long idFrom = elementService.createNode();
+        long idTo = elementService.createNode();
+        long idPendantFrom = elementService.createPendantFrom(idFrom);
+        long idLoop = elementService.createLoopOn(idFrom);
+        RewireResult result = elementClient.rewire(
+            new RewireRequest(idFrom, idTo, true, true, Collections.singleton(ElementKind.LOOP))
+        );
+        assertEquals(1, result.getNumElementsRewired());
+        assertEquals(new Element(idPendantFrom, idFrom, idPendantFrom), elementService.getElement(idPendantFrom));
+        assertEquals(new Element(idLoop, idTo, idTo), elementService.getElement(idLoop));
+    }
+
+    @Test
+    public void rewireTest_toDoesNotExist_shouldReturn404() {
+        long idFrom = elementService.createNode();
+        try {
+            elementClient.rewire(new RewireRequest(idFrom, idNonexistent, true, true, null));
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 404, idNonexistent + "");
+        }
+    }
+
+    @Test
+    public void rewireTest_neitherAnorB_shouldReturn400() {
+        long idFrom = elementService.createNode();
+        long idTo = elementService.createNode();
+        try {
+            elementClient.rewire(new RewireRequest(idFrom, idTo, false, false, null));
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 400);
+        }
+    }
+
     @Test
     public void deleteElementsTest_emptySet_shouldDoNothing() {
         elementClient.deleteElements(Collections.emptySet());
@@ -2856,10 +3202,276 @@ public class ElementTests {
         }
     }
 
+    @Test
+    public void deleteElementsTest_manyReferencedFromOutside_shouldReportAll() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idLoop1 = elementService.createLoopOn(idNode1);
+        long idPendant2 = elementService.createPendantFrom(idNode2);
+        try {
+            elementClient.deleteElements(Sets.newHashSet(idNode1, idNode2));
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 409, Sets.newHashSet(idLoop1 + "", idPendant2 + ""));
+        }
+        assertTrue(elementService.doAllElementsExist(Sets.newHashSet(idNode1, idNode2, idLoop1, idPendant2)));
+    }
+
+    @Test
+    public void deleteElementsTest_referencedOnlyFromWithin_shouldBeDeleted() {
+        long idNode = elementService.createNode();
+        long idLoop = elementService.createLoopOn(idNode);
+        elementClient.deleteElements(Sets.newHashSet(idNode, idLoop));
+        assertFalse(elementService.doAnyElementsExist(Sets.newHashSet(idNode, idLoop)));
+    }
+
     @Test
     public void deleteElementsTest_multiple() {
         Set<Long> ids = OrderedSets.with(idNonexistentMultiple, elementService.createNodes(5));
         elementClient.deleteElements(ids);
         assertFalse(elementService.doAnyElementsExist(ids));
     }
+
+    @Test
+    public void getDependencyClosureTest_shouldListDependentsBeforeTheirEndpoints() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idEdge12 = elementService.createElement(idNode1, idNode2);
+        long idPendant = elementService.createPendantFrom(idEdge12);
+        long idLoop2 = elementService.createLoopOn(idNode2);
+
+        OrderedSet<Long> closure = elementClient.getDependencyClosure(idNode1);
+        assertEquals(Sets.newHashSet(idNode1, idEdge12, idPendant), Sets.newHashSet(closure));
+        assertEquals(idNode1, (long) closure.get(closure.size() - 1));
+        assertTrue(closure.indexOf(idPendant) < closure.indexOf(idEdge12));
+        assertFalse(closure.contains(idNode2));
+        assertFalse(closure.contains(idLoop2));
+    }
+
+    @Test
+    public void getDependencyClosureTest_doesNotExist_shouldReturn404() {
+        try {
+            elementClient.getDependencyClosure(idNonexistent);
+            fail();
+        } catch(FeignException e) {
+            assertExceptionLike(e, 404, idNonexistent + "");
+        }
+    }
+
+    @Test
+    public void deleteElementWithDependentsTest_shouldDeleteOnlyTheClosure() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idEdge12 = elementService.createElement(idNode1, idNode2);
+        long idPendant = elementService.createPendantFrom(idEdge12);
+        long idLoop1 = elementService.createLoopOn(idNode1);
+
+        BulkDeleteResult result = elementClient.deleteElementWithDependents(idNode1);
+        assertEquals(4, result.getNumElementsDeleted());
+        assertFalse(elementService.doAnyElementsExist(Sets.newHashSet(idNode1, idEdge12, idPendant, idLoop1)));
+        assertTrue(elementService.doesElementExist(idNode2));
+    }
+
+    @Test
+    public void deleteElementWithDependentsTest_doesNotExist_shouldDeleteNothing() {
+        long idNode = elementService.createNode();
+        assertEquals(0, elementClient.deleteElementWithDependents(idNonexistent).getNumElementsDeleted());
+        assertTrue(elementService.doesElementExist(idNode));
+    }
+
+    @Test
+    public void bulkLookupTest_longListAndShortLists_shouldAgree() {
+        //Long enough to be loaded into IdLookup, while each sublist of 5 is looked up with IN (:ids)
+        long idNode = elementService.createNode();
+        List<Long> ids = Lists.newArrayList(idNode);
+        ids.addAll(elementService.createPendantsFrom(idNode, 8));
+        ids.addAll(elementService.createPendantsTo(idNode, 8));
+        ids.addAll(elementService.createLoopsOn(idNode, 8));
+        ids.addAll(elementService.createNodes(8));
+        ids.add(elementService.createElement(ids.get(1), ids.get(2)));
+        ids.addAll(idNonexistentMultiple);
+        OrderedSet<Long> longList = OrderedSets.with(ids);
+        assertTrue(longList.size() >= 40);
+
+        assertEquals(
+            elementService.areElementsNodes(longList),
+            concatenateShortLists(longList, elementService::areElementsNodes)
+        );
+        assertEquals(
+            elementService.areElementsPendantsFrom(longList, idNode),
+            concatenateShortLists(longList, shortList -> elementService.areElementsPendantsFrom(shortList, idNode))
+        );
+        assertEquals(
+            elementService.areElementsPendantsTo(longList, idNode),
+            concatenateShortLists(longList, shortList -> elementService.areElementsPendantsTo(shortList, idNode))
+        );
+        assertEquals(
+            elementService.areElementsLoopsOn(longList, idNode),
+            concatenateShortLists(longList, shortList -> elementService.areElementsLoopsOn(shortList, idNode))
+        );
+        assertEquals(
+            elementService.areElementsEndpoints(longList),
+            concatenateShortLists(longList, elementService::areElementsEndpoints)
+        );
+        assertEquals(
+            elementService.getIds(longList),
+            concatenateShortLists(longList, elementService::getIds)
+        );
+        assertEquals(
+            Lists.newArrayList(elementService.getIdsThatDoNotExist(longList)),
+            concatenateShortLists(longList, elementService::getIdsThatDoNotExist)
+        );
+        assertEquals(
+            elementService.getIdsEndpointsOfForEach(longList),
+            concatenateShortLists(longList, elementService::getIdsEndpointsOfForEach)
+        );
+        List<Element> elements = elementService.getElements(longList);
+        List<Element> elementsFromShortLists = concatenateShortLists(longList, elementService::getElements);
+        assertEquals(elements.size(), elementsFromShortLists.size());
+        for(int i = 0; i < elements.size(); ++i) {
+            if(elements.get(i) == null) {
+                assertNull(elementsFromShortLists.get(i));
+            } else {
+                assertElementsSame(elements.get(i), elementsFromShortLists.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void getBulkInsertStatisticsTest_afterCreateElements_shouldCountCall() {
+        BulkInsertStatistics before = elementClient.getBulkInsertStatistics();
+        elementClient.createElements(
+            Lists.newArrayList(
+                new CreateElementRequest(0, 0),
+                new CreateElementRequest(0, 0),
+                new CreateElementRequest(-1, -1)
+            )
+        );
+        BulkInsertStatistics after = elementClient.getBulkInsertStatistics();
+        assertTrue(after.getNumCalls() >= before.getNumCalls() + 1);
+        assertTrue(after.getNumElementsInserted() >= before.getNumElementsInserted() + 3);
+        assertTrue(after.getNumChunksExecuted() >= before.getNumChunksExecuted() + 1);
+        assertTrue(after.getMillisecondsElapsed() >= before.getMillisecondsElapsed());
+        assertTrue(after.getElementsPerSecond() >= 0);
+    }
+
+    @Test
+    public void getCacheStatisticsTest_cacheDisabled_shouldBeEmpty() {
+        long idNode = elementService.createNode();
+        for(int i = 0; i < 3; ++i) {
+            elementClient.getElement(idNode);
+            elementClient.doesElementExist(idNonexistent);
+        }
+        //jgraph.cache.enabled is false here; ElementCacheTests covers the cache itself
+        ElementCacheStatistics statistics = elementClient.getCacheStatistics();
+        assertEquals(0, statistics.getCapacity());
+        assertEquals(0, statistics.getSize());
+        assertEquals(0, statistics.getNumHits() + statistics.getNumNegativeHits() + statistics.getNumMisses());
+    }
+
+    @Test
+    public void getLockStatisticsTest_afterWrites_shouldCountAcquisitions() {
+        long numAcquisitionsBefore = elementClient.getLockStatistics().getNumAcquisitions();
+        long idNode = elementService.createNode();
+        long idLoop = elementClient.createLoopOn(idNode);
+        elementClient.deleteElement(idLoop);
+        ElementLockStatistics statistics = elementClient.getLockStatistics();
+        assertTrue(statistics.getNumStripes() > 0);
+        assertTrue(statistics.getNumAcquisitions() >= numAcquisitionsBefore + 2);
+        assertTrue(statistics.getMaxMicrosecondsWaited() <= statistics.getMicrosecondsWaited());
+    }
+
+    @Test
+    public void createPendantFromTest_concurrentWithDeleteOfFrom_exactlyOneShouldSucceed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for(int round = 0; round < 50; ++round) {
+                long idNode = elementService.createNode();
+                CountDownLatch start = new CountDownLatch(1);
+                Future<Long> create = executor.submit(() -> {
+                    start.await();
+                    try {
+                        return elementClient.createPendantFrom(idNode);
+                    } catch(FeignException e) {
+                        assertExceptionLike(e, 404);
+                        return null;
+                    }
+                });
+                Future<Boolean> delete = executor.submit(() -> {
+                    start.await();
+                    try {
+                        elementClient.deleteElement(idNode);
+                        return true;
+                    } catch(FeignException e) {
+                        assertExceptionLike(e, 409);
+                        return false;
+                    }
+                });
+                start.countDown();
+                Long idPendant = create.get();
+                boolean deleted = delete.get();
+
+                //Either the delete went first and the create found nothing to reference, or the create went first
+                //and the delete found the node referenced; never a pendant from a deleted node
+                assertNotEquals(deleted, idPendant != null);
+                if(deleted) {
+                    assertFalse(elementService.doesElementExist(idNode));
+                } else {
+                    assertTrue(elementService.isElementPendantFrom(idPendant, idNode));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void deleteElementWithDependentsTest_concurrentWithCreateOnDependent_shouldDeleteBoth() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for(int round = 0; round < 30; ++round) {
+                long idRoot = elementService.createNode();
+                long idPendant = elementService.createPendantFrom(idRoot);
+                long idLoop = elementService.createLoopOn(idPendant);
+                CountDownLatch start = new CountDownLatch(1);
+                Future<Long> create = executor.submit(() -> {
+                    start.await();
+                    try {
+                        return elementClient.createPendantFrom(idLoop);
+                    } catch(FeignException e) {
+                        assertExceptionLike(e, 404);
+                        return null;
+                    }
+                });
+                Future<BulkDeleteResult> delete = executor.submit(() -> {
+                    start.await();
+                    return elementClient.deleteElementWithDependents(idRoot);
+                });
+                start.countDown();
+                Long idCreated = create.get();
+                delete.get();
+
+                //Either the create went first and its Element joined the closure, or it found the loop deleted
+                for(long id : new long[] {idRoot, idPendant, idLoop}) {
+                    assertFalse(elementService.doesElementExist(id));
+                }
+                if(idCreated != null) {
+                    assertFalse(elementService.doesElementExist(idCreated));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> List<T> concatenateShortLists(
+        OrderedSet<Long> ids,
+        Function<OrderedSet<Long>, ? extends Collection<T>> lookup
+    ) {
+        List<T> result = Lists.newArrayList();
+        for(int from = 0; from < ids.size(); from += 5) {
+            result.addAll(lookup.apply(OrderedSets.with(ids.subList(from, Math.min(from + 5, ids.size())))));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,158 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.CreateElementRequest;
+import com.beumuth.math.client.jgraph.UpdateElementRequest;
+import com.beumuth.math.client.settheory.orderedset.OrderedSet;
+import com.beumuth.math.core.internal.primitive.LongHashSet;
+import com.github.instantpudd.validator.ClientErrorException;
+import com.github.instantpudd.validator.ClientErrorStatusCode;
+import com.github.instantpudd.validator.Validator;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.instantpudd.validator.ClientErrorStatusCode.*;
+
+/**
+ * Validates Element writes in bulk. Every id a batch references is resolved with one set-based lookup, however large
+ * the batch, and every violation is reported in a single error rather than only the first.
+ */
+@Service
+public class ElementValidationService {
+    @Autowired
+    private ElementService elementService;
+
+    public void validateElementExists(long id, ClientErrorStatusCode statusCode, String message)
+        throws ClientErrorException {
+        Validator
+            .returnStatus(statusCode)
+            .ifFalse(elementService.doesElementExist(id))
+            .withErrorMessage(message)
+            .execute();
+    }
+
+    /**
+     * Each request's a and b must either exist or, if negative, reference an Element of the batch.
+     */
+    public void validateCreateElementRequests(List<CreateElementRequest> requests) throws ClientErrorException {
+        List<String> violations = Lists.newArrayList();
+        for(int i = 0; i < requests.size(); ++i) {
+            for(long value : new long[] {requests.get(i).getA(), requests.get(i).getB()}) {
+                if(value < 0 && -1 * value >= requests.size()) {
+                    violations.add(
+                        "Request [" + i + "] was given [" + value + "], which references the " + (-1 * value) + "th " +
+                            "Element of this request; but the request only contains " + requests.size() + " Elements."
+                    );
+                }
+            }
+        }
+        OrderedSet<Long> referencedIdsThatDoNotExist = getIdsThatDoNotExist(
+            requests
+                .stream()
+                .flatMap(request -> Stream.of(request.getA(), request.getB()))
+                .filter(value -> value > 0)
+                .collect(Collectors.toList())
+        );
+        if(! referencedIdsThatDoNotExist.isEmpty()) {
+            violations.add("Elements with the following given a's and b's do not exist: " + referencedIdsThatDoNotExist);
+        }
+        fail(BAD_REQUEST, violations);
+    }
+
+    /**
+     * The Elements being updated must exist (NOT_FOUND), as must their new a's and b's (BAD_REQUEST). All of the ids
+     * are resolved in one lookup, and a NOT_FOUND error also lists any missing a's and b's.
+     */
+    public void validateUpdateElementRequests(OrderedSet<Long> ids, List<UpdateElementRequest> requests)
+        throws ClientErrorException {
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifFalse(ids.size() == requests.size())
+            .withErrorMessage(
+                "The number of ids must match the number of UpdateElementRequests in the body. " +
+                ids.size() + " ids and " + requests.size() + " requests were given."
+            ).execute();
+
+        List<Long> referencedIds = Lists.newArrayList(ids);
+        requests.forEach(request -> {
+            referencedIds.add(request.getA());
+            referencedIds.add(request.getB());
+        });
+        OrderedSet<Long> idsThatDoNotExist = getIdsThatDoNotExist(referencedIds);
+        if(idsThatDoNotExist.isEmpty()) {
+            return;
+        }
+
+        List<String> violations = Lists.newArrayList();
+        Set<Long> missing = Sets.newHashSet(idsThatDoNotExist);
+        Set<Long> missingIds = filter(ids.stream(), missing);
+        Set<Long> missingAs = filter(requests.stream().map(UpdateElementRequest::getA), missing);
+        Set<Long> missingBs = filter(requests.stream().map(UpdateElementRequest::getB), missing);
+        if(! missingIds.isEmpty()) {
+            violations.add("Elements with the following ids do not exist: " + missingIds);
+        }
+        if(! missingAs.isEmpty()) {
+            violations.add("Elements with the given a elements do not exist " + missingAs + ".");
+        }
+        if(! missingBs.isEmpty()) {
+            violations.add("Elements with the given b elements do not exist " + missingBs + ".");
+        }
+        fail(missingIds.isEmpty() ? BAD_REQUEST : NOT_FOUND, violations);
+    }
+
+    /**
+     * No Element outside of ids may have an Element of ids as its a or b. Resolved with one lookup of the Elements
+     * that reference ids, after which the ones inside the batch are discarded.
+     */
+    public void validateDeletable(Collection<Long> ids) throws ClientErrorException {
+        long[] idsArray = ids.stream().mapToLong(Long::longValue).toArray();
+        LongHashSet deleting = LongHashSet.of(idsArray);
+        Map<Long, Set<Long>> referencersNotBeingDeleted = Maps.newTreeMap();
+        elementService.forEachElementWithAOrBIn(idsArray, (id, a, b) -> {
+            if(deleting.contains(id)) {
+                return;
+            }
+            for(long endpoint : new long[] {a, b}) {
+                if(deleting.contains(endpoint)) {
+                    referencersNotBeingDeleted.computeIfAbsent(endpoint, key -> Sets.newTreeSet()).add(id);
+                }
+            }
+        });
+        Validator
+            .returnStatus(CONFLICT)
+            .ifFalse(referencersNotBeingDeleted.isEmpty())
+            .withErrorMessage(
+                "There were elements that could not be deleted due to containing endpoints not being deleted." +
+                " Here is a map from the invalid ids to its endpoints that are not being deleted: " +
+                referencersNotBeingDeleted
+            ).execute();
+    }
+
+    private OrderedSet<Long> getIdsThatDoNotExist(Collection<Long> ids) {
+        OrderedSet<Long> distinctIds = new OrderedSet<>(Sets.newLinkedHashSet(ids));
+        return distinctIds.isEmpty() ? distinctIds : elementService.getIdsThatDoNotExist(distinctIds);
+    }
+
+    private Set<Long> filter(Stream<Long> ids, Set<Long> missing) {
+        return ids
+            .filter(missing::contains)
+            .collect(Collectors.toCollection(OrderedSet::new));
+    }
+
+    private void fail(ClientErrorStatusCode statusCode, List<String> violations) throws ClientErrorException {
+        Validator
+            .returnStatus(statusCode)
+            .ifFalse(violations.isEmpty())
+            .withErrorMessage(String.join(" ", violations))
+            .execute();
+    }
+}
@@ -0,0 +1,156 @@
+package com.beumuth.math.core.jgraph.element;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Group commit for single Element creates. Concurrent creates are queued without locking and flushed together as one
+ * multi-row insert, either every maxDelayMillis or as soon as maxBatchSize are waiting, whichever comes first. Each
+ * create's future completes with its id once its batch commits.
+ *
+ * If a batch fails (for example, because one create references an Element that doesn't exist), its creates are retried
+ * one at a time, so only the creates that fail on their own complete exceptionally.
+ *
+ * Once shut down, creates are no longer queued but run on the calling thread.
+ */
+class ElementWriteCoalescer {
+    private final BatchCreator createBatch;
+    private final LongBinaryOperator createOne;
+    private final int maxBatchSize;
+    private final Queue<PendingCreate> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numQueued = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private volatile boolean stopped;
+
+    /**
+     * @param createBatch Creates the Elements (as[i], bs[i]) with the semantics of CreateElementRequest, returning
+     *                    their ids in order.
+     * @param createOne Creates a single Element (a, b), where 0 means the Element itself, returning its id.
+     */
+    ElementWriteCoalescer(BatchCreator createBatch, LongBinaryOperator createOne, int maxBatchSize, long maxDelayMillis) {
+        this.createBatch = createBatch;
+        this.createOne = createOne;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jgraph-write-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long delay = Math.max(maxDelayMillis, 1);
+        flusher.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue the creation of Element (a, b), where an a or b of 0 means the Element itself.
+     */
+    CompletableFuture<Long> create(long a, long b) {
+        PendingCreate create = new PendingCreate(a, b);
+        if(stopped) {
+            flushAlone(create);
+            return create.future;
+        }
+        queue.add(create);
+        boolean full = numQueued.incrementAndGet() >= maxBatchSize;
+        if(stopped) {
+            //The final flush may already have run, so nothing else is left to flush this create
+            flush();
+        } else if(full && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flush);
+            } catch(RejectedExecutionException e) {
+                //Shut down since stopped was read; the final flush takes this create
+            }
+        }
+        return create.future;
+    }
+
+    /**
+     * Flush what is queued and stop. Creates made afterwards run on the calling thread.
+     */
+    void shutdown() {
+        stopped = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Runs on the flusher thread until it stops, and then on whichever threads shut it down or create afterwards. Each
+     * create is polled from the queue, and so flushed, exactly once.
+     */
+    private void flush() {
+        flushRequested.set(false);
+        while(true) {
+            List<PendingCreate> batch = new ArrayList<>(Math.min(numQueued.get(), maxBatchSize));
+            PendingCreate create;
+            while(batch.size() < maxBatchSize && (create = queue.poll()) != null) {
+                batch.add(create);
+            }
+            if(batch.isEmpty()) {
+                return;
+            }
+            numQueued.addAndGet(-batch.size());
+            flush(batch);
+        }
+    }
+
+    private void flush(List<PendingCreate> batch) {
+        //Within a batch, -i refers to the ith Element of the batch
+        long[] as = new long[batch.size()];
+        long[] bs = new long[batch.size()];
+        for(int i = 0; i < batch.size(); ++i) {
+            as[i] = batch.get(i).a == 0 ? -i : batch.get(i).a;
+            bs[i] = batch.get(i).b == 0 ? -i : batch.get(i).b;
+        }
+        List<Long> ids;
+        try {
+            ids = createBatch.create(as, bs);
+        } catch(Throwable e) {
+            //Not just RuntimeExceptions: anything thrown on the flusher thread would cancel the scheduled flushes
+            batch.forEach(this::flushAlone);
+            return;
+        }
+        for(int i = 0; i < batch.size(); ++i) {
+            batch.get(i).future.complete(ids.get(i));
+        }
+    }
+
+    private void flushAlone(PendingCreate create) {
+        try {
+            create.future.complete(createOne.applyAsLong(create.a, create.b));
+        } catch(Throwable e) {
+            create.future.completeExceptionally(e);
+        }
+    }
+
+    @FunctionalInterface
+    interface BatchCreator {
+        List<Long> create(long[] as, long[] bs);
+    }
+
+    private static class PendingCreate {
+        private final long a;
+        private final long b;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private PendingCreate(long a, long b) {
+            this.a = a;
+            this.b = b;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs ElementWriteCoalescers against in-memory creators that hand out increasing ids and record each batch.
+ */
+public class ElementWriteCoalescerTests {
+    private static final long NEVER_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final List<long[][]> batches = Collections.synchronizedList(Lists.newArrayList());
+    private final List<long[]> singles = Collections.synchronizedList(Lists.newArrayList());
+    private ElementWriteCoalescer coalescer;
+
+    @After
+    public void cleanupTest() {
+        if(coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    public void createTest_maxBatchSizeQueued_shouldFlushWithoutWaiting() throws Exception {
+        coalescer = new ElementWriteCoalescer(this::createBatch, this::createOne, 3, NEVER_MILLIS);
+        List<CompletableFuture<Long>> futures = Lists.newArrayList(coalescer.create(0, 0), coalescer.create(0, 0));
+        Thread.sleep(100);
+        assertFalse(futures.stream().anyMatch(CompletableFuture::isDone));
+
+        futures.add(coalescer.create(0, 0));
+        assertEquals(Lists.newArrayList(1L, 2L, 3L), join(futures));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void createTest_fewerThanMaxBatchSize_shouldFlushAfterDelay() throws Exception {
+        coalescer = new ElementWriteCoalescer(this::createBatch, this::createOne, 100, 20);
+        List<CompletableFuture<Long>> futures = Lists.newArrayList(coalescer.create(0, 0), coalescer.create(0, 0));
+        assertEquals(Lists.newArrayList(1L, 2L), join(futures));
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0)[0].length);
+        assertTrue(singles.isEmpty());
+    }
+
+    @Test
+    public void createTest_selfReferences_shouldBeRemappedToPositionInBatch() throws Exception {
+        coalescer = new ElementWriteCoalescer(this::createBatch, this::createOne, 3, NEVER_MILLIS);
+        join(Lists.newArrayList(coalescer.create(0, 0), coalescer.create(5, 0), coalescer.create(0, 7)));
+        assertArrayEquals(new long[] {0, 5, -2}, batches.get(0)[0]);
+        assertArrayEquals(new long[] {0, -1, 7}, batches.get(0)[1]);
+    }
+
+    @Test
+    public void createTest_batchFails_shouldRetryOneAtATime() throws Exception {
+        long idNonexistent = 99;
+        //The batch fails as a whole, as does the create that references the nonexistent Element on its own
+        coalescer = new ElementWriteCoalescer(
+            (as, bs) -> {
+                throw new IllegalArgumentException();
+            },
+            (a, b) -> {
+                if(a == idNonexistent) {
+                    throw new IllegalArgumentException("Element [" + a + "] does not exist");
+                }
+                return createOne(a, b);
+            },
+            3,
+            NEVER_MILLIS
+        );
+        CompletableFuture<Long> first = coalescer.create(0, 0);
+        CompletableFuture<Long> failing = coalescer.create(idNonexistent, 0);
+        CompletableFuture<Long> last = coalescer.create(0, 0);
+        assertEquals(Lists.newArrayList(1L, 2L), join(Lists.newArrayList(first, last)));
+        try {
+            failing.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail();
+        } catch(ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(2, singles.size());
+    }
+
+    @Test
+    public void createTest_batchThrowsError_shouldRetryAndKeepFlushing() throws Exception {
+        AtomicBoolean thrown = new AtomicBoolean();
+        coalescer = new ElementWriteCoalescer(
+            (as, bs) -> {
+                if(thrown.compareAndSet(false, true)) {
+                    throw new AssertionError();
+                }
+                return createBatch(as, bs);
+            },
+            this::createOne,
+            100,
+            20
+        );
+        assertEquals(Lists.newArrayList(1L), join(Lists.newArrayList(coalescer.create(0, 0))));
+        assertTrue(thrown.get());
+        //Were the scheduled flushes cancelled, this would never complete
+        assertEquals(Lists.newArrayList(2L), join(Lists.newArrayList(coalescer.create(0, 0))));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void shutdownTest_shouldFlushQueuedAndRunLaterCreatesInline() throws Exception {
+        coalescer = new ElementWriteCoalescer(this::createBatch, this::createOne, 100, NEVER_MILLIS);
+        List<CompletableFuture<Long>> queued = Lists.newArrayList(coalescer.create(0, 0), coalescer.create(0, 0));
+        coalescer.shutdown();
+        assertTrue(queued.stream().allMatch(CompletableFuture::isDone));
+        assertEquals(Lists.newArrayList(1L, 2L), join(queued));
+
+        CompletableFuture<Long> afterShutdown = coalescer.create(4, 0);
+        assertTrue(afterShutdown.isDone());
+        assertEquals(3L, (long) afterShutdown.get());
+        assertArrayEquals(new long[] {4, 0}, singles.get(0));
+    }
+
+    private List<Long> createBatch(long[] as, long[] bs) {
+        batches.add(new long[][] {as.clone(), bs.clone()});
+        long first = nextId.getAndAdd(as.length);
+        return LongStream
+            .range(first, first + as.length)
+            .boxed()
+            .collect(Collectors.toList());
+    }
+
+    private long createOne(long a, long b) {
+        singles.add(new long[] {a, b});
+        return nextId.getAndIncrement();
+    }
+
+    private static List<Long> join(List<CompletableFuture<Long>> futures) throws Exception {
+        List<Long> ids = Lists.newArrayList();
+        for(CompletableFuture<Long> future : futures) {
+            ids.add(future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        return ids;
+    }
+}
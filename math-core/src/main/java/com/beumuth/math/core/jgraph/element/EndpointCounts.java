@@ -0,0 +1,79 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.core.internal.primitive.LongIntHashMap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Accumulates the changes to JGraphElement.endpointCount caused by a write, so they can be applied in the write's
+ * transaction with one batched statement. An Element that references another as both its a and b counts once, and an
+ * Element does not count toward its own endpointCount.
+ */
+class EndpointCounts {
+    private static final String UPDATE_SQL =
+        "UPDATE JGraphElement SET endpointCount = endpointCount + ? WHERE id = ?";
+
+    private final LongIntHashMap deltas = new LongIntHashMap();
+
+    /**
+     * Element (id, a, b) now exists
+     */
+    void referenced(long id, long a, long b) {
+        change(id, a, b, 1);
+    }
+
+    /**
+     * Element (id, a, b) no longer exists
+     */
+    void unreferenced(long id, long a, long b) {
+        change(id, a, b, -1);
+    }
+
+    /**
+     * Skip the Elements with the given ids, for example because they have been deleted.
+     */
+    void discard(long[] ids) {
+        for(long id : ids) {
+            deltas.remove(id, 0);
+        }
+    }
+
+    void apply(Connection connection) throws SQLException {
+        if(deltas.isEmpty()) {
+            return;
+        }
+        try(PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            SQLException[] failure = new SQLException[1];
+            deltas.forEach((id, delta) -> {
+                if(delta != 0 && failure[0] == null) {
+                    try {
+                        statement.setInt(1, delta);
+                        statement.setLong(2, id);
+                        statement.addBatch();
+                    } catch(SQLException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if(failure[0] != null) {
+                throw failure[0];
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void change(long id, long a, long b, int delta) {
+        if(a != id) {
+            add(a, delta);
+        }
+        if(b != id && b != a) {
+            add(b, delta);
+        }
+    }
+
+    private void add(long id, int delta) {
+        deltas.put(id, deltas.get(id, 0) + delta, 0);
+    }
+}
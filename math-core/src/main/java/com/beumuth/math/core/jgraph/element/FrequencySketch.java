@@ -0,0 +1,83 @@
+package com.beumuth.math.core.jgraph.element;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch of how often each id has been accessed recently, in 4-bit counters (saturating at 15) over four
+ * rows. Once the number of increments reaches ten times the width, every counter is halved, so old popularity decays
+ * and the sketch follows a changing workload.
+ * Not thread-safe.
+ */
+class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L,
+        0xC2B2AE3D27D4EB4FL,
+        0x165667B19E3779F9L,
+        0xD6E8FEB86659FD93L
+    };
+
+    private final byte[] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int numIncrements;
+
+    /**
+     * @param expectedSize The number of distinct ids whose frequencies should be told apart; usually the cache size.
+     */
+    FrequencySketch(int expectedSize) {
+        int width = Integer.highestOneBit(Math.max(expectedSize, 16) - 1) << 1;
+        counters = new byte[DEPTH * width];
+        mask = width - 1;
+        sampleSize = 10 * width;
+    }
+
+    /**
+     * @return The estimated number of recent accesses to the id, at most 15.
+     */
+    int frequency(long id) {
+        int frequency = MAX_COUNT;
+        for(int row = 0; row < DEPTH; ++row) {
+            frequency = Math.min(frequency, counters[indexOf(id, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Only the smallest of the id's counters are incremented (conservative update), which keeps collisions from
+     * inflating the estimates of rarely accessed ids.
+     */
+    void increment(long id) {
+        int frequency = frequency(id);
+        if(frequency == MAX_COUNT) {
+            return;
+        }
+        for(int row = 0; row < DEPTH; ++row) {
+            int index = indexOf(id, row);
+            if(counters[index] == frequency) {
+                ++counters[index];
+            }
+        }
+        if(++numIncrements == sampleSize) {
+            age();
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counters, (byte) 0);
+        numIncrements = 0;
+    }
+
+    private void age() {
+        for(int i = 0; i < counters.length; ++i) {
+            counters[i] >>= 1;
+        }
+        numIncrements /= 2;
+    }
+
+    private int indexOf(long id, int row) {
+        long h = (id + row) * SEEDS[row];
+        return row * (mask + 1) + ((int) (h ^ (h >>> 32)) & mask);
+    }
+}
@@ -0,0 +1,315 @@
+package com.beumuth.math.core.jgraph.element;
+
+import com.beumuth.math.client.jgraph.Element;
+import com.beumuth.math.client.jgraph.UpdateElementRequest;
+import com.beumuth.math.client.settheory.orderedset.OrderedSets;
+import com.beumuth.math.core.internal.database.DatabaseService;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * ElementTests reach the running node through the ElementClient, so they only exercise the ElementIndex if that node
+ * has it enabled. These tests call an ElementService of their own with the index enabled, and check what it answers
+ * from memory against the JGraphElement table after each kind of write.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = "jgraph.index.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class IndexedElementTests {
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private MockElementService mockElementService;
+    @Autowired
+    private DatabaseService databaseService;
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+        assertIndexMatchesTable();
+    }
+
+    @Test
+    public void isIndexedTest_shouldBeIndexed() {
+        assertTrue(elementService.isIndexed());
+    }
+
+    @Test
+    public void elementIndexTest_pages_shouldMatchBruteForce() {
+        Random random = new Random(5);
+        ElementIndex index = new ElementIndex(16);
+        Map<Long, long[]> rows = new TreeMap<>();
+        for(long id = 1; id <= 3000; ++id) {
+            //Mostly Elements on a few popular ids, so that their reverse indexes span several blocks
+            long a = random.nextInt(3) == 0 ? id : 1 + random.nextInt((int) Math.min(id, 20));
+            long b = random.nextInt(3) == 0 ? id : 1 + random.nextInt((int) Math.min(id, 20));
+            index.put(id, a, b);
+            rows.put(id, new long[] {id, a, b});
+        }
+        for(long id = 1; id <= 3000; id += 1 + random.nextInt(5)) {
+            index.remove(id);
+            rows.remove(id);
+        }
+        for(int limit : new int[] {1, 7, 1000, Integer.MAX_VALUE}) {
+            assertPagesMatch(rows, row -> true, index::getAllIds, limit);
+            assertPagesMatch(rows, row -> row[1] == row[0] && row[2] == row[0], index::getIdsNodes, limit);
+            for(long key = 1; key <= 20; ++key) {
+                long x = key;
+                long y = key + 1;
+                assertPagesMatch(
+                    rows,
+                    row -> row[1] == x || row[2] == y,
+                    (afterId, n) -> index.getIdsWithAOrB(x, y, afterId, n),
+                    limit
+                );
+                assertPagesMatch(
+                    rows,
+                    row -> row[1] == x && row[2] == y,
+                    (afterId, n) -> index.getIdsWithAAndB(x, y, afterId, n),
+                    limit
+                );
+                assertPagesMatch(
+                    rows,
+                    row -> row[0] != x && row[1] == x && row[2] == row[0],
+                    (afterId, n) -> index.getIdsPendantsFrom(x, afterId, n),
+                    limit
+                );
+                assertPagesMatch(
+                    rows,
+                    row -> row[0] != x && row[1] == row[0] && row[2] == x,
+                    (afterId, n) -> index.getIdsPendantsTo(x, afterId, n),
+                    limit
+                );
+                assertPagesMatch(
+                    rows,
+                    row -> row[0] != x && row[1] == x && row[2] == x,
+                    (afterId, n) -> index.getIdsLoopsOn(x, afterId, n),
+                    limit
+                );
+                assertPagesMatch(
+                    rows,
+                    row -> row[0] != x && (row[1] == x || row[2] == x),
+                    (afterId, n) -> index.getIdsEndpointsOf(x, afterId, n),
+                    limit
+                );
+            }
+        }
+    }
+
+    @Test
+    public void readTest_afterCreates_shouldMatchTable() {
+        createGraph();
+        assertIndexMatchesTable();
+    }
+
+    @Test
+    public void readTest_afterUpdates_shouldMatchTable() {
+        List<Long> ids = createGraph();
+        long idNode = elementService.createNode();
+        //A pendant into a loop, and an edge into a node
+        elementService.updateElement(ids.get(2), new UpdateElementRequest(ids.get(0), ids.get(0)));
+        elementService.updateElement(ids.get(5), new UpdateElementRequest(idNode, ids.get(1)));
+        elementService.updateElements(
+            OrderedSets.with(ids.get(3), ids.get(4)),
+            Lists.newArrayList(
+                new UpdateElementRequest(ids.get(3), ids.get(3)),
+                new UpdateElementRequest(ids.get(4), idNode)
+            )
+        );
+        assertIndexMatchesTable();
+    }
+
+    @Test
+    public void readTest_afterRewire_shouldMatchTable() {
+        List<Long> ids = createGraph();
+        long idNode = elementService.createNode();
+        elementService.rewire(ids.get(0), idNode, true, true, Sets.newHashSet());
+        assertIndexMatchesTable();
+    }
+
+    @Test
+    public void readTest_afterDeletes_shouldMatchTable() {
+        List<Long> ids = createGraph();
+        elementService.deleteElementWithDependents(ids.get(1));
+        assertIndexMatchesTable();
+        elementService.deleteElement(ids.get(ids.size() - 1));
+        assertIndexMatchesTable();
+    }
+
+    @Test
+    public void readTest_nonexistent_shouldMatchTable() {
+        long idNonexistent = mockElementService.idNonexistent();
+        assertFalse(elementService.doesElementExist(idNonexistent));
+        assertFalse(elementService.isElementEndpoint(idNonexistent));
+        try {
+            elementService.getElement(idNonexistent);
+            fail();
+        } catch(EmptyResultDataAccessException e) {
+            //expected, as when the Element is read from MySQL
+        }
+        assertEquals(
+            Lists.newArrayList(false),
+            elementService.areElementsNodes(OrderedSets.with(idNonexistent))
+        );
+        assertIndexMatchesTable();
+    }
+
+    @Test
+    public void updateElementTest_nonexistent_shouldNotBeIndexed() {
+        long idNode = elementService.createNode();
+        long idNonexistent = mockElementService.idNonexistent();
+        assertFalse(elementService.updateElement(idNonexistent, new UpdateElementRequest(idNode, idNode)));
+        assertFalse(elementService.doesElementExist(idNonexistent));
+        assertFalse(elementService.isElementEndpoint(idNode));
+        assertTrue(elementService.updateElement(idNode, new UpdateElementRequest(idNode, idNode)));
+        assertIndexMatchesTable();
+    }
+
+    /**
+     * @return The ids created: two nodes, then a pendant from, a pendant to, and a loop on the first node, then an edge
+     * between the nodes, an edge between that edge and the pendant, and a batch of nodes.
+     */
+    private List<Long> createGraph() {
+        long idNode1 = elementService.createNode();
+        long idNode2 = elementService.createNode();
+        long idPendantFrom = elementService.createPendantFrom(idNode1);
+        long idPendantTo = elementService.createPendantTo(idNode1);
+        long idLoop = elementService.createLoopOn(idNode1);
+        long idEdge = elementService.createElement(idNode1, idNode2);
+        long idEdgeOfEdges = elementService.createElement(idEdge, idPendantFrom);
+        List<Long> ids = Lists.newArrayList(
+            idNode1, idNode2, idPendantFrom, idPendantTo, idLoop, idEdge, idEdgeOfEdges
+        );
+        ids.addAll(elementService.createNodes(3));
+        return ids;
+    }
+
+    private void assertIndexMatchesTable() {
+        List<Element> rows = databaseService
+            .getJdbcTemplate()
+            .query("SELECT id, a, b FROM JGraphElement ORDER BY id", ElementService.ROW_MAPPER);
+        List<Long> ids = Lists.newArrayList();
+        rows.forEach(row -> ids.add(row.getId()));
+
+        assertEquals(ids, Lists.newArrayList(elementService.getAllIds()));
+        assertEquals(idsWhere("a = id AND b = id"), Lists.newArrayList(elementService.getIdsNodes()));
+        assertEquals(idsWhere("a = id AND b = id").size(), elementService.numNodes());
+        assertArrayEquals(
+            rows.stream().map(row -> row.getA() == row.getId() && row.getB() == row.getId()).toArray(),
+            elementService.areElementsNodes(OrderedSets.with(ids)).toArray()
+        );
+
+        List<Long> paged = Lists.newArrayList();
+        List<Long> page;
+        long afterId = 0;
+        while(! (page = elementService.getAllIds(afterId, 3)).isEmpty()) {
+            paged.addAll(page);
+            afterId = page.get(page.size() - 1);
+        }
+        assertEquals(ids, paged);
+
+        for(Element row : rows) {
+            long id = row.getId();
+            assertTrue(elementService.doesElementExist(id));
+            Element element = elementService.getElement(id);
+            assertEquals(row.getA(), element.getA());
+            assertEquals(row.getB(), element.getB());
+            assertEquals(row.getA() == id && row.getB() == id, elementService.isElementNode(id));
+            assertEquals(
+                row.getA() != id && row.getB() == id,
+                elementService.isElementPendantFrom(id, row.getA())
+            );
+            assertEquals(
+                row.getA() == id && row.getB() != id,
+                elementService.isElementPendantTo(id, row.getB())
+            );
+            assertEquals(
+                row.getA() != id && row.getA() == row.getB(),
+                elementService.isElementLoopOn(id, row.getA())
+            );
+
+            Map<String, Object> parameters = ImmutableMap.of("id", id);
+            List<Long> endpointsOf = idsWhere("id != :id AND (a = :id OR b = :id)", parameters);
+            assertEquals(! endpointsOf.isEmpty(), elementService.isElementEndpoint(id));
+            assertEquals(endpointsOf, Lists.newArrayList(elementService.getIdsEndpointsOf(id)));
+            assertEquals(
+                idsWhere("id != :id AND a = :id AND b = id", parameters),
+                Lists.newArrayList(elementService.getIdsPendantsFrom(id))
+            );
+            assertEquals(
+                idsWhere("id != :id AND b = :id AND a = id", parameters),
+                Lists.newArrayList(elementService.getIdsPendantsTo(id))
+            );
+            assertEquals(
+                idsWhere("id != :id AND a = :id AND b = :id", parameters),
+                Lists.newArrayList(elementService.getIdsLoopsOn(id))
+            );
+            assertEquals(
+                idsWhere("a = :id OR b = :id", parameters),
+                Lists.newArrayList(elementService.getIdsWithAOrB(id, id))
+            );
+            assertEquals(
+                idsWhere("a = :id AND b = :id", parameters),
+                Lists.newArrayList(elementService.getIdsWithAAndB(id, id))
+            );
+        }
+    }
+
+    /**
+     * Page through the ids with the given limit, and check that every page is full but the last and that together
+     * they are the ids of the rows matching the predicate, in order.
+     */
+    private static void assertPagesMatch(
+        Map<Long, long[]> rows,
+        Predicate<long[]> predicate,
+        BiFunction<Long, Integer, long[]> page,
+        int limit
+    ) {
+        long[] expected = rows.values().stream().filter(predicate).mapToLong(row -> row[0]).toArray();
+        LongStream.Builder paged = LongStream.builder();
+        long afterId = 0;
+        long[] ids;
+        while((ids = page.apply(afterId, limit)).length > 0) {
+            assertTrue(ids.length <= limit);
+            LongStream.of(ids).forEach(paged::add);
+            afterId = ids[ids.length - 1];
+            if(ids.length < limit) {
+                break;
+            }
+        }
+        assertArrayEquals(expected, paged.build().toArray());
+    }
+
+    private List<Long> idsWhere(String condition) {
+        return idsWhere(condition, ImmutableMap.of());
+    }
+
+    private List<Long> idsWhere(String condition, Map<String, Object> parameters) {
+        return databaseService
+            .getNamedParameterJdbcTemplate()
+            .queryForList("SELECT id FROM JGraphElement WHERE " + condition + " ORDER BY id", parameters, Long.class);
+    }
+}
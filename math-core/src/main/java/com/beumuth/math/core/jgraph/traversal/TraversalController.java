@@ -0,0 +1,76 @@
+package com.beumuth.math.core.jgraph.traversal;
+
+import com.beumuth.math.client.jgraph.traversal.TraversalDirection;
+import com.beumuth.math.client.settheory.orderedset.OrderedSet;
+import com.beumuth.math.core.internal.ndjson.NdjsonResponses;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.github.instantpudd.validator.ClientErrorException;
+import com.github.instantpudd.validator.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import static com.github.instantpudd.validator.ClientErrorStatusCode.BAD_REQUEST;
+import static com.github.instantpudd.validator.ClientErrorStatusCode.NOT_FOUND;
+
+@Controller
+@RequestMapping("/api/jgraph")
+public class TraversalController {
+
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+
+    @Autowired
+    private TraversalService traversalService;
+
+    @RequestMapping(method=RequestMethod.GET, value="/traversal")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> traverse(
+        @RequestParam(value="startIds", required=false) OrderedSet<Long> startIds,
+        @RequestParam(value="maxDepth") int maxDepth,
+        @RequestParam(value="direction", required=false, defaultValue="ALL") TraversalDirection direction,
+        @RequestParam(value="limit") int limit
+    ) throws ClientErrorException {
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifTrue(startIds == null || startIds.isEmpty())
+            .withErrorMessage("startIds cannot be empty")
+            .execute();
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifTrue(maxDepth < 0)
+            .withErrorMessage("maxDepth [" + maxDepth + "] cannot be negative")
+            .execute();
+        Validator
+            .returnStatus(BAD_REQUEST)
+            .ifTrue(limit < 1)
+            .withErrorMessage("limit [" + limit + "] must be at least 1")
+            .execute();
+        OrderedSet<Long> idsThatDoNotExist = elementService.getIdsThatDoNotExist(startIds);
+        Validator
+            .returnStatus(NOT_FOUND)
+            .ifFalse(idsThatDoNotExist.isEmpty())
+            .withErrorMessage("Elements with the given ids " + idsThatDoNotExist + " do not exist")
+            .execute();
+
+        long[] startIdArray = startIds
+            .stream()
+            .mapToLong(Long::longValue)
+            .toArray();
+        return NdjsonResponses.stream(writer ->
+            traversalService.traverse(startIdArray, maxDepth, direction, limit, (id, a, b, depth) ->
+                NdjsonResponses.writeLine(
+                    writer,
+                    "{\"id\":" + id + ",\"a\":" + a + ",\"b\":" + b + ",\"depth\":" + depth + "}"
+                )
+            )
+        );
+    }
+}
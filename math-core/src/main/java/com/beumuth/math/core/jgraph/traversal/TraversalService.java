@@ -0,0 +1,95 @@
+package com.beumuth.math.core.jgraph.traversal;
+
+import com.beumuth.math.client.jgraph.traversal.TraversalDirection;
+import com.beumuth.math.core.internal.primitive.LongArrayList;
+import com.beumuth.math.core.internal.primitive.LongHashSet;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Breadth-first traversal of the jgraph, one level at a time. Each level is expanded with a constant number of batched
+ * lookups (or the in-memory index, when enabled) rather than one query per Element, so the number of round trips grows
+ * with the depth instead of the size of the neighborhood.
+ */
+@Service
+public class TraversalService {
+
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+
+    /**
+     * Visit the Elements within maxDepth hops of the start Elements, level by level, each once at its smallest depth.
+     * Stops after limit Elements have been visited. Start ids that do not exist are skipped.
+     */
+    public void traverse(long[] startIds, int maxDepth, TraversalDirection direction, int limit, Visitor visitor) {
+        LongHashSet visited = new LongHashSet(startIds.length);
+        Level level = new Level(0, limit, visited, visitor);
+        elementService.forEachElementIn(startIds, level::visit);
+
+        boolean followA = direction == TraversalDirection.A || direction == TraversalDirection.ALL;
+        boolean followB = direction == TraversalDirection.B || direction == TraversalDirection.ALL;
+        boolean followEndpoints = direction == TraversalDirection.ENDPOINTS || direction == TraversalDirection.ALL;
+        for(int depth = 1; depth <= maxDepth && ! level.isEmpty() && visited.size() < limit; ++depth) {
+            Level next = new Level(depth, limit, visited, visitor);
+            if(followA || followB) {
+                LongHashSet endpoints = new LongHashSet();
+                for(int i = 0; i < level.ids.size(); ++i) {
+                    if(followA && ! visited.contains(level.as.get(i))) {
+                        endpoints.add(level.as.get(i));
+                    }
+                    if(followB && ! visited.contains(level.bs.get(i))) {
+                        endpoints.add(level.bs.get(i));
+                    }
+                }
+                if(! endpoints.isEmpty()) {
+                    elementService.forEachElementIn(endpoints.toArray(), next::visit);
+                }
+            }
+            if(followEndpoints) {
+                elementService.forEachElementWithAOrBIn(level.ids.toArray(), next::visit);
+            }
+            level = next;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long id, long a, long b, int depth);
+    }
+
+    /**
+     * The Elements first reached at one depth
+     */
+    private static class Level {
+        private final int depth;
+        private final int limit;
+        private final LongHashSet visited;
+        private final Visitor visitor;
+        private final LongArrayList ids = new LongArrayList();
+        private final LongArrayList as = new LongArrayList();
+        private final LongArrayList bs = new LongArrayList();
+
+        private Level(int depth, int limit, LongHashSet visited, Visitor visitor) {
+            this.depth = depth;
+            this.limit = limit;
+            this.visited = visited;
+            this.visitor = visitor;
+        }
+
+        private boolean isEmpty() {
+            return ids.isEmpty();
+        }
+
+        private void visit(long id, long a, long b) {
+            if(visited.size() < limit && visited.add(id)) {
+                ids.add(id);
+                as.add(a);
+                bs.add(b);
+                visitor.visit(id, a, b, depth);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.beumuth.math.core.jgraph.traversal;
+
+import com.beumuth.math.client.jgraph.traversal.TraversalClient;
+import com.beumuth.math.client.jgraph.traversal.TraversalDirection;
+import com.beumuth.math.client.jgraph.traversal.TraversedElement;
+import com.beumuth.math.client.settheory.orderedset.OrderedSets;
+import com.beumuth.math.core.internal.client.ClientService;
+import com.beumuth.math.core.jgraph.element.ElementService;
+import com.beumuth.math.core.jgraph.element.MockElementService;
+import com.google.common.collect.Lists;
+import feign.Response;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TraversalTests {
+    @Autowired
+    @Qualifier(value="JGraphElementService")
+    private ElementService elementService;
+    @Autowired
+    private MockElementService mockElementService;
+    @Autowired
+    private ClientService clientService;
+
+    private static TraversalClient traversalClient;
+
+    @PostConstruct
+    public void postConstruct() {
+        traversalClient = clientService.getClient(TraversalClient.class);
+    }
+
+    @After
+    public void cleanupTest() {
+        elementService.reset();
+    }
+
+    @Test
+    public void traverseTest_depthZero_shouldReturnOnlyStart() {
+        long idA = elementService.createNode();
+        long idB = elementService.createNode();
+        long idEdge = elementService.createElement(idA, idB);
+        assertEquals(
+            Lists.newArrayList(new TraversedElement(idEdge, idA, idB, 0)),
+            traverse(idEdge, 0, TraversalDirection.ALL, 100)
+        );
+    }
+
+    @Test
+    public void traverseTest_directionA_shouldFollowOnlyA() {
+        long idA = elementService.createNode();
+        long idB = elementService.createNode();
+        long idEdge = elementService.createElement(idA, idB);
+        assertEquals(
+            Lists.newArrayList(
+                new TraversedElement(idEdge, idA, idB, 0),
+                new TraversedElement(idA, idA, idA, 1)
+            ),
+            traverse(idEdge, 5, TraversalDirection.A, 100)
+        );
+    }
+
+    @Test
+    public void traverseTest_directionEndpoints_shouldFollowIncomingReferences() {
+        long idA = elementService.createNode();
+        long idB = elementService.createNode();
+        long idEdge = elementService.createElement(idA, idB);
+        long idPendant = elementService.createPendantFrom(idEdge);
+        assertEquals(
+            Lists.newArrayList(
+                new TraversedElement(idA, idA, idA, 0),
+                new TraversedElement(idEdge, idA, idB, 1),
+                new TraversedElement(idPendant, idEdge, idPendant, 2)
+            ),
+            traverse(idA, 5, TraversalDirection.ENDPOINTS, 100)
+        );
+    }
+
+    @Test
+    public void traverseTest_chain_shouldAssignSmallestDepth() {
+        long id = elementService.createNode();
+        List<Long> chain = Lists.newArrayList(id);
+        for(int i = 0; i < 5; ++i) {
+            id = elementService.createPendantFrom(id);
+            chain.add(id);
+        }
+        List<TraversedElement> traversed = traverse(chain.get(0), 3, TraversalDirection.ALL, 100);
+        assertEquals(4, traversed.size());
+        for(int depth = 0; depth < traversed.size(); ++depth) {
+            assertEquals((long) chain.get(depth), traversed.get(depth).getId());
+            assertEquals(depth, traversed.get(depth).getDepth());
+        }
+    }
+
+    @Test
+    public void traverseTest_limit_shouldStopAtLimit() {
+        long idNode = elementService.createNode();
+        elementService.createPendantsFrom(idNode, 10);
+        assertEquals(3, traverse(idNode, 5, TraversalDirection.ALL, 3).size());
+    }
+
+    @Test
+    public void traverseTest_startDoesNotExist_shouldReturn404() {
+        Response response = traversalClient.traverse(
+            OrderedSets.with(mockElementService.idNonexistent()),
+            1,
+            TraversalDirection.ALL,
+            100
+        );
+        assertEquals(404, response.status());
+    }
+
+    @Test
+    public void traverseTest_negativeDepth_shouldReturn400() {
+        Response response = traversalClient.traverse(
+            OrderedSets.with(elementService.createNode()),
+            -1,
+            TraversalDirection.ALL,
+            100
+        );
+        assertEquals(400, response.status());
+    }
+
+    @Test
+    public void traverseTest_zeroLimit_shouldReturn400() {
+        Response response = traversalClient.traverse(
+            OrderedSets.with(elementService.createNode()),
+            1,
+            TraversalDirection.ALL,
+            0
+        );
+        assertEquals(400, response.status());
+    }
+
+    private List<TraversedElement> traverse(long idStart, int maxDepth, TraversalDirection direction, int limit) {
+        return Lists.newArrayList(
+            traversalClient.iterateTraversal(OrderedSets.with(idStart), maxDepth, direction, limit)
+        );
+    }
+}
@@ -4,6 +4,8 @@ import com.beumuth.math.client.settheory.orderedpair.CrupdateOrderedPairRequest;
 import com.beumuth.math.client.settheory.orderedpair.OrderedPair;
 import com.beumuth.math.core.internal.database.DatabaseService;
 import com.beumuth.math.core.internal.database.MathBeanPropertyRowMapper;
+import com.beumuth.math.core.internal.invalidation.InvalidatedEntity;
+import com.beumuth.math.core.internal.invalidation.InvalidationBus;
 import com.beumuth.math.core.settheory.object.ObjectService;
 import com.google.common.collect.ImmutableMap;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +28,9 @@ public class OrderedPairService {
     @Autowired
     private ObjectService objectService;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
     public boolean doesOrderedPairExist(long id) {
         try {
             return databaseService
@@ -87,7 +92,9 @@ public class OrderedPairService {
                 ),
                 keyHolder
             );
-        return keyHolder.getKey().longValue();
+        long id = keyHolder.getKey().longValue();
+        invalidationBus.publish(InvalidatedEntity.ORDERED_PAIR, id);
+        return id;
     }
 
     public void updateOrderedPair(long id, CrupdateOrderedPairRequest request) {
@@ -109,6 +116,7 @@ public class OrderedPairService {
                     )
                 )
             );
+        invalidationBus.publish(InvalidatedEntity.ORDERED_PAIR, id);
     }
 
     public void deleteOrderedPair(long id) {
@@ -121,6 +129,7 @@ public class OrderedPairService {
                 ")",
                 ImmutableMap.of("id", id)
             );
+        invalidationBus.publish(InvalidatedEntity.ORDERED_PAIR, id);
     }
 
     /**
@@ -140,5 +149,6 @@ public class OrderedPairService {
                 "WHERE id=:id",
                 ImmutableMap.of("id", id)
             );
+        invalidationBus.publish(InvalidatedEntity.ORDERED_PAIR, id);
     }
 }
@@ -3,6 +3,8 @@ package com.beumuth.math.core.settheory.set;
 import com.beumuth.math.client.settheory.set.Set;
 import com.beumuth.math.core.internal.database.MathBeanPropertyRowMapper;
 import com.beumuth.math.core.internal.database.DatabaseService;
+import com.beumuth.math.core.internal.invalidation.InvalidatedEntity;
+import com.beumuth.math.core.internal.invalidation.InvalidationBus;
 import com.beumuth.math.core.settheory.object.ObjectService;
 import com.beumuth.math.core.settheory.element.CreateElementRequest;
 import com.beumuth.math.core.settheory.element.ElementService;
@@ -31,6 +33,9 @@ public class SetService {
     @Autowired
     private ObjectService objectService;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
     public boolean doesSetExist(long id) {
         try {
             return databaseService
@@ -105,7 +110,9 @@ public class SetService {
                     ),
                     keyHolder
             );
-        return keyHolder.getKey().longValue();
+        long id = keyHolder.getKey().longValue();
+        invalidationBus.publish(InvalidatedEntity.SET, id);
+        return id;
     }
 
     public void deleteSet(long id) {
@@ -118,6 +125,7 @@ public class SetService {
                 ")",
                 ImmutableMap.of("id", id)
             );
+        invalidationBus.publish(InvalidatedEntity.SET, id);
     }
 
     /**
@@ -145,6 +153,7 @@ public class SetService {
                 .map(idElement -> new CreateElementRequest(idSet, idElement))
                 .collect(Collectors.toSet())
         );
+        invalidationBus.publish(InvalidatedEntity.SET, idSet);
         return idSet;
     }
 
@@ -220,6 +229,7 @@ public class SetService {
         elementService.createElement(
             new CreateElementRequest(idSet, idObject)
         );
+        invalidationBus.publish(InvalidatedEntity.SET, idSet);
     }
 
     /**
@@ -248,6 +258,7 @@ public class SetService {
                     "idObject", idObject
                 )
             );
+        invalidationBus.publish(InvalidatedEntity.SET, idSet);
     }
 
     /**
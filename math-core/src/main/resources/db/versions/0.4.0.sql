@@ -0,0 +1,12 @@
+/*IdAllocation*/
+CREATE TABLE IF NOT EXISTS IdAllocation (
+  `name` VARCHAR(64) NOT NULL,
+  `nextId` BIGINT NOT NULL,
+  PRIMARY KEY (`name`)
+)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8;
+
+/*Seed the JGraphElement sequence past the existing ids*/
+INSERT INTO IdAllocation (name, nextId)
+SELECT 'JGraphElement', COALESCE(MAX(id), 0) + 1 FROM JGraphElement;
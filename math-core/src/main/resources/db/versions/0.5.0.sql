@@ -0,0 +1,9 @@
+/*JGraphElementChange: every insert, delete, and change of a or b of a JGraphElement, in order.
+  Filled by triggers that ElementSnapshotService installs when snapshots are enabled*/
+CREATE TABLE IF NOT EXISTS JGraphElementChange (
+  `revision` BIGINT NOT NULL AUTO_INCREMENT,
+  `id` INT(11) NOT NULL,
+  PRIMARY KEY (`revision`)
+)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8;
@@ -0,0 +1,27 @@
+/*kind: the ElementKind code of each Element. endpointCount: the number of other Elements with it as their a or b*/
+ALTER TABLE JGraphElement
+  ADD COLUMN `kind` TINYINT NOT NULL DEFAULT 0,
+  ADD COLUMN `endpointCount` INT NOT NULL DEFAULT 0,
+  ADD INDEX `idx_jgraphElement_kind_a` (`kind` ASC, `a` ASC),
+  ADD INDEX `idx_jgraphElement_kind_b` (`kind` ASC, `b` ASC);
+
+UPDATE JGraphElement
+SET kind = CASE
+  WHEN a = id AND b = id THEN 0
+  WHEN b = id THEN 1
+  WHEN a = id THEN 2
+  WHEN a = b THEN 3
+  ELSE 4
+END;
+
+/*Every insert must say what kind of Element it is, rather than silently recording a node*/
+ALTER TABLE JGraphElement
+  ALTER COLUMN `kind` DROP DEFAULT;
+
+UPDATE JGraphElement j
+  INNER JOIN (
+    SELECT e.id, COUNT(r.id) AS endpointCount
+    FROM JGraphElement e INNER JOIN JGraphElement r ON r.id != e.id AND (r.a = e.id OR r.b = e.id)
+    GROUP BY e.id
+  ) counts ON counts.id = j.id
+SET j.endpointCount = counts.endpointCount;
@@ -0,0 +1,13 @@
+/*InvalidationEvent: ranges of ids written by a math-core node, which its peers poll to invalidate what they hold in memory*/
+CREATE TABLE IF NOT EXISTS InvalidationEvent (
+  `revision` BIGINT NOT NULL AUTO_INCREMENT,
+  `idNode` CHAR(36) NOT NULL,
+  `entity` TINYINT NOT NULL,
+  `idFrom` BIGINT NOT NULL,
+  `idTo` BIGINT NOT NULL,
+  `datetimeCreated` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`revision`),
+  INDEX `idx_invalidationEvent_datetimeCreated` (`datetimeCreated` ASC)
+)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8;